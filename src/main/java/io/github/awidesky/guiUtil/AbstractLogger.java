@@ -11,14 +11,16 @@ package io.github.awidesky.guiUtil;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.formatter.MessageTemplate;
 import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.formatter.StackTraceRenderer;
 import io.github.awidesky.guiUtil.level.Level;
 import io.github.awidesky.guiUtil.simple.SysoutLogger;
 
@@ -33,6 +35,8 @@ public abstract class AbstractLogger implements Logger {
 	protected String prefix = null;
 	protected LogFormatter formatter = new SimpleLogFormatter();
 	protected Level level = Level.getRootLogLevel();
+	protected StackTraceRenderer stackTraceRenderer = new StackTraceRenderer();
+	protected ExceptionDeduplicator exceptionDeduplicator = null;
 	
 	@Override
 	public Logger setLogFormatter(LogFormatter formatter) {
@@ -44,6 +48,48 @@ public abstract class AbstractLogger implements Logger {
 	public LogFormatter getLogFormatter() {
 		return formatter;
 	}
+	
+	/**
+	 * Set the renderer that renders stack traces of logged {@code Throwable}s.
+	 * Loggers derived from this logger by {@link AbstractLogger#withMorePrefix(String, boolean)} or
+	 * {@link AbstractLogger#getChildlogger(LogFormatter, boolean)} use the renderer of this logger at the time they are created.
+	 * 
+	 * @param stackTraceRenderer the renderer
+	 * @return this logger
+	 */
+	public AbstractLogger setStackTraceRenderer(StackTraceRenderer stackTraceRenderer) {
+		this.stackTraceRenderer = stackTraceRenderer;
+		return this;
+	}
+	
+	/**
+	 * @return the renderer that renders stack traces of logged {@code Throwable}s.
+	 */
+	public StackTraceRenderer getStackTraceRenderer() {
+		return stackTraceRenderer;
+	}
+	
+	/**
+	 * Set the deduplicator that suppresses repeated stack traces of {@code Throwable}s logged by
+	 * {@code log(Throwable)}, {@code log(CharSequence, Throwable)} and the per-level variants of them.
+	 * {@code null} (the default) means every stack trace is logged.
+	 * Loggers derived from this logger by {@link AbstractLogger#withMorePrefix(String, boolean)} or
+	 * {@link AbstractLogger#getChildlogger(LogFormatter, boolean)} share the deduplicator of this logger at the time they are created.
+	 * 
+	 * @param exceptionDeduplicator the deduplicator, or {@code null}
+	 * @return this logger
+	 */
+	public AbstractLogger setExceptionDeduplicator(ExceptionDeduplicator exceptionDeduplicator) {
+		this.exceptionDeduplicator = exceptionDeduplicator;
+		return this;
+	}
+	
+	/**
+	 * @return the deduplicator of logged {@code Throwable}s, or {@code null} if there's none.
+	 */
+	public ExceptionDeduplicator getExceptionDeduplicator() {
+		return exceptionDeduplicator;
+	}
 
 	@Override
 	public String getPrefix() {
@@ -73,8 +119,7 @@ public abstract class AbstractLogger implements Logger {
 	@Override
 	@Deprecated
 	public void log(CharSequence format, Object... objs) {
-		log(String.format(format.toString(), objs));
-		
+		info(format, objs);
 	}
 	
 	/**
@@ -85,9 +130,7 @@ public abstract class AbstractLogger implements Logger {
 	@Override
 	@Deprecated
 	public void log(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		log(sw.toString());
+		info(e);
 	}
 	
 	/**
@@ -112,52 +155,174 @@ public abstract class AbstractLogger implements Logger {
 		logInLevel(Level.INFO, data);
 	}
 
+	@Override
+	public void info(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.INFO)) logInLevel(Level.INFO, data.get());
+	}
+
 	@Override
 	public void info(CharSequence format, Object... objs) {
-		logInLevel(Level.INFO, String.format(format.toString(), objs));
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, objs);
+	}
+
+	@Override
+	public void info(CharSequence format, Object arg) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg });
+	}
+
+	@Override
+	public void info(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void info(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void info(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void info(CharSequence format, int arg) {
+		if(isLoggable(Level.INFO)) logTemplate(Level.INFO, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void info(CharSequence format, long arg) {
+		if(isLoggable(Level.INFO)) logTemplate(Level.INFO, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void info(CharSequence format, double arg) {
+		if(isLoggable(Level.INFO)) logTemplate(Level.INFO, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void info(CharSequence format, boolean arg) {
+		if(isLoggable(Level.INFO)) logTemplate(Level.INFO, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void info(CharSequence format, char arg) {
+		if(isLoggable(Level.INFO)) logTemplate(Level.INFO, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void info(CharSequence format, byte arg) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg });
+	}
+
+	@Override
+	public void info(CharSequence format, short arg) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg });
+	}
+
+	@Override
+	public void info(CharSequence format, float arg) {
+		if(isLoggable(Level.INFO)) logFormatted(Level.INFO, format, new Object[] { arg });
 	}
 
 	@Override
 	public void info(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.INFO, sw.toString());
+		if(isLoggable(Level.INFO)) logThrowable(Level.INFO, null, e);
 	}
 
 	@Override
 	public void info(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.INFO, data + sw.toString());
+		if(isLoggable(Level.INFO)) logThrowable(Level.INFO, data, e);
 	}
 	
 	@Override
 	public void debug() {
 		logInLevel(Level.DEBUG, "");
 	}
-	
+
 	@Override
 	public void debug(CharSequence data) {
 		logInLevel(Level.DEBUG, data);
 	}
 
+	@Override
+	public void debug(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.DEBUG)) logInLevel(Level.DEBUG, data.get());
+	}
+
 	@Override
 	public void debug(CharSequence format, Object... objs) {
-		logInLevel(Level.DEBUG, String.format(format.toString(), objs));
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, objs);
+	}
+
+	@Override
+	public void debug(CharSequence format, Object arg) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg });
+	}
+
+	@Override
+	public void debug(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void debug(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void debug(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void debug(CharSequence format, int arg) {
+		if(isLoggable(Level.DEBUG)) logTemplate(Level.DEBUG, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void debug(CharSequence format, long arg) {
+		if(isLoggable(Level.DEBUG)) logTemplate(Level.DEBUG, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void debug(CharSequence format, double arg) {
+		if(isLoggable(Level.DEBUG)) logTemplate(Level.DEBUG, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void debug(CharSequence format, boolean arg) {
+		if(isLoggable(Level.DEBUG)) logTemplate(Level.DEBUG, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void debug(CharSequence format, char arg) {
+		if(isLoggable(Level.DEBUG)) logTemplate(Level.DEBUG, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void debug(CharSequence format, byte arg) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg });
+	}
+
+	@Override
+	public void debug(CharSequence format, short arg) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg });
+	}
+
+	@Override
+	public void debug(CharSequence format, float arg) {
+		if(isLoggable(Level.DEBUG)) logFormatted(Level.DEBUG, format, new Object[] { arg });
 	}
 
 	@Override
 	public void debug(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.DEBUG, sw.toString());
+		if(isLoggable(Level.DEBUG)) logThrowable(Level.DEBUG, null, e);
 	}
 
 	@Override
 	public void debug(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.DEBUG, data + sw.toString());
+		if(isLoggable(Level.DEBUG)) logThrowable(Level.DEBUG, data, e);
 	}
 	
 	@Override
@@ -170,23 +335,84 @@ public abstract class AbstractLogger implements Logger {
 		logInLevel(Level.TRACE, data);
 	}
 
+	@Override
+	public void trace(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.TRACE)) logInLevel(Level.TRACE, data.get());
+	}
+
 	@Override
 	public void trace(CharSequence format, Object... objs) {
-		logInLevel(Level.TRACE, String.format(format.toString(), objs));
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, objs);
+	}
+
+	@Override
+	public void trace(CharSequence format, Object arg) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg });
+	}
+
+	@Override
+	public void trace(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void trace(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void trace(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void trace(CharSequence format, int arg) {
+		if(isLoggable(Level.TRACE)) logTemplate(Level.TRACE, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void trace(CharSequence format, long arg) {
+		if(isLoggable(Level.TRACE)) logTemplate(Level.TRACE, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void trace(CharSequence format, double arg) {
+		if(isLoggable(Level.TRACE)) logTemplate(Level.TRACE, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void trace(CharSequence format, boolean arg) {
+		if(isLoggable(Level.TRACE)) logTemplate(Level.TRACE, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void trace(CharSequence format, char arg) {
+		if(isLoggable(Level.TRACE)) logTemplate(Level.TRACE, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void trace(CharSequence format, byte arg) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg });
+	}
+
+	@Override
+	public void trace(CharSequence format, short arg) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg });
+	}
+
+	@Override
+	public void trace(CharSequence format, float arg) {
+		if(isLoggable(Level.TRACE)) logFormatted(Level.TRACE, format, new Object[] { arg });
 	}
 
 	@Override
 	public void trace(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.TRACE, sw.toString());
+		if(isLoggable(Level.TRACE)) logThrowable(Level.TRACE, null, e);
 	}
-	
+
 	@Override
 	public void trace(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.TRACE, data + sw.toString());
+		if(isLoggable(Level.TRACE)) logThrowable(Level.TRACE, data, e);
 	}
 	
 	@Override
@@ -199,23 +425,84 @@ public abstract class AbstractLogger implements Logger {
 		logInLevel(Level.WARNING, data);
 	}
 
+	@Override
+	public void warning(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.WARNING)) logInLevel(Level.WARNING, data.get());
+	}
+
 	@Override
 	public void warning(CharSequence format, Object... objs) {
-		logInLevel(Level.WARNING, String.format(format.toString(), objs));
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, objs);
+	}
+
+	@Override
+	public void warning(CharSequence format, Object arg) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg });
+	}
+
+	@Override
+	public void warning(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void warning(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void warning(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void warning(CharSequence format, int arg) {
+		if(isLoggable(Level.WARNING)) logTemplate(Level.WARNING, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void warning(CharSequence format, long arg) {
+		if(isLoggable(Level.WARNING)) logTemplate(Level.WARNING, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void warning(CharSequence format, double arg) {
+		if(isLoggable(Level.WARNING)) logTemplate(Level.WARNING, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void warning(CharSequence format, boolean arg) {
+		if(isLoggable(Level.WARNING)) logTemplate(Level.WARNING, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void warning(CharSequence format, char arg) {
+		if(isLoggable(Level.WARNING)) logTemplate(Level.WARNING, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void warning(CharSequence format, byte arg) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg });
+	}
+
+	@Override
+	public void warning(CharSequence format, short arg) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg });
+	}
+
+	@Override
+	public void warning(CharSequence format, float arg) {
+		if(isLoggable(Level.WARNING)) logFormatted(Level.WARNING, format, new Object[] { arg });
 	}
 
 	@Override
 	public void warning(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.WARNING, sw.toString());
+		if(isLoggable(Level.WARNING)) logThrowable(Level.WARNING, null, e);
 	}
-	
+
 	@Override
 	public void warning(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.WARNING, data + sw.toString());
+		if(isLoggable(Level.WARNING)) logThrowable(Level.WARNING, data, e);
 	}
 	
 	@Override
@@ -228,23 +515,84 @@ public abstract class AbstractLogger implements Logger {
 		logInLevel(Level.ERROR, data);
 	}
 
+	@Override
+	public void error(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.ERROR)) logInLevel(Level.ERROR, data.get());
+	}
+
 	@Override
 	public void error(CharSequence format, Object... objs) {
-		logInLevel(Level.ERROR, String.format(format.toString(), objs));
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, objs);
 	}
-	
+
+	@Override
+	public void error(CharSequence format, Object arg) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg });
+	}
+
+	@Override
+	public void error(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void error(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void error(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void error(CharSequence format, int arg) {
+		if(isLoggable(Level.ERROR)) logTemplate(Level.ERROR, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void error(CharSequence format, long arg) {
+		if(isLoggable(Level.ERROR)) logTemplate(Level.ERROR, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void error(CharSequence format, double arg) {
+		if(isLoggable(Level.ERROR)) logTemplate(Level.ERROR, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void error(CharSequence format, boolean arg) {
+		if(isLoggable(Level.ERROR)) logTemplate(Level.ERROR, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void error(CharSequence format, char arg) {
+		if(isLoggable(Level.ERROR)) logTemplate(Level.ERROR, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void error(CharSequence format, byte arg) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg });
+	}
+
+	@Override
+	public void error(CharSequence format, short arg) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg });
+	}
+
+	@Override
+	public void error(CharSequence format, float arg) {
+		if(isLoggable(Level.ERROR)) logFormatted(Level.ERROR, format, new Object[] { arg });
+	}
+
 	@Override
 	public void error(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.ERROR, sw.toString());
+		if(isLoggable(Level.ERROR)) logThrowable(Level.ERROR, null, e);
 	}
-	
+
 	@Override
 	public void error(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.ERROR, data + sw.toString());
+		if(isLoggable(Level.ERROR)) logThrowable(Level.ERROR, data, e);
 	}
 	
 	@Override
@@ -257,23 +605,178 @@ public abstract class AbstractLogger implements Logger {
 		logInLevel(Level.FATAL, data);
 	}
 
+	@Override
+	public void fatal(Supplier<? extends CharSequence> data) {
+		if(isLoggable(Level.FATAL)) logInLevel(Level.FATAL, data.get());
+	}
+
 	@Override
 	public void fatal(CharSequence format, Object... objs) {
-		logInLevel(Level.FATAL, String.format(format.toString(), objs));
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, objs);
+	}
+
+	@Override
+	public void fatal(CharSequence format, Object arg) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg });
+	}
+
+	@Override
+	public void fatal(CharSequence format, Object arg1, Object arg2) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg1, arg2 });
+	}
+
+	@Override
+	public void fatal(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg1, arg2, arg3 });
+	}
+
+	@Override
+	public void fatal(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	@Override
+	public void fatal(CharSequence format, int arg) {
+		if(isLoggable(Level.FATAL)) logTemplate(Level.FATAL, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void fatal(CharSequence format, long arg) {
+		if(isLoggable(Level.FATAL)) logTemplate(Level.FATAL, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void fatal(CharSequence format, double arg) {
+		if(isLoggable(Level.FATAL)) logTemplate(Level.FATAL, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void fatal(CharSequence format, boolean arg) {
+		if(isLoggable(Level.FATAL)) logTemplate(Level.FATAL, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void fatal(CharSequence format, char arg) {
+		if(isLoggable(Level.FATAL)) logTemplate(Level.FATAL, format, (t, sb) -> t.appendTo(sb, arg));
+	}
+
+	@Override
+	public void fatal(CharSequence format, byte arg) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg });
+	}
+
+	@Override
+	public void fatal(CharSequence format, short arg) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg });
+	}
+
+	@Override
+	public void fatal(CharSequence format, float arg) {
+		if(isLoggable(Level.FATAL)) logFormatted(Level.FATAL, format, new Object[] { arg });
 	}
 
 	@Override
 	public void fatal(Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.FATAL, sw.toString());
+		if(isLoggable(Level.FATAL)) logThrowable(Level.FATAL, null, e);
 	}
-	
+
 	@Override
 	public void fatal(CharSequence data, Throwable e) {
-		StringWriter sw = new StringWriter();
-		e.printStackTrace(new PrintWriter(sw));
-		logInLevel(Level.FATAL, data + sw.toString());
+		if(isLoggable(Level.FATAL)) logThrowable(Level.FATAL, data, e);
+	}
+	
+	/**
+	 * Check if a log of given level will be written, before the log message is generated.
+	 * Log methods that have to format a message or render a stack trace call this first,
+	 * so that a disabled log costs only this check.
+	 * 
+	 * <p>Default implementation checks the log level of this logger. Subclass can override this method
+	 * if it handles logs regardless of its log level.
+	 * 
+	 * @param level the log level
+	 * @return {@code true} if a log of given level should be generated
+	 */
+	protected boolean isLoggable(Level level) {
+		return this.level.includes(level);
+	}
+	
+	/**
+	 * Log a message generated from a format and arguments, in a {@code StringBuilder} borrowed from
+	 * {@link SimpleLogFormatter#builderPool()}. The message is passed to {@link AbstractLogger#logInLevel(Level, CharSequence)}
+	 * as the builder itself, so no intermediate {@code String} is generated.
+	 */
+	private void logFormatted(Level level, CharSequence format, Object[] objs) {
+		StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+		try {
+			formatMessage(sb, format, objs);
+			logInLevel(level, sb);
+		} finally {
+			SimpleLogFormatter.builderPool().release(sb);
+		}
+	}
+	
+	/**
+	 * Log a message that {@code append} generates with the {@code MessageTemplate} of the format.
+	 * Used by primitive overloads, so that the arguments are appended without being boxed.
+	 * 
+	 * @see AbstractLogger#logFormatted(Level, CharSequence, Object[])
+	 */
+	private void logTemplate(Level level, CharSequence format, BiConsumer<MessageTemplate, StringBuilder> append) {
+		StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+		try {
+			append.accept(templateOf(format), sb);
+			logInLevel(level, sb);
+		} finally {
+			SimpleLogFormatter.builderPool().release(sb);
+		}
+	}
+	
+	/**
+	 * @return the template of the format. A {@code String} format is usually a literal, so it's cached.
+	 * 			Other {@code CharSequence} may change after the call, so it's compiled every time.
+	 */
+	private static MessageTemplate templateOf(CharSequence format) {
+		return format instanceof String s ? MessageTemplate.of(s) : MessageTemplate.compile(format.toString());
+	}
+	
+	/**
+	 * Log a message followed by the stack trace of the {@code Throwable}, in a {@code StringBuilder} borrowed from
+	 * {@link SimpleLogFormatter#builderPool()}. The stack trace is rendered by {@link AbstractLogger#stackTraceRenderer}
+	 * directly into the builder. If the {@link AbstractLogger#exceptionDeduplicator} suppresses the {@code Throwable},
+	 * nothing is logged.
+	 * 
+	 * @param data the message. May be {@code null}
+	 */
+	private void logThrowable(Level level, CharSequence data, Throwable e) {
+		ExceptionDeduplicator dedup = exceptionDeduplicator;
+		if(dedup != null && !dedup.accept(e, this, level)) return;
+		StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+		try {
+			if(data != null) sb.append(data);
+			stackTraceRenderer.render(e, sb);
+			logInLevel(level, sb);
+		} finally {
+			SimpleLogFormatter.builderPool().release(sb);
+		}
+	}
+	
+	/**
+	 * Append a log message generated from a format and arguments to the {@code StringBuilder}.
+	 * <p>The message is generated by a {@link MessageTemplate}, which gives the same result as
+	 * {@code String.format(format.toString(), objs)} without parsing the format again.<br>
+	 * If {@code format} contains {@code {}} and does not contain {@code %}, each {@code {}} is replaced by
+	 * {@code String.valueOf} of the next argument. If an argument is left after every {@code {}} is replaced
+	 * and the last argument is a {@code Throwable}, its stack trace is appended.
+	 * 
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param format the format
+	 * @param objs arguments referenced by the format
+	 */
+	protected void formatMessage(StringBuilder sb, CharSequence format, Object... objs) {
+		MessageTemplate template = templateOf(format);
+		template.appendTo(sb, objs);
+		if(template.isPlaceholderStyle() && objs != null && objs.length > template.argumentCount()
+				&& objs[objs.length - 1] instanceof Throwable e) stackTraceRenderer.render(e, sb);
 	}
 	
 	@Override
@@ -327,6 +830,8 @@ public abstract class AbstractLogger implements Logger {
 	 * and delegate logging implementation to {@link AbstractLogger#consumeLogString(String)};
 	 * 
 	 * <p>Subclass can override this method to to additional stuff with log level.
+	 * {@code msg} may be a {@code StringBuilder} that is reused after this method returns,
+	 * so it should be copied if it's used later.
 	 * 
 	 * @see SysoutLogger
 	 * @param level the log level
@@ -348,7 +853,7 @@ public abstract class AbstractLogger implements Logger {
 	@Override
 	public Logger withMorePrefix(String morePrefix, boolean closeParentIfChildClosed) {
 		final AbstractLogger parent = this;
-		return new AbstractLogger() {
+		AbstractLogger ret = new AbstractLogger() {
 			@Override
 			public void close() throws IOException {
 				if(closeParentIfChildClosed) parent.close();
@@ -370,12 +875,15 @@ public abstract class AbstractLogger implements Logger {
 				parent.consumeLogString(str);
 			}
 		};
+		ret.setStackTraceRenderer(stackTraceRenderer);
+		ret.setExceptionDeduplicator(exceptionDeduplicator);
+		return ret;
 	}
 
 	@Override
 	public Logger getChildlogger(LogFormatter additionalFormatter, boolean closeParentIfChildClosed) {
 		final AbstractLogger parent = this;
-		Logger ret = new AbstractLogger() {
+		AbstractLogger ret = new AbstractLogger() {
 			@Override
 			public void close() throws IOException {
 				if(closeParentIfChildClosed) parent.close();
@@ -398,6 +906,8 @@ public abstract class AbstractLogger implements Logger {
 			}
 		};
 		ret.setLogFormatter(additionalFormatter);
+		ret.setStackTraceRenderer(stackTraceRenderer);
+		ret.setExceptionDeduplicator(exceptionDeduplicator);
 		return ret;
 	}
 
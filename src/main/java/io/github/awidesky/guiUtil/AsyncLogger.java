@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+
+import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.LinkedLogQueue;
+import io.github.awidesky.guiUtil.thread.LogQueue;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.ShutdownReport;
+
+/**
+ * A {@code Logger} that writes logs of another {@code AbstractLogger} in a background {@link LoggerThread},
+ * so that the caller is not blocked by I/O of the wrapped logger.
+ *
+ * <p>Messages are generated in the caller thread(with the log level, {@code StackTraceRenderer} and {@code ExceptionDeduplicator}
+ * of this logger, which are copied from the wrapped logger when created), and written by the wrapped logger in the
+ * background thread, in the order they were logged.
+ * Logs are formatted in the background thread with the {@code LogFormatter} and prefix of the wrapped logger, via
+ * {@link LogFormatter#format(StringBuilder, Level, String, CharSequence, Instant, String)} with the time and the thread
+ * name captured in the caller thread, so {@code %d} and {@code %t} of {@code SimpleLogFormatter} show when and where
+ * the log was generated, not when it was written.
+ * If the wrapped logger overrides {@code writeString}(e.g. {@link io.github.awidesky.guiUtil.simple.SysoutLogger}, which routes
+ * logs by level), its {@code writeString} is called in the background thread instead, so that it works as it does when used
+ * directly; then the logs are formatted by the wrapped logger itself, and show the time they are written and the name
+ * of the background thread.
+ * Since this is an {@code AbstractLogger}, {@code toPrintStream}, {@code withMorePrefix} and {@code getChildlogger}
+ * also write via the background thread.
+ *
+ * <p>The queue, {@code OverflowPolicy}, batching and shutdown behavior are those of the {@code LoggerThread},
+ * which can be configured via {@link AsyncLogger#getLoggerThread()}. After each batch, the wrapped logger is flushed
+ * if it's {@link Flushable}(e.g. {@code SimpleLogger} and {@code ConsoleLogger}).
+ * Reports of the {@code LoggerThread}(failed log tasks, dropped logs, etc.) are written to {@code System.err}.
+ * {@link AsyncLogger#close()} writes every queued log, then closes the wrapped logger.
+ * */
+public class AsyncLogger extends AbstractLogger {
+
+	private final AbstractLogger logger;
+	/** Whether the wrapped logger overrides {@code writeString}, so it must be called instead of formatting here. */
+	private final boolean customWriteString;
+	private final LoggerThread worker;
+	private boolean closed = false;
+
+	/**
+	 * Creates an asynchronous logger that writes logs of given logger via an unbounded queue.
+	 *
+	 * @param logger the logger to write logs
+	 */
+	public AsyncLogger(AbstractLogger logger) {
+		this(logger, new LinkedLogQueue());
+	}
+
+	/**
+	 * Creates an asynchronous logger that writes logs of given logger via given queue.
+	 * The background thread is started immediately.
+	 *
+	 * @param logger the logger to write logs
+	 * @param queue the queue between callers and the background thread
+	 */
+	public AsyncLogger(AbstractLogger logger, LogQueue queue) {
+		this.logger = logger;
+		this.level = logger.getLogLevel();
+		this.formatter = logger.getLogFormatter();
+		this.prefix = logger.getPrefix();
+		this.stackTraceRenderer = logger.getStackTraceRenderer();
+		this.exceptionDeduplicator = logger.getExceptionDeduplicator();
+		this.customWriteString = overridesWriteString(logger.getClass());
+		worker = new LoggerThread(queue);
+		worker.setName("AsyncLogger-" + logger.getClass().getSimpleName());
+		worker.setLogDestination(new ReportWriter(logger instanceof Flushable f ? f : null), true);
+		worker.start();
+	}
+
+	/**
+	 * @return the background {@code LoggerThread}, to configure its queue handling or read its metrics.
+	 */
+	public LoggerThread getLoggerThread() {
+		return worker;
+	}
+
+	/**
+	 * @return the wrapped logger.
+	 */
+	public AbstractLogger getLogger() {
+		return logger;
+	}
+
+	@Override
+	public void newLine() {
+		worker.queueLogTask(null, logTo -> logger.newLine());
+	}
+
+	@Override
+	protected void writeString(Level level, CharSequence msg) {
+		/* msg may be a reused StringBuilder, so copy it before leaving the caller thread */
+		String str = msg.toString();
+		if (customWriteString) {
+			worker.queueLogTask(level, logTo -> logger.writeString(level, str));
+			return;
+		}
+		Instant timestamp = Instant.now();
+		String threadName = Thread.currentThread().getName();
+		worker.queueLogTask(level, logTo -> {
+			StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+			try {
+				logger.getLogFormatter().format(sb, level, logger.getPrefix(), str, timestamp, threadName);
+				logger.consumeLogString(sb.toString());
+			} finally {
+				SimpleLogFormatter.builderPool().release(sb);
+			}
+		});
+	}
+
+	/**
+	 * @return {@code true} if {@code writeString} of the class is not the one of {@code AbstractLogger}.
+	 */
+	private static boolean overridesWriteString(Class<?> c) {
+		for (; c != AbstractLogger.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("writeString", Level.class, CharSequence.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				/* check the superclass */
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void consumeLogString(String str) {
+		worker.queueLogTask(null, logTo -> logger.consumeLogString(str));
+	}
+
+	/**
+	 * Write queued logs until the queue is empty or {@code timeOut} milliseconds has passed, then close the wrapped logger.
+	 * If this method is called more than once, later calls return the report of the first call.
+	 *
+	 * @param timeOut timeout in milliseconds. {@code 0} means to wait until every queued log is written.
+	 * @return numbers of written, dropped and pending logs
+	 * @throws UncheckedIOException if failed to close the wrapped logger
+	 * @see LoggerThread#shutdown(int)
+	 */
+	public synchronized ShutdownReport shutdown(int timeOut) throws UncheckedIOException {
+		ShutdownReport report = worker.shutdown(timeOut);
+		if (closed) return report;
+		closed = true;
+		try {
+			logger.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return report;
+	}
+
+	/**
+	 * Write every queued log, then close the wrapped logger.
+	 * If the logger is already closed then invoking this method has no effect.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			shutdown(0);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncLogger [" + logger + "]";
+	}
+
+	/**
+	 * The main destination of the background {@code LoggerThread}. Logs are written by the wrapped logger, so only reports
+	 * of the {@code LoggerThread} come here, and they are written to {@code System.err}. The first line is the start time
+	 * of the {@code LoggerThread}, which is not a report, so it's skipped.
+	 * Flushing this writer flushes the wrapped logger. Used only by the background thread.
+	 */
+	private static class ReportWriter extends Writer {
+
+		private final Flushable logger;
+		private final StringBuilder line = new StringBuilder();
+		private boolean started = false;
+
+		/**
+		 * @param logger the wrapped logger to flush, or {@code null} if it's not {@code Flushable}
+		 */
+		ReportWriter(Flushable logger) {
+			this.logger = logger;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			for (int i = off; i < off + len; i++) {
+				line.append(cbuf[i]);
+				if (cbuf[i] != '\n') continue;
+				if (started) System.err.print(line);
+				started = true;
+				line.setLength(0);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (logger != null) logger.flush();
+		}
+
+		@Override
+		public void close() {
+			if (started && !line.isEmpty()) System.err.println(line);
+			System.err.flush();
+		}
+	}
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.github.awidesky.guiUtil.level.Level;
+
+/**
+ * Suppresses stack traces of the same exception logged over and over, e.g. when a dependency is down.
+ *
+ * <p>A {@code Throwable} is identified by its fingerprint, which is made of its type and its top stack frames
+ * (its message is not included, since it usually contains variable values).
+ * For each fingerprint, only the first {@code maxFullTraces} occurrences in a time window are logged.
+ * Later occurrences in the window are counted but not logged, and when an occurrence of the fingerprint
+ * is logged after the window has passed, a summary line like below is logged before it.
+ * <pre>
+ * Suppressed 12,345 identical exceptions in 10,000ms (fingerprint 3fa2c1d0e1b2a3c4) : java.io.IOException: Connection refused
+ * </pre>
+ * If no occurrence comes after the window(e.g. the failing dependency is back), a shared daemon thread ends the window
+ * when it has passed. Loggers like {@code TaskBufferedLogger} should be used by only one thread at a time, so the
+ * daemon thread never writes to the logger of the last suppressed occurrence. Instead :
+ * <ul>
+ * <li>If a summary logger is given to the constructor, the summary is written to it. The summary logger must be
+ * thread-safe, e.g. a {@code TaskLogger} of a {@code LoggerThread}, or an {@link AsyncLogger}.</li>
+ * <li>Otherwise, the summary waits until a {@code Throwable} is logged to that logger next time, or until
+ * {@link ExceptionDeduplicator#flushSummaries(Logger)} writes every waiting summary at once. At most {@code capacity}
+ * summaries wait; when another one comes, the oldest one is discarded and counted by {@link #getLostSummaryCount()}.
+ * Since a logger is often used for only one task, giving a summary logger is recommended.</li>
+ * </ul>
+ *
+ * <p>At most {@code capacity} fingerprints are kept; the least recently seen one is evicted when a new fingerprint
+ * is found. Its summary is written to the logger of its last suppressed occurrence if that's the current logger,
+ * or else handled like a summary of an ended burst.
+ *
+ * @see AbstractLogger#setExceptionDeduplicator(ExceptionDeduplicator)
+ */
+public class ExceptionDeduplicator {
+
+	/** Default number of stack frames used for a fingerprint. */
+	public static final int DEFAULT_FINGERPRINT_FRAMES = 5;
+	/** Default maximum number of fingerprints kept. */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private final int maxFullTraces;
+	private final long windowNanos;
+	private final int fingerprintFrames;
+	private final int capacity;
+	/** Thread-safe logger that summaries of ended bursts are written to. May be {@code null}. */
+	private final Logger summaryLogger;
+
+	/** Fingerprints in access order, the least recently seen one first. Guarded by itself. */
+	private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long suppressedCount = 0L;
+	/** Whether a summary report is scheduled. Guarded by {@code entries}. */
+	private boolean reportScheduled = false;
+	/** Summaries waiting for their logger to log a {@code Throwable}, the oldest one first. Guarded by {@code entries}. */
+	private final ArrayDeque<Summary> pending = new ArrayDeque<>();
+	/** Number of summaries discarded from {@code pending}. Guarded by {@code entries}. */
+	private long lostSummaryCount = 0L;
+
+	/** A summary to be logged to the logger of the last suppressed occurrence. */
+	private record Summary(Logger logger, Level level, String text) {}
+
+	/** Daemon thread that writes summaries of bursts that have ended. Created when it's first needed. */
+	private static final class Reporter {
+		static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ExceptionDeduplicator-summary");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Occurrences of a fingerprint in current window.
+	 */
+	private final class Entry {
+		final long fingerprint;
+		final Class<?> type;
+		final StackTraceElement[] top;
+		long windowStart;
+		int logged = 0;
+		long suppressed = 0L;
+		/** Level of the last suppressed occurrence. */
+		Level level;
+		/** Logger of the last suppressed occurrence, which the summary is written to when the entry is evicted or its window ends. */
+		Logger logger;
+		/** {@code toString()} of the last logged occurrence. */
+		String description;
+
+		Entry(long fingerprint, Throwable t, StackTraceElement[] trace, long now) {
+			this.fingerprint = fingerprint;
+			this.type = t.getClass();
+			this.top = new StackTraceElement[Math.min(fingerprintFrames, trace.length)];
+			System.arraycopy(trace, 0, top, 0, top.length);
+			this.windowStart = now;
+		}
+
+		boolean matches(Throwable t, StackTraceElement[] trace) {
+			if(type != t.getClass() || top.length != Math.min(fingerprintFrames, trace.length)) return false;
+			for(int i = 0; i < top.length; i++) {
+				if(!top[i].equals(trace[i])) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * @return the summary of suppressed occurrences, or {@code null} if there's none. The count is reset.
+		 */
+		String takeSummary(long now) {
+			if(suppressed == 0L) return null;
+			String ret = String.format("Suppressed %,d identical exceptions in %,dms (fingerprint %016x) : %s",
+					suppressed, TimeUnit.NANOSECONDS.toMillis(now - windowStart), fingerprint, description);
+			suppressed = 0L;
+			return ret;
+		}
+	}
+
+	/**
+	 * Creates a deduplicator with {@link #DEFAULT_FINGERPRINT_FRAMES} and {@link #DEFAULT_CAPACITY}.
+	 *
+	 * @param maxFullTraces number of occurrences logged in each time window, for each fingerprint
+	 * @param windowMillis length of the time window in milliseconds
+	 * @throws IllegalArgumentException if {@code maxFullTraces} is negative, or {@code windowMillis} is not positive
+	 */
+	public ExceptionDeduplicator(int maxFullTraces, long windowMillis) throws IllegalArgumentException {
+		this(maxFullTraces, windowMillis, DEFAULT_FINGERPRINT_FRAMES, DEFAULT_CAPACITY, null);
+	}
+
+	/**
+	 * Creates a deduplicator with {@link #DEFAULT_FINGERPRINT_FRAMES} and {@link #DEFAULT_CAPACITY}, that writes
+	 * summaries of ended bursts to given logger.
+	 *
+	 * @param maxFullTraces number of occurrences logged in each time window, for each fingerprint
+	 * @param windowMillis length of the time window in milliseconds
+	 * @param summaryLogger thread-safe logger to write summaries of ended bursts, or {@code null}
+	 * @throws IllegalArgumentException if {@code maxFullTraces} is negative, or {@code windowMillis} is not positive
+	 */
+	public ExceptionDeduplicator(int maxFullTraces, long windowMillis, Logger summaryLogger) throws IllegalArgumentException {
+		this(maxFullTraces, windowMillis, DEFAULT_FINGERPRINT_FRAMES, DEFAULT_CAPACITY, summaryLogger);
+	}
+
+	/**
+	 * Creates a deduplicator.
+	 *
+	 * @param maxFullTraces number of occurrences logged in each time window, for each fingerprint
+	 * @param windowMillis length of the time window in milliseconds
+	 * @param fingerprintFrames number of top stack frames used for a fingerprint
+	 * @param capacity maximum number of fingerprints kept
+	 * @throws IllegalArgumentException if {@code maxFullTraces} or {@code fingerprintFrames} is negative,
+	 * 			or {@code windowMillis} or {@code capacity} is not positive
+	 */
+	public ExceptionDeduplicator(int maxFullTraces, long windowMillis, int fingerprintFrames, int capacity) throws IllegalArgumentException {
+		this(maxFullTraces, windowMillis, fingerprintFrames, capacity, null);
+	}
+
+	/**
+	 * Creates a deduplicator that writes summaries of ended bursts to given logger.
+	 *
+	 * @param maxFullTraces number of occurrences logged in each time window, for each fingerprint
+	 * @param windowMillis length of the time window in milliseconds
+	 * @param fingerprintFrames number of top stack frames used for a fingerprint
+	 * @param capacity maximum number of fingerprints kept, and of summaries waiting for their logger
+	 * @param summaryLogger thread-safe logger to write summaries of ended bursts, or {@code null}
+	 * @throws IllegalArgumentException if {@code maxFullTraces} or {@code fingerprintFrames} is negative,
+	 * 			or {@code windowMillis} or {@code capacity} is not positive
+	 */
+	public ExceptionDeduplicator(int maxFullTraces, long windowMillis, int fingerprintFrames, int capacity, Logger summaryLogger) throws IllegalArgumentException {
+		if(maxFullTraces < 0) throw new IllegalArgumentException("Invalid max full traces : " + maxFullTraces);
+		if(windowMillis <= 0) throw new IllegalArgumentException("Invalid window : " + windowMillis);
+		if(fingerprintFrames < 0) throw new IllegalArgumentException("Invalid fingerprint frames : " + fingerprintFrames);
+		if(capacity <= 0) throw new IllegalArgumentException("Invalid capacity : " + capacity);
+		this.maxFullTraces = maxFullTraces;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+		this.fingerprintFrames = fingerprintFrames;
+		this.capacity = capacity;
+		this.summaryLogger = summaryLogger;
+	}
+
+	/**
+	 * Record an occurrence of the {@code Throwable}, and decide whether it should be logged.
+	 * If the time window of its fingerprint has passed, summary of suppressed occurrences is logged to the {@code logger}.
+	 * Summaries of an evicted fingerprint, and of windows ended by the daemon thread, are logged to the logger of their
+	 * last suppressed occurrence if it's the {@code logger}. Otherwise, they are logged to the summary logger, or wait
+	 * until a {@code Throwable} is logged to their logger next time.
+	 *
+	 * @param t the {@code Throwable} to be logged
+	 * @param logger the logger the {@code Throwable} is logged to, which this method may write summaries to
+	 * @param level the level the {@code Throwable} is logged at
+	 * @return {@code true} if the {@code Throwable} should be logged
+	 */
+	public boolean accept(Throwable t, Logger logger, Level level) {
+		boolean log = accept(t, logger, level, System.nanoTime());
+		if(!log) scheduleReport(windowNanos);
+		return log;
+	}
+
+	/**
+	 * @see ExceptionDeduplicator#accept(Throwable, Logger, Level)
+	 * @param now current time in {@code System.nanoTime()}
+	 */
+	boolean accept(Throwable t, Logger logger, Level level, long now) {
+		StackTraceElement[] trace = t.getStackTrace();
+		long fingerprint = fingerprint(t, trace);
+		List<Summary> write = null;
+		String summary = null;
+		boolean log;
+		synchronized (entries) {
+			if(!pending.isEmpty()) write = takePending(logger);
+			Entry e = entries.get(fingerprint);
+			if(e != null && !e.matches(t, trace)) { // hash collision
+				entries.remove(fingerprint);
+				write = evict(e, logger, now, write);
+				e = null;
+			}
+			if(e == null) {
+				e = new Entry(fingerprint, t, trace, now);
+				entries.put(fingerprint, e);
+				if(entries.size() > capacity) {
+					Iterator<Entry> it = entries.values().iterator();
+					Entry eldest = it.next();
+					it.remove();
+					write = evict(eldest, logger, now, write);
+				}
+			} else if(now - e.windowStart >= windowNanos) {
+				summary = e.takeSummary(now);
+				e.windowStart = now;
+				e.logged = 0;
+			}
+
+			if(e.logged < maxFullTraces) {
+				e.logged++;
+				e.description = t.toString();
+				log = true;
+			} else {
+				if(e.description == null) e.description = t.toString();
+				e.suppressed++;
+				e.level = level;
+				e.logger = logger;
+				suppressedCount++;
+				log = false;
+			}
+		}
+		if(write != null) for(Summary s : write) s.logger.logInLevel(s.level, s.text);
+		if(summary != null) logger.logInLevel(level, summary);
+		return log;
+	}
+
+	/**
+	 * Remove pending summaries of the {@code logger}. Must be called with the lock of {@code entries}.
+	 *
+	 * @return the summaries, or {@code null} if there's none
+	 */
+	private List<Summary> takePending(Logger logger) {
+		List<Summary> ret = null;
+		Iterator<Summary> it = pending.iterator();
+		while(it.hasNext()) {
+			Summary s = it.next();
+			if(s.logger != logger) continue;
+			it.remove();
+			if(ret == null) ret = new ArrayList<>();
+			ret.add(s);
+		}
+		return ret;
+	}
+
+	/**
+	 * Take the summary of an evicted entry. If it belongs to the {@code logger}(or to no logger), it's added to
+	 * {@code write}. Otherwise, it's handled by {@link #defer(Summary, List)}. Must be called with the lock of {@code entries}.
+	 *
+	 * @param write summaries to be written in the current thread, may be {@code null}
+	 * @return {@code write}, or a new list if {@code write} was {@code null} and the summary is added
+	 */
+	private List<Summary> evict(Entry e, Logger logger, long now, List<Summary> write) {
+		String text = e.takeSummary(now);
+		if(text == null) return write;
+		if(e.logger != null && e.logger != logger) return defer(new Summary(e.logger, e.level, text), write);
+		if(write == null) write = new ArrayList<>();
+		write.add(new Summary(logger, e.level, text));
+		return write;
+	}
+
+	/**
+	 * Handle a summary that cannot be written to its logger in the current thread. If there's a summary logger,
+	 * the summary is added to {@code write} to be written to the summary logger. Otherwise, it's left pending for
+	 * its own logger, discarding the oldest pending summary if there are {@code capacity} of them already.
+	 * Must be called with the lock of {@code entries}.
+	 *
+	 * @param write summaries to be written in the current thread, may be {@code null}
+	 * @return {@code write}, or a new list if {@code write} was {@code null} and the summary is added
+	 */
+	private List<Summary> defer(Summary s, List<Summary> write) {
+		if(summaryLogger != null) {
+			if(write == null) write = new ArrayList<>();
+			write.add(new Summary(summaryLogger, s.level, s.text));
+			return write;
+		}
+		if(pending.size() >= capacity) {
+			pending.pollFirst();
+			lostSummaryCount++;
+		}
+		pending.addLast(s);
+		return write;
+	}
+
+	/**
+	 * Log pending summaries, and summaries of every fingerprint that has suppressed occurrences since its last summary.
+	 * Each summary is logged at the level of the last suppressed occurrence.
+	 *
+	 * @param logger the logger to write summaries
+	 */
+	public void flushSummaries(Logger logger) {
+		List<Level> levels = new ArrayList<>();
+		List<String> summaries = new ArrayList<>();
+		long now = System.nanoTime();
+		synchronized (entries) {
+			for(Summary s : pending) {
+				levels.add(s.level);
+				summaries.add(s.text);
+			}
+			pending.clear();
+			for(Entry e : entries.values()) {
+				Level level = e.level;
+				String summary = e.takeSummary(now);
+				if(summary == null) continue;
+				levels.add(level);
+				summaries.add(summary);
+			}
+		}
+		for(int i = 0; i < summaries.size(); i++) logger.logInLevel(levels.get(i), summaries.get(i));
+	}
+
+	/**
+	 * Schedule {@link #reportEnded()} after given delay, unless it's already scheduled.
+	 */
+	private void scheduleReport(long delayNanos) {
+		synchronized (entries) {
+			if(reportScheduled) return;
+			reportScheduled = true;
+		}
+		Reporter.INSTANCE.schedule(this::reportEnded, delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Take summaries of fingerprints whose window has passed with suppressed occurrences, and start their next window.
+	 * The summaries are written to the summary logger, or left pending for the logger of their last suppressed occurrence,
+	 * since that logger may not be used by the {@link Reporter} thread.
+	 * If other fingerprints have suppressed occurrences, run again when the earliest of their windows ends.
+	 * Runs on the {@link Reporter} thread.
+	 */
+	private void reportEnded() {
+		List<Summary> write = null;
+		long now = System.nanoTime();
+		long next = Long.MAX_VALUE;
+		synchronized (entries) {
+			for(Entry e : entries.values()) {
+				if(e.suppressed == 0L) continue;
+				long remaining = e.windowStart + windowNanos - now;
+				if(remaining > 0) {
+					next = Math.min(next, remaining);
+					continue;
+				}
+				write = defer(new Summary(e.logger, e.level, e.takeSummary(now)), write);
+				e.windowStart = now;
+				e.logged = 0;
+			}
+			reportScheduled = false;
+		}
+		if(write != null) for(Summary s : write) s.logger.logInLevel(s.level, s.text);
+		if(next != Long.MAX_VALUE) scheduleReport(next);
+	}
+
+	/**
+	 * Calculate the fingerprint of the {@code Throwable}, from its type and top stack frames.
+	 *
+	 * @param t the {@code Throwable}
+	 * @return the fingerprint
+	 */
+	public long fingerprint(Throwable t) {
+		return fingerprint(t, t.getStackTrace());
+	}
+
+	private long fingerprint(Throwable t, StackTraceElement[] trace) {
+		long h = t.getClass().getName().hashCode();
+		int frames = Math.min(fingerprintFrames, trace.length);
+		for(int i = 0; i < frames; i++) h = h * 0x9E3779B97F4A7C15L + trace[i].hashCode();
+		/* final mix of splitmix64, so that similar traces have distant fingerprints */
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+
+	/**
+	 * @return total number of suppressed occurrences.
+	 */
+	public long getSuppressedCount() {
+		synchronized (entries) {
+			return suppressedCount;
+		}
+	}
+
+	/**
+	 * @return number of summaries discarded because {@code capacity} summaries were already waiting for their logger.
+	 */
+	public long getLostSummaryCount() {
+		synchronized (entries) {
+			return lostSummaryCount;
+		}
+	}
+
+	/**
+	 * @return number of summaries waiting for their logger.
+	 */
+	int pendingSize() {
+		synchronized (entries) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * @return number of fingerprints currently kept.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return number of occurrences logged in each time window, for each fingerprint.
+	 */
+	public int getMaxFullTraces() {
+		return maxFullTraces;
+	}
+
+	/**
+	 * @return length of the time window in milliseconds.
+	 */
+	public long getWindowMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+	}
+
+	@Override
+	public String toString() {
+		return "ExceptionDeduplicator [maxFullTraces=" + maxFullTraces + ", window=" + getWindowMillis() + "ms, fingerprintFrames="
+				+ fingerprintFrames + ", capacity=" + capacity + "]";
+	}
+}
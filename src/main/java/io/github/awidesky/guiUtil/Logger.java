@@ -12,6 +12,7 @@ package io.github.awidesky.guiUtil;
 import java.io.Closeable;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.function.Supplier;
 
 import io.github.awidesky.guiUtil.formatter.LogFormatter;
 import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
@@ -23,6 +24,16 @@ import io.github.awidesky.guiUtil.level.Leveled;
 /**
  * The interface for a Logger object.
  * 
+ * <p>Formatted log methods have overloads that take up to four arguments without varargs, and a single
+ * {@code int}, {@code long}, {@code double}, {@code boolean} or {@code char} without boxing.
+ * Since the level is checked before anything else, a call at a disabled level allocates nothing.
+ * There are also single {@code byte}, {@code short} and {@code float} overloads, so that those are formatted
+ * as their own types(e.g. {@code %x} of a {@code byte}) like {@code String.format}, not widened.
+ * Two or more primitive arguments are boxed and passed to the {@code Object} overloads, since primitive overloads of them
+ * would widen mixed arguments to a common type(e.g. {@code 'a'} to {@code 97}).
+ * Default implementations of these overloads pass the arguments to the varargs method(e.g.
+ * {@link Logger#info(CharSequence, Object...)}); {@link AbstractLogger} implements them without the array or boxing.
+ * 
  * @author Eugene Hong
  * */
 public interface Logger extends Leveled, Closeable {
@@ -108,10 +119,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at INFO level.
 	 * */
 	public void info(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at INFO level.
+	 * The {@code Supplier} is called only if INFO level is enabled.
+	 * */
+	public default void info(Supplier<? extends CharSequence> data) {
+		if(isInfoEnabled()) info(data.get());
+	}
 	/**
 	 * Log a formatted String at INFO level.
+	 * The String is formatted only if INFO level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void info(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at INFO level.
+	 * */
+	public default void info(CharSequence format, Object arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at INFO level.
+	 * */
+	public default void info(CharSequence format, Object arg1, Object arg2) {
+		info(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at INFO level.
+	 * */
+	public default void info(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		info(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at INFO level.
+	 * */
+	public default void info(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		info(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, int arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, long arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, double arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, boolean arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, char arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, byte arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, short arg) {
+		info(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at INFO level.
+	 * */
+	public default void info(CharSequence format, float arg) {
+		info(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at INFO level.
 	 * */
@@ -129,10 +221,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at DEBUG level.
 	 * */
 	public void debug(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at DEBUG level.
+	 * The {@code Supplier} is called only if DEBUG level is enabled.
+	 * */
+	public default void debug(Supplier<? extends CharSequence> data) {
+		if(isDebugEnabled()) debug(data.get());
+	}
 	/**
 	 * Log a formatted String at DEBUG level.
+	 * The String is formatted only if DEBUG level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void debug(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, Object arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, Object arg1, Object arg2) {
+		debug(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		debug(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		debug(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, int arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, long arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, double arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, boolean arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, char arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, byte arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, short arg) {
+		debug(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at DEBUG level.
+	 * */
+	public default void debug(CharSequence format, float arg) {
+		debug(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at DEBUG level.
 	 * */
@@ -150,10 +323,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at TRACE level.
 	 * */
 	public void trace(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at TRACE level.
+	 * The {@code Supplier} is called only if TRACE level is enabled.
+	 * */
+	public default void trace(Supplier<? extends CharSequence> data) {
+		if(isTraceEnabled()) trace(data.get());
+	}
 	/**
 	 * Log a formatted String at TRACE level.
+	 * The String is formatted only if TRACE level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void trace(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, Object arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at TRACE level.
+	 * */
+	public default void trace(CharSequence format, Object arg1, Object arg2) {
+		trace(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at TRACE level.
+	 * */
+	public default void trace(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		trace(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at TRACE level.
+	 * */
+	public default void trace(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		trace(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, int arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, long arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, double arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, boolean arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, char arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, byte arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, short arg) {
+		trace(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at TRACE level.
+	 * */
+	public default void trace(CharSequence format, float arg) {
+		trace(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at TRACE level.
 	 * */
@@ -171,10 +425,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at WARNING level.
 	 * */
 	public void warning(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at WARNING level.
+	 * The {@code Supplier} is called only if WARNING level is enabled.
+	 * */
+	public default void warning(Supplier<? extends CharSequence> data) {
+		if(isWarningEnabled()) warning(data.get());
+	}
 	/**
 	 * Log a formatted String at WARNING level.
+	 * The String is formatted only if WARNING level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void warning(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, Object arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at WARNING level.
+	 * */
+	public default void warning(CharSequence format, Object arg1, Object arg2) {
+		warning(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at WARNING level.
+	 * */
+	public default void warning(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		warning(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at WARNING level.
+	 * */
+	public default void warning(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		warning(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, int arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, long arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, double arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, boolean arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, char arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, byte arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, short arg) {
+		warning(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at WARNING level.
+	 * */
+	public default void warning(CharSequence format, float arg) {
+		warning(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at WARNING level.
 	 * */
@@ -192,10 +527,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at ERROR level.
 	 * */
 	public void error(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at ERROR level.
+	 * The {@code Supplier} is called only if ERROR level is enabled.
+	 * */
+	public default void error(Supplier<? extends CharSequence> data) {
+		if(isErrorEnabled()) error(data.get());
+	}
 	/**
 	 * Log a formatted String at ERROR level.
+	 * The String is formatted only if ERROR level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void error(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, Object arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at ERROR level.
+	 * */
+	public default void error(CharSequence format, Object arg1, Object arg2) {
+		error(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at ERROR level.
+	 * */
+	public default void error(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		error(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at ERROR level.
+	 * */
+	public default void error(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		error(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, int arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, long arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, double arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, boolean arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, char arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, byte arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, short arg) {
+		error(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at ERROR level.
+	 * */
+	public default void error(CharSequence format, float arg) {
+		error(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at ERROR level.
 	 * */
@@ -213,10 +629,91 @@ public interface Logger extends Leveled, Closeable {
 	 * Log a String at FATAL level.
 	 * */
 	public void fatal(CharSequence data);
+	/**
+	 * Log a String generated by given {@code Supplier} at FATAL level.
+	 * The {@code Supplier} is called only if FATAL level is enabled.
+	 * */
+	public default void fatal(Supplier<? extends CharSequence> data) {
+		if(isFatalEnabled()) fatal(data.get());
+	}
 	/**
 	 * Log a formatted String at FATAL level.
+	 * The String is formatted only if FATAL level is enabled.
+	 * {@code String#format} style({@code %s}) and {@code {}} style placeholders are supported.
 	 * */
 	public void fatal(CharSequence format, Object...objs);
+	/**
+	 * Log a String formatted with an argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, Object arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with two arguments at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, Object arg1, Object arg2) {
+		fatal(format, new Object[] { arg1, arg2 });
+	}
+	/**
+	 * Log a String formatted with three arguments at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, Object arg1, Object arg2, Object arg3) {
+		fatal(format, new Object[] { arg1, arg2, arg3 });
+	}
+	/**
+	 * Log a String formatted with four arguments at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, Object arg1, Object arg2, Object arg3, Object arg4) {
+		fatal(format, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+	/**
+	 * Log a String formatted with an {@code int} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, int arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code long} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, long arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code double} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, double arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code boolean} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, boolean arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code char} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, char arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code byte} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, byte arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code short} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, short arg) {
+		fatal(format, new Object[] { arg });
+	}
+	/**
+	 * Log a String formatted with a {@code float} argument at FATAL level.
+	 * */
+	public default void fatal(CharSequence format, float arg) {
+		fatal(format, new Object[] { arg });
+	}
 	/**
 	 * Log a {@code Throwable} at FATAL level.
 	 * */
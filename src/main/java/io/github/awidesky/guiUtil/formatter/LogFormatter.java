@@ -1,5 +1,7 @@
 package io.github.awidesky.guiUtil.formatter;
 
+import java.time.Instant;
+
 import io.github.awidesky.guiUtil.level.Level;
 
 /**
@@ -17,6 +19,39 @@ public abstract class LogFormatter implements Cloneable {
 	 */
 	public abstract String format(Level level, String prefix, CharSequence msg);
 	
+	/**
+	 * Append a log string with given level, prefix, and message to the {@code StringBuilder}.
+	 * Default implementation appends the result of {@link LogFormatter#format(Level, String, CharSequence)}.
+	 * Implementations can override this to avoid generating an intermediate {@code String}.
+	 * 
+	 * @param sb the target {@code StringBuilder} receiving the formatted output
+	 * @param level
+	 * @param prefix
+	 * @param msg
+	 */
+	public void format(StringBuilder sb, Level level, String prefix, CharSequence msg) {
+		sb.append(format(level, prefix, msg));
+	}
+	
+	/**
+	 * Append a log string of a log that was generated at given time, by given thread.
+	 * This is used when the formatting is deferred to the {@code LoggerThread}, so that the output is the same
+	 * as if the log was formatted when it was generated.<br>
+	 * Default implementation ignores {@code timestamp} and {@code threadName}, and calls
+	 * {@link LogFormatter#format(StringBuilder, Level, String, CharSequence)}; so a formatter that writes the time
+	 * or the thread must override this, or deferred logs show the time and the name of the {@code LoggerThread}.
+	 * 
+	 * @param sb the target {@code StringBuilder} receiving the formatted output
+	 * @param level
+	 * @param prefix
+	 * @param msg
+	 * @param timestamp the time when the log was generated
+	 * @param threadName name of the thread that generated the log
+	 */
+	public void format(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+		format(sb, level, prefix, msg);
+	}
+	
 	/**
 	 * Clone the {@code LogFormatter} instance.<br>
 	 * Implementations can just return a new instance
@@ -0,0 +1,670 @@
+package io.github.awidesky.guiUtil.formatter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link String#format(String, Object...)} style message format, parsed once and reused.
+ *
+ * <p>{@code String.format} parses the format and creates a {@link java.util.Formatter} on every call.
+ * A {@code MessageTemplate} parses the format when it's compiled, and appends the message directly to
+ * a {@code StringBuilder} without creating a {@code Formatter} or any intermediate {@code String} for literals.
+ * Templates are immutable and thread-safe, and {@link #of(String)} caches them,
+ * so that a format used repeatedly(usually a string literal) is parsed only once.
+ * A cache hit is a plain lookup that takes no lock, and marks the template as referenced only if it's not marked yet.
+ * When a new format makes the cache larger than its size, a quarter of the cached templates is evicted at once
+ * with second-chance(CLOCK) policy; a referenced template is unmarked and kept, and only the ones that are not used
+ * since the last eviction are removed. So the cost of eviction is constant per cache miss on average,
+ * and a format that is used repeatedly stays cached under a flood of formats that are used once.
+ *
+ * <p>Supported conversions are:
+ * <pre>
+ * %s  - {@code String.valueOf} of the argument. precision truncates the result.
+ * %d  - {@code Integer}, {@code Long}, {@code Short} or {@code Byte} in decimal
+ * %x  - {@code Integer}, {@code Long}, {@code Short} or {@code Byte} in hexadecimal. %X for uppercase.
+ * %f  - {@code Double} or {@code Float} in decimal, with 6 fraction digits unless precision is given
+ * %n  - line separator
+ * %%  - literal '%' character
+ * </pre>
+ * with optional width, and {@code '-'}(left-justify) or {@code '0'}(zero padding) flag.
+ * The result is the same as {@code String.format}.
+ *
+ * <p>A format that contains {@code {}} and does not contain {@code %} is a placeholder style format;
+ * each {@code {}} is replaced by {@code String.valueOf} of the next argument, and {@code {}}s left after every
+ * argument is used are written as is.
+ *
+ * <p>Primitive arguments can be passed via {@code appendTo} overloads that take {@code int}, {@code long},
+ * {@code double}, {@code boolean} or {@code char}, which convert the value without boxing it.
+ *
+ * <p>If the format has anything else(other conversions or flags, explicit argument index, etc.), or an argument
+ * does not fit the conversion(e.g. {@code null} or {@code NaN} for {@code %f}, a {@link Formattable} for {@code %s}),
+ * or the default locale does not use ASCII digits and {@code '.'} as decimal separator,
+ * the message is generated by {@code String.format} instead, including any exception it throws.
+ */
+public final class MessageTemplate {
+
+	/** Default maximum number of cached templates. */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private static volatile int cacheSize = DEFAULT_CACHE_SIZE;
+	private static final ConcurrentHashMap<String, MessageTemplate> cache = new ConcurrentHashMap<>();
+
+	/** Whether the last seen default locale formats numbers the same as {@code Locale.ROOT}. */
+	private record LocaleCheck(Locale locale, boolean plain) {}
+	private static volatile LocaleCheck lastLocale = new LocaleCheck(null, false);
+
+	private final String format;
+	/** Parsed segments, or {@code null} if this template always falls back to {@code String.format}. */
+	private final Segment[] segments;
+	/** Number of arguments referenced by the segments. */
+	private final int argCount;
+	/** {@code true} if the result depends on the default locale. */
+	private final boolean numeric;
+	/** {@code true} if this is a {@code {}} style format. */
+	private final boolean placeholder;
+	/** Whether this template is used since the last eviction sweep of the cache. */
+	private volatile boolean referenced = false;
+
+	/**
+	 * A literal, or a conversion of the next argument.
+	 */
+	private static final class Segment {
+		/** The literal, or {@code null} if this segment is a conversion. */
+		final String literal;
+		final char conversion;
+		final boolean leftJustify;
+		final boolean zeroPad;
+		final int width;
+		final int precision;
+
+		Segment(String literal) {
+			this(literal, '\0', false, false, -1, -1);
+		}
+
+		Segment(String literal, char conversion, boolean leftJustify, boolean zeroPad, int width, int precision) {
+			this.literal = literal;
+			this.conversion = conversion;
+			this.leftJustify = leftJustify;
+			this.zeroPad = zeroPad;
+			this.width = width;
+			this.precision = precision;
+		}
+	}
+
+	private MessageTemplate(String format) {
+		this.format = format;
+		placeholder = format.indexOf('%') < 0 && format.contains("{}");
+		List<Segment> list = placeholder ? parsePlaceholders(format) : parse(format);
+		if(list == null) {
+			segments = null;
+			argCount = 0;
+			numeric = false;
+		} else {
+			segments = list.toArray(new Segment[list.size()]);
+			int args = 0;
+			boolean num = false;
+			for(Segment s : segments) {
+				if(s.literal != null) continue;
+				args++;
+				if(s.conversion != 's' && s.conversion != '{') num = true;
+			}
+			argCount = args;
+			numeric = num;
+		}
+	}
+
+	/**
+	 * Returns a compiled template of given format. If the format was compiled recently,
+	 * the cached template is returned.
+	 *
+	 * @param format the format
+	 * @return a template of the format
+	 */
+	public static MessageTemplate of(String format) {
+		MessageTemplate template = cache.get(format);
+		if(template != null) {
+			if(!template.referenced) template.referenced = true;
+			return template;
+		}
+		template = new MessageTemplate(format);
+		int size = cacheSize;
+		if(size == 0) return template;
+		MessageTemplate prev = cache.putIfAbsent(format, template);
+		if(prev != null) return prev;
+		if(cache.size() > size) trimCache(size - size / 4);
+		return template;
+	}
+
+	/**
+	 * Evict templates until the cache has at most {@code target} templates.
+	 * Sweep the cache, unmarking referenced templates and evicting the ones that are not referenced.
+	 * Since the first sweep unmarks every template, the second one evicts enough of them unless they are used
+	 * concurrently, in which case arbitrary templates are evicted.
+	 */
+	private static void trimCache(int target) {
+		synchronized (cache) {
+			for(int sweep = 0; sweep < 2 && cache.size() > target; sweep++) {
+				Iterator<MessageTemplate> it = cache.values().iterator();
+				while(cache.size() > target && it.hasNext()) {
+					MessageTemplate t = it.next();
+					if(t.referenced) t.referenced = false;
+					else it.remove();
+				}
+			}
+			Iterator<MessageTemplate> it = cache.values().iterator();
+			while(cache.size() > target && it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Compile given format without caching it.
+	 *
+	 * @param format the format
+	 * @return a template of the format
+	 */
+	public static MessageTemplate compile(String format) {
+		return new MessageTemplate(format);
+	}
+
+	/**
+	 * Set maximum number of templates cached by {@link #of(String)}.
+	 * If there are more cached templates, the ones that are not used recently are evicted.
+	 *
+	 * @param size maximum number of cached templates. {@code 0} disables the cache.
+	 * @throws IllegalArgumentException if {@code size} is negative
+	 */
+	public static void setCacheSize(int size) throws IllegalArgumentException {
+		if(size < 0) throw new IllegalArgumentException("Invalid cache size : " + size);
+		cacheSize = size;
+		trimCache(size);
+	}
+
+	/**
+	 * @return maximum number of cached templates.
+	 */
+	public static int getCacheSize() {
+		return cacheSize;
+	}
+
+	/**
+	 * @return number of templates currently cached.
+	 */
+	public static int cachedCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Parse a {@code {}} style format into segments.
+	 */
+	private static List<Segment> parsePlaceholders(String format) {
+		List<Segment> list = new ArrayList<>();
+		int from = 0, idx;
+		while((idx = format.indexOf("{}", from)) >= 0) {
+			if(idx > from) list.add(new Segment(format.substring(from, idx)));
+			list.add(new Segment(null, '{', false, false, -1, -1));
+			from = idx + 2;
+		}
+		if(from < format.length()) list.add(new Segment(format.substring(from)));
+		return list;
+	}
+
+	/**
+	 * Parse the format into segments.
+	 *
+	 * @return list of segments, or {@code null} if the format has anything not supported
+	 */
+	private static List<Segment> parse(String format) {
+		List<Segment> list = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int len = format.length();
+		int i = 0;
+		while(i < len) {
+			char c = format.charAt(i++);
+			if(c != '%') {
+				literal.append(c);
+				continue;
+			}
+
+			boolean leftJustify = false, zeroPad = false;
+			int width = -1, precision = -1;
+			for(; i < len; i++) {
+				char f = format.charAt(i);
+				if(f == '-' && !leftJustify) leftJustify = true;
+				else if(f == '0' && !zeroPad) zeroPad = true;
+				else break;
+			}
+			int from = i;
+			while(i < len && isDigit(format.charAt(i))) i++;
+			if(i > from) {
+				if(i - from > 9) return null;
+				width = Integer.parseInt(format, from, i, 10);
+			}
+			if(i < len && format.charAt(i) == '.') {
+				from = ++i;
+				while(i < len && isDigit(format.charAt(i))) i++;
+				if(i == from || i - from > 9) return null;
+				precision = Integer.parseInt(format, from, i, 10);
+			}
+			if(i >= len) return null;
+			char conversion = format.charAt(i++);
+
+			boolean hasFlag = leftJustify || zeroPad || width != -1 || precision != -1;
+			if((leftJustify || zeroPad) && width == -1) return null;
+			if(leftJustify && zeroPad) return null;
+			switch (conversion) {
+			case '%':
+			case 'n':
+				if(hasFlag) return null;
+				literal.append(conversion == '%' ? "%" : System.lineSeparator());
+				continue;
+			case 's':
+				if(zeroPad) return null;
+				break;
+			case 'd':
+			case 'x':
+			case 'X':
+				if(precision != -1) return null;
+				break;
+			case 'f':
+				if(precision == -1) precision = 6;
+				break;
+			default:
+				return null;
+			}
+
+			if(literal.length() > 0) {
+				list.add(new Segment(literal.toString()));
+				literal.setLength(0);
+			}
+			list.add(new Segment(null, conversion, leftJustify, zeroPad, width, precision));
+		}
+		if(literal.length() > 0) list.add(new Segment(literal.toString()));
+		return list;
+	}
+
+	/**
+	 * Append the message generated with given arguments to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param args arguments referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the arguments does not match the format
+	 */
+	public void appendTo(StringBuilder sb, Object... args) {
+		int start = sb.length();
+		Object[] arr = args == null ? NO_ARGS : args;
+		if(!canAppend(arr.length) || !appendSegments(sb, arr)) fallback(sb, start, args);
+	}
+
+	/**
+	 * Append the message generated with an {@code int} argument to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param arg argument referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the argument does not match the format
+	 */
+	public void appendTo(StringBuilder sb, int arg) {
+		int start = sb.length();
+		int i = canAppend(1) ? nextArgument(sb, 0) : -1;
+		if(i >= 0 && (i >= segments.length || appendArg(sb, segments[i], arg, true))) appendRemaining(sb, i + 1);
+		else fallback(sb, start, arg);
+	}
+
+	/**
+	 * Append the message generated with a {@code long} argument to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param arg argument referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the argument does not match the format
+	 */
+	public void appendTo(StringBuilder sb, long arg) {
+		int start = sb.length();
+		int i = canAppend(1) ? nextArgument(sb, 0) : -1;
+		if(i >= 0 && (i >= segments.length || appendArg(sb, segments[i], arg, false))) appendRemaining(sb, i + 1);
+		else fallback(sb, start, arg);
+	}
+
+	/**
+	 * Append the message generated with a {@code double} argument to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param arg argument referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the argument does not match the format
+	 */
+	public void appendTo(StringBuilder sb, double arg) {
+		int start = sb.length();
+		int i = canAppend(1) ? nextArgument(sb, 0) : -1;
+		if(i >= 0 && (i >= segments.length || appendArg(sb, segments[i], arg))) appendRemaining(sb, i + 1);
+		else fallback(sb, start, arg);
+	}
+
+	/**
+	 * Append the message generated with a {@code boolean} argument to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param arg argument referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the argument does not match the format
+	 */
+	public void appendTo(StringBuilder sb, boolean arg) {
+		int start = sb.length();
+		int i = canAppend(1) ? nextArgument(sb, 0) : -1;
+		if(i >= 0 && (i >= segments.length || appendArg(sb, segments[i], arg))) appendRemaining(sb, i + 1);
+		else fallback(sb, start, arg);
+	}
+
+	/**
+	 * Append the message generated with a {@code char} argument to the {@code StringBuilder}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the message
+	 * @param arg argument referenced by the format
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the argument does not match the format
+	 */
+	public void appendTo(StringBuilder sb, char arg) {
+		int start = sb.length();
+		int i = canAppend(1) ? nextArgument(sb, 0) : -1;
+		if(i >= 0 && (i >= segments.length || appendArg(sb, segments[i], arg))) appendRemaining(sb, i + 1);
+		else fallback(sb, start, arg);
+	}
+
+	/**
+	 * Generate the message with given arguments.
+	 *
+	 * @param args arguments referenced by the format
+	 * @return the message
+	 * @throws java.util.IllegalFormatException if the format is invalid, or the arguments does not match the format
+	 */
+	public String format(Object... args) {
+		StringBuilder sb = new StringBuilder(format.length() + 16);
+		appendTo(sb, args);
+		return sb.toString();
+	}
+
+	/**
+	 * @return {@code false} if this template always falls back to {@code String.format}.
+	 */
+	public boolean isCompiled() {
+		return segments != null;
+	}
+
+	/**
+	 * @return {@code true} if this is a {@code {}} style format.
+	 */
+	public boolean isPlaceholderStyle() {
+		return placeholder;
+	}
+
+	/**
+	 * @return number of arguments referenced by the format, or {@code 0} if this template is not compiled.
+	 */
+	public int argumentCount() {
+		return argCount;
+	}
+
+	/**
+	 * @return the format of this template.
+	 */
+	public String getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return {@code false} if the message with given number of arguments should be generated by {@code String.format}
+	 */
+	private boolean canAppend(int args) {
+		return segments != null && (placeholder || args >= argCount) && (!numeric || isPlainLocale());
+	}
+
+	/**
+	 * Generate the message by {@code String.format}, replacing everything appended after {@code start}.
+	 */
+	private void fallback(StringBuilder sb, int start, Object... args) {
+		sb.setLength(start);
+		sb.append(String.format(format, args));
+	}
+
+	/**
+	 * Append literals from the segment at {@code from} until a conversion is found.
+	 *
+	 * @return index of the conversion segment, or a value not less than {@code segments.length} if there's none
+	 */
+	private int nextArgument(StringBuilder sb, int from) {
+		for(; from < segments.length && segments[from].literal != null; from++) sb.append(segments[from].literal);
+		return from;
+	}
+
+	/**
+	 * Append the segments from {@code from}, after every argument is used.
+	 * Only a placeholder style format can have conversions left, which are written as is.
+	 */
+	private void appendRemaining(StringBuilder sb, int from) {
+		for(int i = from; i < segments.length; i++) {
+			String literal = segments[i].literal;
+			sb.append(literal != null ? literal : "{}");
+		}
+	}
+
+	/**
+	 * @return {@code false} if the message should be generated by {@code String.format}
+	 */
+	private boolean appendSegments(StringBuilder sb, Object[] args) {
+		int arg = 0;
+		for(Segment s : segments) {
+			if(s.literal != null) sb.append(s.literal);
+			else if(arg >= args.length) sb.append("{}");
+			else if(!appendArg(sb, s, args[arg++])) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Append an argument converted by the segment.
+	 *
+	 * @return {@code false} if the argument should be converted by {@code String.format}
+	 */
+	private static boolean appendArg(StringBuilder sb, Segment s, Object o) {
+		switch (s.conversion) {
+		case '{':
+			sb.append(o);
+			return true;
+		case 's':
+			if(o instanceof Formattable) return false;
+			if(s.width == -1 && s.precision == -1) sb.append(o);
+			else appendString(sb, String.valueOf(o), s);
+			return true;
+		case 'd':
+		case 'x':
+		case 'X':
+			if(o instanceof Integer n) return appendArg(sb, s, n, true);
+			if(o instanceof Long n) return appendArg(sb, s, n, false);
+			if(s.conversion == 'd' && (o instanceof Short || o instanceof Byte)) return appendArg(sb, s, ((Number) o).longValue(), false);
+			if(o instanceof Short n) pad(sb, hex(n & 0xFFFF, s), s);
+			else if(o instanceof Byte n) pad(sb, hex(n & 0xFF, s), s);
+			else return false;
+			return true;
+		case 'f':
+			if(!(o instanceof Double || o instanceof Float)) return false;
+			return appendArg(sb, s, ((Number) o).doubleValue());
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Append an {@code int}(if {@code isInt}) or {@code long} argument converted by the segment.
+	 *
+	 * @return {@code false} if the argument should be converted by {@code String.format}
+	 */
+	private static boolean appendArg(StringBuilder sb, Segment s, long v, boolean isInt) {
+		switch (s.conversion) {
+		case '{':
+		case 's':
+		case 'd':
+			if(s.width == -1 && s.precision == -1) sb.append(v);
+			else if(s.conversion == 's') appendString(sb, Long.toString(v), s);
+			else pad(sb, Long.toString(v), s);
+			return true;
+		case 'x':
+		case 'X':
+			pad(sb, isInt ? hex((int) v & 0xFFFFFFFFL, s) : hex(v, s), s);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Append a {@code double} argument converted by the segment.
+	 *
+	 * @return {@code false} if the argument should be converted by {@code String.format}
+	 */
+	private static boolean appendArg(StringBuilder sb, Segment s, double v) {
+		switch (s.conversion) {
+		case '{':
+		case 's':
+			if(s.width == -1 && s.precision == -1) sb.append(v);
+			else appendString(sb, Double.toString(v), s);
+			return true;
+		case 'f':
+			if(Double.isNaN(v) || Double.isInfinite(v)) return false;
+			pad(sb, toFixed(v, s.precision), s);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Append a {@code boolean} argument converted by the segment.
+	 *
+	 * @return {@code false} if the argument should be converted by {@code String.format}
+	 */
+	private static boolean appendArg(StringBuilder sb, Segment s, boolean v) {
+		if(s.conversion != '{' && s.conversion != 's') return false;
+		appendString(sb, v ? "true" : "false", s);
+		return true;
+	}
+
+	/**
+	 * Append a {@code char} argument converted by the segment.
+	 *
+	 * @return {@code false} if the argument should be converted by {@code String.format}
+	 */
+	private static boolean appendArg(StringBuilder sb, Segment s, char v) {
+		if(s.conversion != '{' && s.conversion != 's') return false;
+		if(s.width == -1 && s.precision == -1) sb.append(v);
+		else appendString(sb, String.valueOf(v), s);
+		return true;
+	}
+
+	/**
+	 * @return hexadecimal string of the value, treated as unsigned.
+	 */
+	private static String hex(long v, Segment s) {
+		String hex = Long.toHexString(v);
+		return s.conversion == 'X' ? hex.toUpperCase(Locale.ROOT) : hex;
+	}
+
+	/**
+	 * Append the string, truncated to the precision and padded to the width of the segment.
+	 */
+	private static void appendString(StringBuilder sb, String str, Segment s) {
+		if(s.precision != -1 && s.precision < str.length()) str = str.substring(0, s.precision);
+		pad(sb, str, s);
+	}
+
+	/**
+	 * Convert the value to a decimal string with given number of fraction digits, as {@code String.format} does;
+	 * the shortest decimal representation of the value({@link Double#toString(double)}) is rounded half-up.
+	 */
+	private static String toFixed(double d, int precision) {
+		String str = Double.toString(Math.abs(d));
+		String sign = Math.copySign(1.0, d) < 0 ? "-" : "";
+		if(str.indexOf('E') >= 0) return sign + new BigDecimal(str).setScale(precision, RoundingMode.HALF_UP).toPlainString();
+
+		int dot = str.indexOf('.');
+		int fraction = str.length() - dot - 1;
+		StringBuilder sb = new StringBuilder(sign.length() + dot + precision + 2).append(sign);
+		if(fraction <= precision) {
+			sb.append(str);
+			repeat(sb, '0', precision - fraction);
+			return sb.toString();
+		}
+
+		int end = precision == 0 ? dot : dot + 1 + precision;
+		int start = sb.length();
+		sb.append(str, 0, end);
+		if(str.charAt(dot + 1 + precision) >= '5') {
+			int i = sb.length() - 1;
+			for(; i >= start; i--) {
+				char c = sb.charAt(i);
+				if(c == '.') continue;
+				if(c != '9') {
+					sb.setCharAt(i, (char) (c + 1));
+					break;
+				}
+				sb.setCharAt(i, '0');
+			}
+			if(i < start) sb.insert(start, '1');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Append the string, padded to the width of the segment.
+	 */
+	private static void pad(StringBuilder sb, String str, Segment s) {
+		int padding = s.width - str.length();
+		if(padding <= 0) {
+			sb.append(str);
+		} else if(s.leftJustify) {
+			sb.append(str);
+			repeat(sb, ' ', padding);
+		} else if(s.zeroPad) {
+			int sign = str.startsWith("-") ? 1 : 0;
+			sb.append(str, 0, sign);
+			repeat(sb, '0', padding);
+			sb.append(str, sign, str.length());
+		} else {
+			repeat(sb, ' ', padding);
+			sb.append(str);
+		}
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static void repeat(StringBuilder sb, char c, int count) {
+		for(int i = 0; i < count; i++) sb.append(c);
+	}
+
+	/**
+	 * @return {@code true} if current default locale formats numbers the same as {@code Locale.ROOT}
+	 */
+	private static boolean isPlainLocale() {
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		LocaleCheck check = lastLocale;
+		if(check.locale() != locale) {
+			DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+			check = new LocaleCheck(locale, dfs.getZeroDigit() == '0' && dfs.getDecimalSeparator() == '.');
+			lastLocale = check;
+		}
+		return check.plain();
+	}
+
+	@Override
+	public String toString() {
+		return "MessageTemplate [format=\"" + format + "\", compiled=" + isCompiled() + "]";
+	}
+}
@@ -40,6 +40,14 @@ public class NullLogFormatter extends LogFormatter {
 		return msg.toString();
 	}
 
+	/**
+	 * Just appends the {@code logstr}.
+	 */
+	@Override
+	public void format(StringBuilder sb, Level level, String prefix, CharSequence msg) {
+		sb.append(msg);
+	}
+
 	/**
 	 * Return self, since there is no need to duplicate a {@code NullLogFormatter} instance
 	 */
@@ -1,5 +1,6 @@
 package io.github.awidesky.guiUtil.formatter;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,13 +38,23 @@ import io.github.awidesky.guiUtil.level.Level;
  */
 public class SimpleLogFormatter extends LogFormatter {
 	
-	/** Thread-local {@link StringBuilder} used to build formatted log messages. */
-	private static final ThreadLocal<StringBuilder> sbLocal = ThreadLocal.withInitial(() -> new StringBuilder(256));
+	/** Shared pool of {@link StringBuilder}s used to build formatted log messages. */
+	private static final StringBuilderPool sbPool = new StringBuilderPool();
 	
 	/** Parsed tokens representing the current formatting pattern. */
 	private List<Token> tokens;
 	private String pattern;
 	
+	/**
+	 * Returns the pool of {@link StringBuilder}s shared by every {@code SimpleLogFormatter}.
+	 * Can be used to measure memory retained for formatting.
+	 *
+	 * @return the shared {@code StringBuilderPool}
+	 */
+	public static StringBuilderPool builderPool() {
+		return sbPool;
+	}
+	
 	/**
 	 * Creates a formatter with the default pattern:
 	 * <pre>
@@ -180,8 +191,8 @@ public class SimpleLogFormatter extends LogFormatter {
 	/**
 	 * Formats a log message using the previously parsed token sequence.
 	 *
-	 * <p>Each token appends its content to a thread-local {@link StringBuilder},
-	 * which is then converted into the final log string.
+	 * <p>Each token appends its content to a {@link StringBuilder} borrowed from
+	 * a shared {@link StringBuilderPool}, which is then converted into the final log string.
 	 *
 	 * @param level the log level of the message
 	 * @param prefix the logger prefix
@@ -190,14 +201,48 @@ public class SimpleLogFormatter extends LogFormatter {
 	 */
 	@Override
 	public String format(Level level, String prefix, CharSequence msg) {
-	    StringBuilder sb = sbLocal.get();
-	    sb.setLength(0);
-
-	    for(Token t : tokens) {
-	        t.append(sb, level, prefix, msg);
+	    StringBuilder sb = sbPool.acquire();
+	    try {
+	        format(sb, level, prefix, msg);
+	        return sb.toString();
+	    } finally {
+	        sbPool.release(sb);
+	    }
+	}
+	
+	/**
+	 * Appends a log message to the given {@code StringBuilder} using the previously parsed token sequence.
+	 * No intermediate {@code String} is generated.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the formatted output
+	 * @param level the log level of the message
+	 * @param prefix the logger prefix
+	 * @param msg the log message
+	 */
+	@Override
+	public void format(StringBuilder sb, Level level, String prefix, CharSequence msg) {
+	    // indexed loop instead of iterator, to avoid an allocation per format
+	    for(int i = 0; i < tokens.size(); i++) {
+	        tokens.get(i).append(sb, level, prefix, msg);
+	    }
+	}
+	
+	/**
+	 * Appends a log message that was generated at given time, by given thread.
+	 * {@code %d} and {@code %t} are replaced with {@code timestamp} and {@code threadName}.
+	 *
+	 * @param sb the target {@code StringBuilder} receiving the formatted output
+	 * @param level the log level of the message
+	 * @param prefix the logger prefix
+	 * @param msg the log message
+	 * @param timestamp the time when the log was generated
+	 * @param threadName name of the thread that generated the log
+	 */
+	@Override
+	public void format(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+	    for(int i = 0; i < tokens.size(); i++) {
+	        tokens.get(i).append(sb, level, prefix, msg, timestamp, threadName);
 	    }
-
-	    return sb.toString();
 	}
 	
 	/**
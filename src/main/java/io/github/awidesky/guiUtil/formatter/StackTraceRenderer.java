@@ -0,0 +1,224 @@
+package io.github.awidesky.guiUtil.formatter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Renders the stack trace of a {@link Throwable} directly into a {@code StringBuilder}.
+ *
+ * <p>With the default settings, the output is the same as {@link Throwable#printStackTrace(java.io.PrintWriter)}:
+ * frames shared with the enclosing trace are folded into {@code "... N more"}, suppressed exceptions and causes
+ * are rendered recursively, and a cause that was already rendered is written as {@code [CIRCULAR REFERENCE: ...]}.
+ * Unlike {@code printStackTrace}, no {@code StringWriter}, {@code PrintWriter} or intermediate {@code String} is used.
+ * The text of each stack frame is cached in a small table shared by every renderer, so that frames of the same
+ * place(which most logged exceptions have in common) are converted to {@code String} only once.
+ *
+ * <p>The output can be shortened with:
+ * <ul>
+ * <li>{@link #setMaxDepth(int)} : maximum number of frames written for each {@code Throwable}.
+ * The rest are folded into {@code "... N more"}.</li>
+ * <li>{@link #setFilteredPackages(String...)} : frames of classes in given packages(and their subpackages) are not written.
+ * Consecutive filtered frames are folded into {@code "... N filtered"}.</li>
+ * </ul>
+ */
+public class StackTraceRenderer {
+
+	/** Number of cached frame texts. Must be a power of two. */
+	private static final int FRAME_CACHE_SIZE = 1024;
+	private static final AtomicReferenceArray<Frame> frameCache = new AtomicReferenceArray<>(FRAME_CACHE_SIZE);
+
+	private static final String CAUSE_CAPTION = "Caused by: ";
+	private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+	/** A stack frame and its text. */
+	private record Frame(StackTraceElement element, String text) {}
+
+	private int maxDepth = Integer.MAX_VALUE;
+	/** Filtered package names, with trailing {@code '.'}. */
+	private String[] filteredPackages = new String[0];
+
+	/**
+	 * Creates a renderer that renders the whole stack trace, as {@link Throwable#printStackTrace()} does.
+	 */
+	public StackTraceRenderer() {}
+
+	/**
+	 * Set maximum number of frames written for each {@code Throwable}(including each cause and suppressed exception).
+	 * Filtered frames are not counted.
+	 *
+	 * @param maxDepth maximum number of frames. {@code Integer.MAX_VALUE} means no limit.
+	 * @return this renderer
+	 * @throws IllegalArgumentException if {@code maxDepth} is negative
+	 */
+	public StackTraceRenderer setMaxDepth(int maxDepth) throws IllegalArgumentException {
+		if(maxDepth < 0) throw new IllegalArgumentException("Invalid max depth : " + maxDepth);
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * @return maximum number of frames written for each {@code Throwable}.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Set packages whose frames are not written, e.g. {@code "java.lang.reflect"} or {@code "jdk.internal"}.
+	 * Subpackages are filtered too. Replaces previously set packages.
+	 *
+	 * @param packages names of the packages to filter
+	 * @return this renderer
+	 * @throws IllegalArgumentException if a package name is empty
+	 */
+	public StackTraceRenderer setFilteredPackages(String... packages) throws IllegalArgumentException {
+		String[] arr = new String[packages.length];
+		for(int i = 0; i < packages.length; i++) {
+			if(packages[i].isEmpty()) throw new IllegalArgumentException("Invalid package name : \"\"");
+			arr[i] = packages[i].endsWith(".") ? packages[i] : packages[i] + ".";
+		}
+		filteredPackages = arr;
+		return this;
+	}
+
+	/**
+	 * @return names of the filtered packages.
+	 */
+	public List<String> getFilteredPackages() {
+		return Arrays.stream(filteredPackages).map(s -> s.substring(0, s.length() - 1)).toList();
+	}
+
+	/**
+	 * Render the stack trace of the {@code Throwable}.
+	 *
+	 * @param t the {@code Throwable}
+	 * @return the stack trace
+	 */
+	public String render(Throwable t) {
+		StringBuilder sb = new StringBuilder(1024);
+		render(t, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Append the stack trace of the {@code Throwable} to the {@code StringBuilder}.
+	 * Every line, including the last one, ends with a line separator.
+	 *
+	 * @param t the {@code Throwable}
+	 * @param sb the target {@code StringBuilder} receiving the stack trace
+	 */
+	public void render(Throwable t, StringBuilder sb) {
+		Context c = new Context(sb);
+		c.seen[c.seenCount++] = t;
+		sb.append(t).append(c.nl);
+		StackTraceElement[] trace = t.getStackTrace();
+		renderFrames(c, trace, trace.length - 1, 0, 0);
+		for(Throwable se : t.getSuppressed()) renderEnclosed(c, se, trace, SUPPRESSED_CAPTION, 1);
+		Throwable cause = t.getCause();
+		if(cause != null) renderEnclosed(c, cause, trace, CAUSE_CAPTION, 0);
+	}
+
+	/**
+	 * State of a single {@link StackTraceRenderer#render(Throwable, StringBuilder)} call.
+	 */
+	private static final class Context {
+		final StringBuilder sb;
+		final String nl = System.lineSeparator();
+		/** {@code Throwable}s already rendered, compared by identity. */
+		Throwable[] seen = new Throwable[4];
+		int seenCount = 0;
+
+		Context(StringBuilder sb) {
+			this.sb = sb;
+		}
+
+		boolean markSeen(Throwable t) {
+			for(int i = 0; i < seenCount; i++) {
+				if(seen[i] == t) return false;
+			}
+			if(seenCount == seen.length) seen = Arrays.copyOf(seen, seenCount * 2);
+			seen[seenCount++] = t;
+			return true;
+		}
+
+		StringBuilder indent(int indent) {
+			for(int i = 0; i < indent; i++) sb.append('\t');
+			return sb;
+		}
+	}
+
+	/**
+	 * Render a cause or a suppressed exception, folding frames in common with the enclosing trace.
+	 */
+	private void renderEnclosed(Context c, Throwable t, StackTraceElement[] enclosingTrace, String caption, int indent) {
+		if(!c.markSeen(t)) {
+			c.indent(indent).append(caption).append("[CIRCULAR REFERENCE: ").append(t).append(']').append(c.nl);
+			return;
+		}
+		StackTraceElement[] trace = t.getStackTrace();
+		int m = trace.length - 1;
+		int n = enclosingTrace.length - 1;
+		while(m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+			m--;
+			n--;
+		}
+		c.indent(indent).append(caption).append(t).append(c.nl);
+		renderFrames(c, trace, m, trace.length - 1 - m, indent);
+		for(Throwable se : t.getSuppressed()) renderEnclosed(c, se, trace, SUPPRESSED_CAPTION, indent + 1);
+		Throwable cause = t.getCause();
+		if(cause != null) renderEnclosed(c, cause, trace, CAUSE_CAPTION, indent);
+	}
+
+	/**
+	 * Render frames from {@code 0} to {@code last}, followed by {@code "... N more"} if {@code common} frames are shared
+	 * with the enclosing trace, or some frames are not written because of the max depth.
+	 */
+	private void renderFrames(Context c, StackTraceElement[] trace, int last, int common, int indent) {
+		int written = 0, filtered = 0, omitted = 0;
+		for(int i = 0; i <= last; i++) {
+			if(isFiltered(trace[i])) {
+				filtered++;
+				continue;
+			}
+			if(written == maxDepth) {
+				omitted = last - i + 1 + filtered;
+				filtered = 0;
+				break;
+			}
+			if(filtered > 0) {
+				c.indent(indent).append("\t... ").append(filtered).append(" filtered").append(c.nl);
+				filtered = 0;
+			}
+			c.indent(indent).append("\tat ").append(frameText(trace[i])).append(c.nl);
+			written++;
+		}
+		if(filtered > 0) c.indent(indent).append("\t... ").append(filtered).append(" filtered").append(c.nl);
+		if(common + omitted > 0) c.indent(indent).append("\t... ").append(common + omitted).append(" more").append(c.nl);
+	}
+
+	private boolean isFiltered(StackTraceElement e) {
+		String className = e.getClassName();
+		for(String p : filteredPackages) {
+			if(className.startsWith(p)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return {@code StackTraceElement#toString()} of the frame, from the cache if possible
+	 */
+	private static String frameText(StackTraceElement e) {
+		int index = e.hashCode() & (FRAME_CACHE_SIZE - 1);
+		Frame f = frameCache.get(index);
+		if(f != null && f.element().equals(e)) return f.text();
+		String text = e.toString();
+		frameCache.set(index, new Frame(e, text));
+		return text;
+	}
+
+	@Override
+	public String toString() {
+		return "StackTraceRenderer [maxDepth=" + maxDepth + ", filteredPackages=" + getFilteredPackages() + "]";
+	}
+}
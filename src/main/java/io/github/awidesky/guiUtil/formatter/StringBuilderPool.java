@@ -0,0 +1,133 @@
+package io.github.awidesky.guiUtil.formatter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of {@link StringBuilder}s shared by every thread.
+ *
+ * <p>Unlike a {@link ThreadLocal} cache, memory retained by this pool does not grow with
+ * the number of threads; at most {@link #slots()} builders are kept, and each of them holds
+ * at most {@link #maxRetainedCapacity()} characters. A builder that grew larger than that
+ * (e.g. by a single huge log message) is dropped instead of being returned to the pool.
+ *
+ * <p>A thread starts probing from a slot chosen by its identity hash code, so threads
+ * rarely contend for the same slot. If no pooled builder is found, a new one is created,
+ * and if the pool is full when it's released, it's left to the garbage collector.
+ */
+public final class StringBuilderPool {
+
+	/** Initial capacity of a newly created builder. */
+	public static final int INITIAL_CAPACITY = 256;
+	/** Default maximum capacity of a pooled builder. */
+	public static final int DEFAULT_MAX_RETAINED_CAPACITY = 16 * 1024;
+	/** Number of slots probed on acquire and release. */
+	private static final int PROBES = 4;
+
+	private final AtomicReferenceArray<StringBuilder> pool;
+	private final int mask;
+	private final int maxRetainedCapacity;
+
+	/**
+	 * Creates a pool with slots of four times the number of available processors,
+	 * and {@link #DEFAULT_MAX_RETAINED_CAPACITY}.
+	 */
+	public StringBuilderPool() {
+		this(4 * Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_RETAINED_CAPACITY);
+	}
+
+	/**
+	 * Creates a pool.
+	 *
+	 * @param slots the minimum number of pooled builders. Rounded up to the next power of two.
+	 * @param maxRetainedCapacity builders with larger capacity than this are not pooled.
+	 * @throws IllegalArgumentException if {@code slots} is not positive or larger than {@code 2^20},
+	 * 			or {@code maxRetainedCapacity} is negative
+	 */
+	public StringBuilderPool(int slots, int maxRetainedCapacity) throws IllegalArgumentException {
+		if(slots <= 0 || slots > (1 << 20)) throw new IllegalArgumentException("Invalid number of slots : " + slots);
+		if(maxRetainedCapacity < 0) throw new IllegalArgumentException("Invalid max retained capacity : " + maxRetainedCapacity);
+		int size = slots == 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+		pool = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+		this.maxRetainedCapacity = maxRetainedCapacity;
+	}
+
+	/**
+	 * Borrow an empty {@code StringBuilder}. It should be returned by {@link #release(StringBuilder)},
+	 * and must not be used after that.
+	 *
+	 * @return an empty {@code StringBuilder}
+	 */
+	public StringBuilder acquire() {
+		int start = System.identityHashCode(Thread.currentThread());
+		for(int i = 0; i < PROBES; i++) {
+			int index = (start + i) & mask;
+			if(pool.get(index) != null) {
+				StringBuilder sb = pool.getAndSet(index, null);
+				if(sb != null) return sb;
+			}
+		}
+		return new StringBuilder(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Return a {@code StringBuilder} borrowed by {@link #acquire()}.
+	 * The builder is dropped if it's too large, or the pool is full.
+	 *
+	 * @param sb the builder to return
+	 */
+	public void release(StringBuilder sb) {
+		if(sb.capacity() > maxRetainedCapacity) return;
+		sb.setLength(0);
+		int start = System.identityHashCode(Thread.currentThread());
+		for(int i = 0; i < PROBES; i++) {
+			int index = (start + i) & mask;
+			if(pool.get(index) == null && pool.compareAndSet(index, null, sb)) return;
+		}
+	}
+
+	/**
+	 * @return maximum number of pooled builders.
+	 */
+	public int slots() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return maximum capacity of a pooled builder.
+	 */
+	public int maxRetainedCapacity() {
+		return maxRetainedCapacity;
+	}
+
+	/**
+	 * @return number of builders currently in the pool.
+	 */
+	public int pooledCount() {
+		int n = 0;
+		for(int i = 0; i < pool.length(); i++) {
+			if(pool.get(i) != null) n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns total capacity of the builders currently in the pool, in characters.
+	 * This never exceeds {@code slots() * maxRetainedCapacity()}.
+	 *
+	 * @return retained capacity of this pool
+	 */
+	public long retainedCapacity() {
+		long n = 0;
+		for(int i = 0; i < pool.length(); i++) {
+			StringBuilder sb = pool.get(i);
+			if(sb != null) n += sb.capacity();
+		}
+		return n;
+	}
+
+	@Override
+	public String toString() {
+		return "StringBuilderPool [slots=" + slots() + ", maxRetainedCapacity=" + maxRetainedCapacity + ", pooled=" + pooledCount() + "]";
+	}
+}
@@ -62,6 +62,14 @@ public class DateToken implements Token {
      */
     @Override
     public void append(StringBuilder sb, Level level, String prefix, CharSequence msg) {
-        sb.append(formatter.format(Instant.now()));
+        formatter.formatTo(Instant.now(), sb);
+    }
+
+    /**
+     * Appends the given timestamp instead of the current time.
+     */
+    @Override
+    public void append(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+        formatter.formatTo(timestamp, sb);
     }
 }
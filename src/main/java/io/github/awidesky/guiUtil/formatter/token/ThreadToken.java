@@ -1,5 +1,7 @@
 package io.github.awidesky.guiUtil.formatter.token;
 
+import java.time.Instant;
+
 import io.github.awidesky.guiUtil.level.Level;
 
 /**
@@ -9,9 +11,10 @@ import io.github.awidesky.guiUtil.level.Level;
  * pattern string. When appended, it writes the name of the current thread
  * to the output {@link StringBuilder}.
  *
- * <p>The thread name is cached using a {@link ThreadLocal} to avoid repeated
- * calls to {@link Thread#currentThread()} and {@link Thread#getName()} during
- * logging, improving performance for frequently executed log statements.
+ * <p>The thread name is read with {@link Thread#getName()} on every call,
+ * which just returns a field of the thread without allocation. Unlike a
+ * {@link ThreadLocal} cache, this does not keep a copy per thread (which adds up
+ * when there are a lot of short-lived threads), and reflects renamed threads.
  *
  * <p>This class is implemented as a singleton because it is stateless and
  * can be safely reused across multiple formatter instances.
@@ -28,12 +31,6 @@ public class ThreadToken implements Token {
 	 */
 	public static ThreadToken instance() { return instance; }
 	
-	/**
-	 * Thread-local cache of the current thread name used for log output.
-	 */
-	private static final ThreadLocal<String> threadName = ThreadLocal
-			.withInitial(() -> Thread.currentThread().getName());
-
 	/**
 	 * Appends the current thread name to the provided {@link StringBuilder}.
 	 *
@@ -44,6 +41,14 @@ public class ThreadToken implements Token {
 	 */
 	@Override
 	public void append(StringBuilder sb, Level level, String prefix, CharSequence msg) {
-		sb.append(threadName.get());
+		sb.append(Thread.currentThread().getName());
+	}
+
+	/**
+	 * Appends the given thread name instead of the current thread name.
+	 */
+	@Override
+	public void append(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+		sb.append(threadName);
 	}
 }
\ No newline at end of file
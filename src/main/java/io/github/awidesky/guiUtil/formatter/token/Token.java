@@ -1,5 +1,7 @@
 package io.github.awidesky.guiUtil.formatter.token;
 
+import java.time.Instant;
+
 import io.github.awidesky.guiUtil.level.Level;
 
 /**
@@ -24,4 +26,22 @@ public interface Token {
      * @param msg the log message content
      */
     void append(StringBuilder sb, Level level, String prefix, CharSequence msg);
-}
\ No newline at end of file
+
+    /**
+     * Appends this token's formatted content of a log that was generated at given time, by given thread.
+     * Used when the log is formatted later, in a different thread.
+     *
+     * <p>Default implementation ignores {@code timestamp} and {@code threadName},
+     * and calls {@link Token#append(StringBuilder, Level, String, CharSequence)}.
+     *
+     * @param sb the target {@code StringBuilder} receiving the formatted output
+     * @param level the log level associated with the message
+     * @param prefix the logger prefix, if any
+     * @param msg the log message content
+     * @param timestamp the time when the log was generated
+     * @param threadName name of the thread that generated the log
+     */
+    default void append(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+        append(sb, level, prefix, msg);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@code Writer} that encodes characters with a single reused {@link CharsetEncoder}
+ * directly into {@code ByteBuffer}s provided by the subclass.
+ *
+ * <p>If the charset is ASCII-compatible(UTF-8, US-ASCII, ISO-8859-1), ASCII characters are copied
+ * as bytes without going through the encoder. A surrogate pair split between writes is kept until the next write.
+ * Malformed or unmappable characters are replaced with the replacement of the charset, like {@code OutputStreamWriter}.
+ * */
+abstract class EncodingWriter extends Writer {
+
+	private final CharsetEncoder encoder;
+	private final boolean asciiCompatible;
+	/** Scratch array for ASCII characters, copied to a buffer in bulk. */
+	private final byte[] asciiBytes;
+	/** Scratch array for {@code write(String, int, int)}. */
+	private char[] chars = new char[1024];
+	/** A high surrogate at the end of the last write, whose low surrogate is not written yet. */
+	private char pendingHighSurrogate;
+	private boolean hasPending = false;
+
+	/**
+	 * @param cs the charset to encode characters
+	 * @param scratchSize size of the scratch array for ASCII characters
+	 */
+	EncodingWriter(Charset cs, int scratchSize) {
+		this.encoder = cs.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.asciiCompatible = cs.equals(StandardCharsets.UTF_8) || cs.equals(StandardCharsets.US_ASCII) || cs.equals(StandardCharsets.ISO_8859_1);
+		this.asciiBytes = new byte[scratchSize];
+	}
+
+	/**
+	 * @return the buffer that encoded bytes are written to.
+	 */
+	abstract ByteBuffer buffer();
+
+	/**
+	 * Called when {@link EncodingWriter#buffer()} does not have enough space.
+	 *
+	 * @return a buffer that has space, which will be returned by {@link EncodingWriter#buffer()} from now on
+	 */
+	abstract ByteBuffer nextBuffer() throws IOException;
+
+	/**
+	 * @throws IOException if this writer is closed
+	 */
+	abstract void ensureOpen() throws IOException;
+
+	@Override
+	public void write(int c) throws IOException {
+		synchronized (lock) {
+			chars[0] = (char) c;
+			write0(chars, 0, 1);
+		}
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		synchronized (lock) {
+			write0(cbuf, off, len);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		synchronized (lock) {
+			if(chars.length < len) chars = new char[Math.max(len, chars.length * 2)];
+			str.getChars(off, off + len, chars, 0);
+			write0(chars, 0, len);
+		}
+	}
+
+	private void write0(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		int end = off + len;
+		while(off < end) {
+			if(hasPending) {
+				hasPending = false;
+				encode(CharBuffer.wrap(new char[] { pendingHighSurrogate, cbuf[off++] }));
+			} else if(asciiCompatible) {
+				off = copyAscii(cbuf, off, end);
+				if(off == end) break;
+				if(cbuf[off] < 0x80) continue; // buffer was full
+				int runEnd = off + 1;
+				while(runEnd < end && cbuf[runEnd] >= 0x80) runEnd++;
+				encode(CharBuffer.wrap(cbuf, off, runEnd - off));
+				off = runEnd;
+			} else {
+				encode(CharBuffer.wrap(cbuf, off, end - off));
+				off = end;
+			}
+		}
+	}
+
+	/**
+	 * Copy ASCII characters as bytes until a non-ASCII character, or until the buffer is full.
+	 *
+	 * @return index of the first character that is not copied
+	 */
+	private int copyAscii(char[] cbuf, int off, int end) throws IOException {
+		ByteBuffer bb = buffer();
+		if(!bb.hasRemaining()) bb = nextBuffer();
+		int n = Math.min(Math.min(end - off, bb.remaining()), asciiBytes.length);
+		int i = 0;
+		while(i < n) {
+			char c = cbuf[off + i];
+			if(c >= 0x80) break;
+			asciiBytes[i++] = (byte) c;
+		}
+		bb.put(asciiBytes, 0, i);
+		return off + i;
+	}
+
+	private void encode(CharBuffer cb) throws IOException {
+		while(true) {
+			CoderResult result = encoder.encode(cb, buffer(), false);
+			if(result.isOverflow()) {
+				nextBuffer();
+			} else if(result.isUnderflow()) {
+				if(cb.hasRemaining()) {
+					/* a high surrogate at the end. wait for the next write. */
+					pendingHighSurrogate = cb.get();
+					hasPending = true;
+				}
+				return;
+			} else {
+				result.throwException();
+			}
+		}
+	}
+
+	/**
+	 * Encode the pending character(if exists) and flush the encoder. Called once when this writer is closed.
+	 */
+	void finishEncoding() throws IOException {
+		/* a high surrogate without low surrogate is malformed, and replaced. */
+		CharBuffer rest = hasPending ? CharBuffer.wrap(new char[] { pendingHighSurrogate }) : CharBuffer.allocate(0);
+		hasPending = false;
+		while(encoder.encode(rest, buffer(), true).isOverflow()) nextBuffer();
+		while(encoder.flush(buffer()).isOverflow()) nextBuffer();
+	}
+}
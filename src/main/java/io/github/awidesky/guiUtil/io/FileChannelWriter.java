@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@code Writer} that writes to a {@link FileChannel} without intermediate streams.
+ *
+ * <p>Characters are encoded with a single reused {@link java.nio.charset.CharsetEncoder} directly into a set of preallocated
+ * direct {@code ByteBuffer}s. When every buffer is full, or when {@link #flush()} is called, the buffers are
+ * written at once by a gathering {@link FileChannel#write(ByteBuffer[], int, int)}.
+ * If the charset is ASCII-compatible(UTF-8, US-ASCII, ISO-8859-1), ASCII characters are copied as bytes
+ * without going through the encoder.
+ *
+ * <p>This can be used as the destination of a {@code LoggerThread} or a {@code SimpleLogger}
+ * instead of an {@code OutputStream} connected to a file.
+ * Malformed or unmappable characters are replaced with the replacement of the charset, like {@code OutputStreamWriter}.
+ * {@link #flush()} does not force the content to the storage device; use {@link #sync()} for that.
+ *
+ * @see io.github.awidesky.guiUtil.thread.LoggerThread#setLogDestination(Writer, boolean)
+ * */
+public class FileChannelWriter extends EncodingWriter {
+
+	/** Default size of each buffer. */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	/** Default number of buffers. */
+	public static final int DEFAULT_BUFFER_COUNT = 4;
+
+	private final FileChannel channel;
+	private final ByteBuffer[] buffers;
+	private int current = 0;
+	/** Number of bytes written to the channel by this writer. */
+	private long writtenBytes = 0;
+	private boolean closed = false;
+
+	/**
+	 * Opens(or creates) the file and creates a writer with default buffers.
+	 *
+	 * @param path the file to write
+	 * @param cs the charset to encode characters
+	 * @param append if {@code true}, characters are written to the end of the file. Otherwise, the file is truncated.
+	 * @throws IOException if failed to open the file
+	 */
+	public FileChannelWriter(Path path, Charset cs, boolean append) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING), cs);
+	}
+
+	/**
+	 * Creates a writer with default buffers.
+	 *
+	 * @param channel the channel to write. Closed when this writer is closed.
+	 * @param cs the charset to encode characters
+	 */
+	public FileChannelWriter(FileChannel channel, Charset cs) {
+		this(channel, cs, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+	}
+
+	/**
+	 * Creates a writer.
+	 *
+	 * @param channel the channel to write. Closed when this writer is closed.
+	 * @param cs the charset to encode characters
+	 * @param bufferSize size of each direct buffer in bytes
+	 * @param bufferCount number of direct buffers that are written at once
+	 * @throws IllegalArgumentException if {@code bufferSize} is smaller than {@code 16}, or {@code bufferCount} is not positive
+	 */
+	public FileChannelWriter(FileChannel channel, Charset cs, int bufferSize, int bufferCount) throws IllegalArgumentException {
+		super(cs, Math.max(bufferSize, 16));
+		if(bufferSize < 16) throw new IllegalArgumentException("Buffer size is too small : " + bufferSize);
+		if(bufferCount <= 0) throw new IllegalArgumentException("Invalid buffer count : " + bufferCount);
+		this.channel = channel;
+		this.buffers = new ByteBuffer[bufferCount];
+		for(int i = 0; i < bufferCount; i++) buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	@Override
+	ByteBuffer buffer() {
+		return buffers[current];
+	}
+
+	/**
+	 * Move to the next buffer. If every buffer is full, write them all first.
+	 */
+	@Override
+	ByteBuffer nextBuffer() throws IOException {
+		if(++current == buffers.length) writeBuffers();
+		return buffers[current];
+	}
+
+	/**
+	 * Write every filled buffer with a gathering write, and clear them.
+	 */
+	private void writeBuffers() throws IOException {
+		int count = Math.min(current + 1, buffers.length);
+		long remaining = 0;
+		for(int i = 0; i < count; i++) remaining += buffers[i].flip().remaining();
+		while(remaining > 0) {
+			long n = channel.write(buffers, 0, count);
+			remaining -= n;
+			writtenBytes += n;
+		}
+		for(int i = 0; i < count; i++) buffers[i].clear();
+		current = 0;
+	}
+
+	/**
+	 * Write buffered bytes to the channel.
+	 * The content is not forced to the storage device.
+	 */
+	@Override
+	public void flush() throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			writeBuffers();
+		}
+	}
+
+	/**
+	 * Write buffered bytes to the channel, and force the content to the storage device.
+	 *
+	 * @see FileChannel#force(boolean)
+	 */
+	public void sync() throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			writeBuffers();
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Returns number of bytes written by this writer, including buffered bytes that are not written to the channel yet.
+	 * Bytes that already existed in the file(in append mode) are not counted.
+	 *
+	 * @return number of bytes encoded by this writer
+	 */
+	public long bytesWritten() {
+		synchronized (lock) {
+			long n = writtenBytes;
+			for(int i = 0; i <= current; i++) n += buffers[i].position();
+			return n;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if(closed) return;
+			try {
+				finishEncoding();
+				writeBuffers();
+			} finally {
+				closed = true;
+				channel.close();
+			}
+		}
+	}
+
+	@Override
+	void ensureOpen() throws IOException {
+		if(closed) throw new IOException("FileChannelWriter is closed!");
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@code Writer} that writes to a memory-mapped region of a file.
+ *
+ * <p>The file is mapped in fixed-size regions. Characters are encoded directly into the current region,
+ * and when it's full, the next region is mapped right after the written bytes(which extends the file).
+ * No system call is made per write or per flush, and written bytes are in the page cache as soon as
+ * they are encoded; they reach the file even if the JVM dies before closing this writer.
+ * (That does not hold on an OS crash or a power loss unless the bytes are forced. See {@link SyncPolicy}.)
+ *
+ * <p>Since the file grows by a whole region, the file is truncated to its real length when this writer is closed.
+ * If the process dies before that, the file has trailing zero bytes after the last log.
+ *
+ * <p>There's no way to unmap a {@code MappedByteBuffer} explicitly; old regions are unmapped when they are garbage collected.
+ * Truncating a file that is still mapped works on Linux and macOS, but may fail on Windows.
+ *
+ * @see io.github.awidesky.guiUtil.thread.LoggerThread#setLogDestination(Writer, boolean)
+ * */
+public class MappedFileWriter extends EncodingWriter {
+
+	/** Default size of a mapped region. */
+	public static final int DEFAULT_REGION_SIZE = 8 * 1024 * 1024;
+
+	/**
+	 * When to force the mapped content to the storage device.
+	 * Forcing is needed only to survive an OS crash or a power loss.
+	 */
+	public static enum SyncPolicy {
+		/** Never force explicitly. The OS writes dirty pages back by itself. */
+		NEVER,
+		/** Force a region before mapping the next one, and when closed. */
+		ON_REMAP,
+		/** Force on every {@link MappedFileWriter#flush()}, before remapping, and when closed. */
+		ON_FLUSH;
+	}
+
+	private final FileChannel channel;
+	private final int regionSize;
+	private final SyncPolicy syncPolicy;
+	/** File position of the start of the current region. */
+	private long regionStart;
+	private MappedByteBuffer region;
+	private boolean closed = false;
+
+	/**
+	 * Opens(or creates) the file and creates a writer with {@link #DEFAULT_REGION_SIZE} and {@link SyncPolicy#NEVER}.
+	 *
+	 * @param path the file to write
+	 * @param cs the charset to encode characters
+	 * @param append if {@code true}, characters are written to the end of the file. Otherwise, the file is truncated.
+	 * @throws IOException if failed to open or map the file
+	 */
+	public MappedFileWriter(Path path, Charset cs, boolean append) throws IOException {
+		this(path, cs, append, DEFAULT_REGION_SIZE, SyncPolicy.NEVER);
+	}
+
+	/**
+	 * Opens(or creates) the file and creates a writer.
+	 *
+	 * @param path the file to write
+	 * @param cs the charset to encode characters
+	 * @param append if {@code true}, characters are written to the end of the file. Otherwise, the file is truncated.
+	 * @param regionSize size of each mapped region in bytes
+	 * @param syncPolicy when to force the content to the storage device
+	 * @throws IOException if failed to open or map the file
+	 * @throws IllegalArgumentException if {@code regionSize} is smaller than {@code 16}
+	 */
+	public MappedFileWriter(Path path, Charset cs, boolean append, int regionSize, SyncPolicy syncPolicy) throws IOException, IllegalArgumentException {
+		super(cs, Math.min(Math.max(regionSize, 16), 8192));
+		if(regionSize < 16) throw new IllegalArgumentException("Region size is too small : " + regionSize);
+		this.regionSize = regionSize;
+		this.syncPolicy = syncPolicy;
+		this.channel = append ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			this.regionStart = channel.size();
+			this.region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	ByteBuffer buffer() {
+		return region;
+	}
+
+	/**
+	 * Map the next region, starting right after the bytes written in current region.
+	 */
+	@Override
+	ByteBuffer nextBuffer() throws IOException {
+		if(syncPolicy != SyncPolicy.NEVER) region.force();
+		regionStart += region.position();
+		region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+		return region;
+	}
+
+	/**
+	 * Written bytes are already in the page cache, so this does nothing
+	 * unless the sync policy is {@link SyncPolicy#ON_FLUSH}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			if(syncPolicy == SyncPolicy.ON_FLUSH) region.force();
+		}
+	}
+
+	/**
+	 * Force written content to the storage device, regardless of the sync policy.
+	 *
+	 * @see MappedByteBuffer#force()
+	 */
+	public void sync() throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			region.force();
+		}
+	}
+
+	/**
+	 * @return number of bytes in the file that are actually written, including existing bytes in append mode.
+	 */
+	public long length() {
+		synchronized (lock) {
+			return regionStart + region.position();
+		}
+	}
+
+	/**
+	 * @return size of each mapped region in bytes.
+	 */
+	public int getRegionSize() {
+		return regionSize;
+	}
+
+	/**
+	 * @return the sync policy of this writer.
+	 */
+	public SyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
+
+	/**
+	 * Finish encoding, and truncate the file to its real length.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if(closed) return;
+			try {
+				finishEncoding();
+				if(syncPolicy != SyncPolicy.NEVER) region.force();
+				channel.truncate(regionStart + region.position());
+			} finally {
+				closed = true;
+				channel.close();
+			}
+		}
+	}
+
+	@Override
+	void ensureOpen() throws IOException {
+		if(closed) throw new IOException("MappedFileWriter is closed!");
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@code Writer} that writes to a file, and rolls it over when it grows larger than a size limit,
+ * or when a time boundary(e.g. midnight) is passed.
+ *
+ * <p>When rolled over, the active file(e.g. {@code app.log}) is renamed to an archive with an increasing index
+ * ({@code app.1.log}, {@code app.2.log}, ...), and a new active file is opened. Existing archives are never renamed.
+ * Compressing the archive with gzip({@code app.1.log.gz}) and deleting old archives are done on a background thread,
+ * so the thread that writes logs(e.g. the {@code LoggerThread}) only pays for a rename and opening a file.
+ *
+ * <p>Rollover is checked only when the written text ends with {@code '\n'}, so a line is never split between two files,
+ * even if it's written in several calls(e.g. {@code PrintWriter.println} writes the text and the line separator separately).
+ * A file may exceed the size limit by at most one line. A log of several lines(e.g. with a stack trace) that is written
+ * in several calls(e.g. by {@code TaskBufferedLogger}) may still be split at a line boundary.
+ *
+ * <p>If renaming the active file fails(e.g. the archive name exists, or another process holds the file),
+ * the active file is reopened and logs keep being appended to it; the next rollover uses the next index.
+ * That failure, and a failure of compressing or deleting an archive on the background thread, is thrown as an
+ * {@code IOException} by the next {@code write}(after the text is written), {@code flush} or {@code close}.
+ * A {@code PrintWriter} swallows the exception, so when this is the destination of a {@code LoggerThread},
+ * the {@code LoggerThread} reports it to {@code System.err} instead.
+ *
+ * @see io.github.awidesky.guiUtil.thread.LoggerThread#setLogDestination(Writer, boolean)
+ * */
+public class RollingFileWriter extends Writer {
+
+	/** Maximum time {@link #close()} waits for background compression to finish. */
+	private static final long COMPRESSION_WAIT_SECONDS = 60;
+
+	private final Path file;
+	private final Charset cs;
+	private final long maxFileSize;
+	private final ChronoUnit rollingUnit;
+	private final int maxArchives;
+	private final boolean compress;
+	private final Executor executor;
+	/** {@code executor} if it's owned by this writer, {@code null} otherwise. */
+	private final ExecutorService ownExecutor;
+
+	/** Part of the file name before the index. */
+	private final String baseName;
+	/** Part of the file name after the index, including the dot. Empty if the file name has no extension. */
+	private final String extension;
+
+	private FileChannelWriter writer;
+	/** Size of the active file when it was opened. */
+	private long initialSize;
+	/** Time(in epoch milliseconds) of the next time boundary, or {@code Long.MAX_VALUE} if not rolling by time. */
+	private long nextRollTime;
+	private int lastIndex;
+	/** {@code true} if nothing is written or the last written character is {@code '\n'}, so the file can be rolled over. */
+	private boolean atLineStart = true;
+	/**
+	 * Failure of a rollover or the background thread, thrown by the next {@code write}, {@code flush} or {@code close}.
+	 * Guarded by {@code failureLock}, not {@code lock}, so that the background thread never waits for a writer.
+	 */
+	private IOException archiveFailure = null;
+	private final Object failureLock = new Object();
+	private boolean closed = false;
+
+	/**
+	 * Creates a writer that rolls over by size, and compresses archives on its own background thread.
+	 *
+	 * @param file the active log file. Appended if exists.
+	 * @param cs the charset to encode characters
+	 * @param maxFileSize roll over when the file grows larger than this(in bytes)
+	 * @param maxArchives number of archives to keep
+	 * @throws IOException if failed to open the file
+	 */
+	public RollingFileWriter(Path file, Charset cs, long maxFileSize, int maxArchives) throws IOException {
+		this(file, cs, maxFileSize, null, maxArchives, true, null);
+	}
+
+	/**
+	 * Creates a writer.
+	 *
+	 * @param file the active log file. Appended if exists.
+	 * @param cs the charset to encode characters
+	 * @param maxFileSize roll over when the file grows larger than this(in bytes). Zero or negative means no size limit.
+	 * @param rollingUnit roll over at every boundary of this unit in the system default time zone(e.g. {@code ChronoUnit.DAYS}
+	 * 			means every midnight). {@code null} means not to roll over by time.
+	 * @param maxArchives number of archives to keep. Older archives are deleted.
+	 * @param compress whether to compress archives with gzip
+	 * @param executor executor to compress and delete archives. If {@code null}, a daemon thread owned by this writer is used,
+	 * 			and {@link #close()} waits for pending compressions to finish.
+	 * @throws IOException if failed to open the file
+	 * @throws IllegalArgumentException if {@code maxArchives} is negative, or {@code rollingUnit} is longer than a day
+	 */
+	public RollingFileWriter(Path file, Charset cs, long maxFileSize, ChronoUnit rollingUnit, int maxArchives, boolean compress, Executor executor)
+			throws IOException, IllegalArgumentException {
+		if(maxArchives < 0) throw new IllegalArgumentException("Invalid number of archives : " + maxArchives);
+		if(rollingUnit != null && (rollingUnit.compareTo(ChronoUnit.SECONDS) < 0 || rollingUnit.compareTo(ChronoUnit.DAYS) > 0))
+			throw new IllegalArgumentException("Unsupported rolling unit : " + rollingUnit);
+		this.file = file.toAbsolutePath();
+		this.cs = cs;
+		this.maxFileSize = maxFileSize > 0 ? maxFileSize : Long.MAX_VALUE;
+		this.rollingUnit = rollingUnit;
+		this.maxArchives = maxArchives;
+		this.compress = compress;
+		if(executor == null) {
+			ownExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "RollingFileWriter-" + this.file.getFileName());
+				t.setDaemon(true);
+				return t;
+			});
+			this.executor = ownExecutor;
+		} else {
+			ownExecutor = null;
+			this.executor = executor;
+		}
+
+		String name = this.file.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		this.baseName = dot > 0 ? name.substring(0, dot) : name;
+		this.extension = dot > 0 ? name.substring(dot) : "";
+		for(int index : listArchives()) lastIndex = Math.max(lastIndex, index);
+
+		open();
+		nextRollTime = nextBoundary();
+	}
+
+	private void open() throws IOException {
+		writer = new FileChannelWriter(file, cs, true);
+		initialSize = Files.size(file);
+	}
+
+	private long nextBoundary() {
+		if(rollingUnit == null) return Long.MAX_VALUE;
+		return ZonedDateTime.now().truncatedTo(rollingUnit).plus(1, rollingUnit).toInstant().toEpochMilli();
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			if(atLineStart) checkTime();
+			writer.write(cbuf, off, len);
+			if(len > 0) atLineStart = cbuf[off + len - 1] == '\n';
+			if(atLineStart) checkSize();
+			throwArchiveFailure();
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			if(atLineStart) checkTime();
+			writer.write(str, off, len);
+			if(len > 0) atLineStart = str.charAt(off + len - 1) == '\n';
+			if(atLineStart) checkSize();
+			throwArchiveFailure();
+		}
+	}
+
+	private void checkTime() throws IOException {
+		if(System.currentTimeMillis() < nextRollTime) return;
+		nextRollTime = nextBoundary();
+		if(initialSize + writer.bytesWritten() > 0) rollOver();
+	}
+
+	private void checkSize() throws IOException {
+		if(initialSize + writer.bytesWritten() >= maxFileSize) rollOver();
+	}
+
+	/**
+	 * Close the active file, rename it to a new archive, and open a new active file.
+	 * Compression and deletion of old archives are left to the executor.
+	 * If the rename fails, the active file is reopened and the failure is recorded.
+	 */
+	private void rollOver() throws IOException {
+		writer.close();
+		Path archive = archivePath(++lastIndex);
+		try {
+			Files.move(file, archive);
+		} catch (IOException e) {
+			open();
+			recordFailure(e);
+			return;
+		}
+		open();
+		executor.execute(() -> processArchive(archive));
+	}
+
+	/**
+	 * Compress the archive if needed, and delete old archives. Runs on the executor.
+	 */
+	private void processArchive(Path archive) {
+		try {
+			if(compress) compress(archive);
+			deleteOldArchives();
+		} catch (IOException e) {
+			recordFailure(e);
+		}
+	}
+
+	private void recordFailure(IOException e) {
+		synchronized (failureLock) {
+			if(archiveFailure == null) archiveFailure = e;
+			else archiveFailure.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Throw the recorded failure, if any. The failure is thrown only once.
+	 */
+	private void throwArchiveFailure() throws IOException {
+		IOException e;
+		synchronized (failureLock) {
+			e = archiveFailure;
+			archiveFailure = null;
+		}
+		if(e != null) throw new IOException("Failed to roll over " + file, e);
+	}
+
+	private static void compress(Path archive) throws IOException {
+		Path gz = archive.resolveSibling(archive.getFileName() + ".gz");
+		Path tmp = archive.resolveSibling(archive.getFileName() + ".gz.tmp");
+		try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+			Files.copy(archive, os);
+		} catch (NoSuchFileException e) {
+			/* already deleted as an old archive */
+			Files.deleteIfExists(tmp);
+			return;
+		}
+		Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING);
+		Files.deleteIfExists(archive);
+	}
+
+	private void deleteOldArchives() throws IOException {
+		List<Integer> indexes = listArchives();
+		if(indexes.size() <= maxArchives) return;
+		Collections.sort(indexes);
+		for(int i = 0; i < indexes.size() - maxArchives; i++) {
+			Path archive = archivePath(indexes.get(i));
+			Files.deleteIfExists(archive);
+			Files.deleteIfExists(archive.resolveSibling(archive.getFileName() + ".gz"));
+		}
+	}
+
+	/**
+	 * @return indexes of existing archives, each appearing once even if both compressed and uncompressed files exist.
+	 */
+	private List<Integer> listArchives() throws IOException {
+		List<Integer> ret = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(file.getParent())) {
+			for(Path p : ds) {
+				int index = parseIndex(p.getFileName().toString());
+				if(index > 0 && !ret.contains(index)) ret.add(index);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return index of the archive with given name, or {@code -1} if it's not an archive of this file.
+	 */
+	private int parseIndex(String name) {
+		if(name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+		if(!name.startsWith(baseName + ".") || !name.endsWith(extension) || name.length() <= baseName.length() + 1 + extension.length()) return -1;
+		String index = name.substring(baseName.length() + 1, name.length() - extension.length());
+		for(int i = 0; i < index.length(); i++) {
+			if(index.charAt(i) < '0' || index.charAt(i) > '9') return -1;
+		}
+		try {
+			return Integer.parseInt(index);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return path of the uncompressed archive with given index.
+	 */
+	private Path archivePath(int index) {
+		return file.resolveSibling(baseName + "." + index + extension);
+	}
+
+	/**
+	 * @return the active log file.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		synchronized (lock) {
+			ensureOpen();
+			writer.flush();
+			throwArchiveFailure();
+		}
+	}
+
+	/**
+	 * Close the active file. If the background thread is owned by this writer,
+	 * wait for pending compressions to finish.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if(closed) return;
+			closed = true;
+		}
+		/* nothing uses the writer after it's marked closed. wait without the lock, so that the background thread is never blocked by it. */
+		try {
+			writer.close();
+		} finally {
+			if(ownExecutor != null) {
+				ownExecutor.shutdown();
+				try {
+					ownExecutor.awaitTermination(COMPRESSION_WAIT_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		throwArchiveFailure();
+	}
+
+	private void ensureOpen() throws IOException {
+		if(closed) throw new IOException("RollingFileWriter is closed!");
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram of latencies in nanoseconds.
+ *
+ * <p>Each power of two range is divided into {@code 8} linear buckets, so a recorded value is
+ * reported with at most 12.5% error, using a fixed array of {@code 496} counters for the whole {@code long} range.
+ * Recording is a single atomic increment, and never allocates.
+ *
+ * <p>{@link #snapshotAndReset()} reads and clears every bucket, so that the histogram can be reported per interval.
+ * Values recorded while taking a snapshot are counted in either this snapshot or the next one.
+ */
+public final class LatencyHistogram {
+
+	/** Number of bits of linear sub-buckets in each power of two range. */
+	static final int SUB_BUCKET_BITS = 3;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {}
+
+	/**
+	 * Record a latency. Negative values are recorded as {@code 0}.
+	 *
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0) nanos = 0;
+		counts.incrementAndGet(bucketOf(nanos));
+		long m = max.get();
+		while(nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+	}
+
+	/**
+	 * @return current distribution of recorded latencies.
+	 */
+	public LatencySnapshot snapshot() {
+		long[] c = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) c[i] = counts.get(i);
+		return new LatencySnapshot(c, max.get());
+	}
+
+	/**
+	 * @return current distribution of recorded latencies, and clear the histogram.
+	 */
+	public LatencySnapshot snapshotAndReset() {
+		long m = max.getAndSet(0);
+		long[] c = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) c[i] = counts.getAndSet(i, 0);
+		return new LatencySnapshot(c, m);
+	}
+
+	/**
+	 * Clear the histogram.
+	 */
+	public void reset() {
+		snapshotAndReset();
+	}
+
+	static int bucketOf(long v) {
+		if(v < SUB_BUCKETS) return (int) v;
+		int exp = 63 - Long.numberOfLeadingZeros(v);
+		int sub = (int) (v >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return the largest value that belongs to given bucket.
+	 */
+	static long upperBoundOf(int bucket) {
+		if(bucket < SUB_BUCKETS) return bucket;
+		int exp = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int sub = bucket % SUB_BUCKETS;
+		long width = 1L << (exp - SUB_BUCKET_BITS);
+		long lower = (long) (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+		return lower + width - 1 < 0 ? Long.MAX_VALUE : lower + width - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram [" + snapshot().summary() + "]";
+	}
+}
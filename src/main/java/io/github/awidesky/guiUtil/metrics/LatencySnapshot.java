@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.metrics;
+
+import java.util.Locale;
+
+/**
+ * Distribution of latencies recorded in a {@link LatencyHistogram}.
+ * Percentiles are reported as the upper bound of the bucket they fall into(but not larger than the maximum),
+ * so they are never smaller than the actual value.
+ */
+public final class LatencySnapshot {
+
+	private final long[] counts;
+	private final long count;
+	private final long max;
+
+	LatencySnapshot(long[] counts, long max) {
+		this.counts = counts;
+		long n = 0;
+		for(long c : counts) n += c;
+		this.count = n;
+		this.max = max;
+	}
+
+	/**
+	 * @return number of recorded latencies.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the largest recorded latency in nanoseconds, or {@code 0} if nothing is recorded.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the latency that given fraction of recorded latencies are less than or equal to.
+	 *
+	 * @param fraction between {@code 0.0} and {@code 1.0}(e.g. {@code 0.99} for p99)
+	 * @return the latency in nanoseconds, or {@code 0} if nothing is recorded
+	 * @throws IllegalArgumentException if {@code fraction} is out of range
+	 */
+	public long getPercentile(double fraction) throws IllegalArgumentException {
+		if(!(fraction >= 0.0 && fraction <= 1.0)) throw new IllegalArgumentException("Invalid fraction : " + fraction);
+		if(count == 0) return 0;
+		long target = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= target) return Math.min(LatencyHistogram.upperBoundOf(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * @return median latency in nanoseconds.
+	 */
+	public long getP50() {
+		return getPercentile(0.5);
+	}
+
+	/**
+	 * @return 99th percentile latency in nanoseconds.
+	 */
+	public long getP99() {
+		return getPercentile(0.99);
+	}
+
+	/**
+	 * @return 99.9th percentile latency in nanoseconds.
+	 */
+	public long getP999() {
+		return getPercentile(0.999);
+	}
+
+	/**
+	 * Returns a one-line summary, like {@code count=1000, p50=12.3us, p99=45.6us, p99.9=120.0us, max=1.2ms}.
+	 *
+	 * @return summary of this snapshot
+	 */
+	public String summary() {
+		return "count=" + count + ", p50=" + format(getP50()) + ", p99=" + format(getP99())
+				+ ", p99.9=" + format(getP999()) + ", max=" + format(max);
+	}
+
+	private static String format(long nanos) {
+		if(nanos < 1_000L) return nanos + "ns";
+		if(nanos < 1_000_000L) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+		if(nanos < 1_000_000_000L) return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+		return String.format(Locale.ROOT, "%.1fs", nanos / 1e9);
+	}
+
+	@Override
+	public String toString() {
+		return "LatencySnapshot [" + summary() + "]";
+	}
+}
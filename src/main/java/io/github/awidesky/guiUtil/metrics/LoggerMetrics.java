@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and gauges of a logger, that can be read via {@link #snapshot()} or exposed as a JMX MBean.
+ *
+ * <p>Counters are {@link LongAdder}s, so that updating them from many threads does not contend.
+ * Gauges(queue depth, number of dropped logs) are given as {@link LongSupplier}s, and evaluated only when read.
+ * Counters are updated by the logger that owns this object via {@code record} methods.
+ *
+ * <p>{@link #registerMBean(String, String)} registers this object to the platform MBean server under
+ * {@code io.github.awidesky.guiUtil:type=<type>,name=<name>}.
+ */
+public final class LoggerMetrics implements LoggerMetricsMXBean {
+
+	/** Domain of the {@code ObjectName} of registered MBeans. */
+	public static final String JMX_DOMAIN = "io.github.awidesky.guiUtil";
+
+	private final LongAdder enqueued = new LongAdder();
+	private final LongAdder written = new LongAdder();
+	private final LongAdder charsWritten = new LongAdder();
+	private final LongAdder flushes = new LongAdder();
+	private final LongAdder blockedNanos = new LongAdder();
+	private final LongSupplier dropped;
+	private final LongSupplier queueDepth;
+	private ObjectName objectName = null;
+
+	/**
+	 * Creates a metrics object of a logger without a queue.
+	 */
+	public LoggerMetrics() {
+		this(() -> 0L, () -> 0L);
+	}
+
+	/**
+	 * Creates a metrics object.
+	 *
+	 * @param dropped returns number of dropped logs
+	 * @param queueDepth returns number of logs in the queue
+	 */
+	public LoggerMetrics(LongSupplier dropped, LongSupplier queueDepth) {
+		this.dropped = dropped;
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * Record that a log is queued.
+	 */
+	public void recordEnqueued() {
+		enqueued.increment();
+	}
+
+	/**
+	 * Record that logs are written.
+	 *
+	 * @param logs number of written logs
+	 * @param chars number of written characters
+	 */
+	public void recordWritten(long logs, long chars) {
+		if(logs != 0) written.add(logs);
+		if(chars != 0) charsWritten.add(chars);
+	}
+
+	/**
+	 * Record that the destination is flushed.
+	 */
+	public void recordFlush() {
+		flushes.increment();
+	}
+
+	/**
+	 * Record time a producer spent blocked by a full queue.
+	 */
+	public void recordBlocked(long nanos) {
+		blockedNanos.add(nanos);
+	}
+
+	@Override
+	public long getEnqueuedCount() {
+		return enqueued.sum();
+	}
+
+	@Override
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	@Override
+	public long getCharsWritten() {
+		return charsWritten.sum();
+	}
+
+	@Override
+	public long getFlushCount() {
+		return flushes.sum();
+	}
+
+	@Override
+	public long getBlockedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum());
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return dropped.getAsLong();
+	}
+
+	@Override
+	public long getQueueDepth() {
+		return queueDepth.getAsLong();
+	}
+
+	/**
+	 * @return current values of every counter and gauge.
+	 */
+	public MetricsSnapshot snapshot() {
+		return new MetricsSnapshot(System.nanoTime(), enqueued.sum(), written.sum(), charsWritten.sum(), flushes.sum(),
+				blockedNanos.sum(), dropped.getAsLong(), queueDepth.getAsLong());
+	}
+
+	/**
+	 * Register this object to the platform MBean server.
+	 *
+	 * @param type value of the {@code type} key of the {@code ObjectName}(e.g. {@code LoggerThread})
+	 * @param name value of the {@code name} key of the {@code ObjectName}. Quoted if needed.
+	 * @return the {@code ObjectName} this object is registered under
+	 * @throws JMException if failed to register(e.g. an MBean with the same name is already registered)
+	 * @throws IllegalStateException if this object is already registered
+	 */
+	public synchronized ObjectName registerMBean(String type, String name) throws JMException, IllegalStateException {
+		if(objectName != null) throw new IllegalStateException("Already registered as " + objectName);
+		ObjectName on = new ObjectName(JMX_DOMAIN + ":type=" + ObjectName.quote(type) + ",name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		objectName = on;
+		return on;
+	}
+
+	/**
+	 * Unregister this object from the platform MBean server. Does nothing if not registered.
+	 */
+	public synchronized void unregisterMBean() {
+		if(objectName == null) return;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if(server.isRegistered(objectName)) server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			/* already unregistered by someone else */
+		}
+		objectName = null;
+	}
+
+	/**
+	 * @return the {@code ObjectName} this object is registered under, or {@code null} if not registered.
+	 */
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public String toString() {
+		return "LoggerMetrics " + snapshot();
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.metrics;
+
+/**
+ * JMX interface of {@link LoggerMetrics}. Every attribute is read-only.
+ * Rates can be calculated by a monitoring tool from two readings of the counters.
+ */
+public interface LoggerMetricsMXBean {
+
+	/** @return number of logs queued to the logger. */
+	public long getEnqueuedCount();
+	/** @return number of logs written to the destination. */
+	public long getWrittenCount();
+	/** @return number of characters written to the destination. */
+	public long getCharsWritten();
+	/** @return number of times the destination was flushed. */
+	public long getFlushCount();
+	/** @return total time producer threads spent blocked by a full queue, in milliseconds. */
+	public long getBlockedMillis();
+	/** @return number of logs dropped. */
+	public long getDroppedCount();
+	/** @return number of logs currently in the queue. */
+	public long getQueueDepth();
+
+}
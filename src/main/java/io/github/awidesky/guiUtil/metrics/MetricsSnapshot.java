@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.metrics;
+
+/**
+ * Values of a {@link LoggerMetrics} at a point of time.
+ * Each value is read separately, so values may not be consistent with each other while the logger is running.
+ */
+public final class MetricsSnapshot {
+
+	private final long timeNanos;
+	private final long enqueued;
+	private final long written;
+	private final long charsWritten;
+	private final long flushes;
+	private final long blockedNanos;
+	private final long dropped;
+	private final long queueDepth;
+
+	MetricsSnapshot(long timeNanos, long enqueued, long written, long charsWritten, long flushes, long blockedNanos, long dropped, long queueDepth) {
+		this.timeNanos = timeNanos;
+		this.enqueued = enqueued;
+		this.written = written;
+		this.charsWritten = charsWritten;
+		this.flushes = flushes;
+		this.blockedNanos = blockedNanos;
+		this.dropped = dropped;
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * @return {@code System.nanoTime()} when this snapshot was taken.
+	 */
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	/**
+	 * @return number of logs queued to the logger.
+	 */
+	public long getEnqueuedCount() {
+		return enqueued;
+	}
+
+	/**
+	 * @return number of logs written to the destination.
+	 */
+	public long getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * @return number of characters written to the destination.
+	 */
+	public long getCharsWritten() {
+		return charsWritten;
+	}
+
+	/**
+	 * @return number of times the destination was flushed.
+	 */
+	public long getFlushCount() {
+		return flushes;
+	}
+
+	/**
+	 * @return total time producer threads spent blocked by a full queue, in nanoseconds.
+	 */
+	public long getBlockedNanos() {
+		return blockedNanos;
+	}
+
+	/**
+	 * @return number of logs dropped.
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * @return number of logs in the queue when this snapshot was taken.
+	 */
+	public long getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * @return logs queued per second between {@code earlier} and this snapshot.
+	 */
+	public double enqueueRate(MetricsSnapshot earlier) {
+		return perSecond(enqueued - earlier.enqueued, earlier);
+	}
+
+	/**
+	 * @return logs written per second between {@code earlier} and this snapshot.
+	 */
+	public double writeRate(MetricsSnapshot earlier) {
+		return perSecond(written - earlier.written, earlier);
+	}
+
+	private double perSecond(long delta, MetricsSnapshot earlier) {
+		long nanos = timeNanos - earlier.timeNanos;
+		return nanos <= 0 ? 0.0 : delta * 1_000_000_000.0 / nanos;
+	}
+
+	@Override
+	public String toString() {
+		return "MetricsSnapshot [enqueued=" + enqueued + ", written=" + written + ", charsWritten=" + charsWritten
+				+ ", flushes=" + flushes + ", blockedNanos=" + blockedNanos + ", dropped=" + dropped + ", queueDepth=" + queueDepth + "]";
+	}
+}
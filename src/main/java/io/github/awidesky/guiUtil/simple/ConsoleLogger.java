@@ -1,5 +1,6 @@
 package io.github.awidesky.guiUtil.simple;
 
+import java.io.Flushable;
 import java.nio.charset.Charset;
 
 import io.github.awidesky.guiUtil.AbstractLogger;
@@ -9,7 +10,7 @@ import io.github.awidesky.guiUtil.level.Level;
 /**
  * Logs to the console via {@code System.out}.
  */
-public class ConsoleLogger extends AbstractLogger {
+public class ConsoleLogger extends AbstractLogger implements Flushable {
 
 	private boolean autoFlush;
 
@@ -36,6 +37,14 @@ public class ConsoleLogger extends AbstractLogger {
 		System.out.println(str);		
 	}
 	
+	/**
+	 * Flushes {@code System.out}.
+	 */
+	@Override
+	public void flush() {
+		System.out.flush();
+	}
+
 	/**
 	 * Do noting because we shouldn't close {@code System.out}.
 	 */
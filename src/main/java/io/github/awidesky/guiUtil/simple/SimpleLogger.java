@@ -9,6 +9,7 @@
 
 package io.github.awidesky.guiUtil.simple;
 
+import java.io.Flushable;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -16,16 +17,20 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 
 import io.github.awidesky.guiUtil.AbstractLogger;
+import io.github.awidesky.guiUtil.metrics.LoggerMetrics;
 
 /**
  * A Simple Logger class that prints log to given {@code OutputStream}.
  * 
  * @author Eugene Hong
  * */
-public class SimpleLogger extends AbstractLogger {
+public class SimpleLogger extends AbstractLogger implements Flushable {
 	
 	private PrintWriter logTo;
 	private boolean close = true;
+	private boolean autoFlush;
+	private final LoggerMetrics metrics = new LoggerMetrics();
+	private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().length();
 	
 	/**
 	 * Creates a logger with given {@code OutputStream}.
@@ -65,6 +70,24 @@ public class SimpleLogger extends AbstractLogger {
 	 * */
 	public SimpleLogger(Writer wt, boolean autoFlush) {
 		logTo = new PrintWriter(wt, autoFlush);
+		this.autoFlush = autoFlush;
+	}
+	
+	/**
+	 * Returns counters of this logger. Logs are written synchronously, so queued and written counts are always the same,
+	 * and queue depth is always {@code 0}.<br>
+	 * It can be exposed as a JMX MBean via {@link LoggerMetrics#registerMBean(String, String)}.
+	 * 
+	 * @return metrics of this logger
+	 */
+	public LoggerMetrics getMetrics() {
+		return metrics;
+	}
+	
+	private void record(int chars) {
+		metrics.recordEnqueued();
+		metrics.recordWritten(1, chars + LINE_SEPARATOR_LENGTH);
+		if(autoFlush) metrics.recordFlush();
 	}
 	
 	/**
@@ -73,9 +96,19 @@ public class SimpleLogger extends AbstractLogger {
 	@Override
 	public void newLine() {
 		logTo.println();
+		record(0);
 	}
 
 
+	/**
+	 * Flushes the {@code OutputStream}(or {@code Writer}) of this logger.
+	 * */
+	@Override
+	public void flush() {
+		logTo.flush();
+		metrics.recordFlush();
+	}
+
 	/**
 	 * Closes this logger and releases any system resources associated with it.
 	 * If the logger is already closed then invoking this method has no effect.
@@ -83,13 +116,16 @@ public class SimpleLogger extends AbstractLogger {
 	@Override
 	public void close() {
 		logTo.flush();
+		metrics.recordFlush();
 		if(close) logTo.close();
+		metrics.unregisterMBean();
 	}
 
 
 	@Override
 	protected void consumeLogString(String str) {
 		logTo.println(str);
+		record(str.length());
 	}
 
 }
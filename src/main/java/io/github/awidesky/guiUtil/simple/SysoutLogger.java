@@ -29,10 +29,18 @@ public class SysoutLogger extends ConsoleLogger {
 		throw new UnsupportedOperationException("This method should not be called!");
 	}
 	
+	/**
+	 * Flushes {@code System.err} and {@code System.out}.
+	 */
 	@Override
-	public void close() {
+	public void flush() {
 		System.err.flush();
 		System.out.flush();
 	}
 
+	@Override
+	public void close() {
+		flush();
+	}
+
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * An unsynchronized character buffer that stores characters in a list of chunks.
+ * Unlike {@code StringBuilder}, growing the buffer never copies characters already buffered,
+ * and buffered characters can be written without being copied to a {@code String}.
+ *
+ * <p>A {@code ChunkedCharBuffer} is owned by one thread. Once handed off to another thread
+ * (e.g. captured in a log task), it must not be modified.
+ */
+final class ChunkedCharBuffer {
+
+	/** Size of the first chunk. Each next chunk is twice as large, up to {@code MAX_CHUNK_SIZE}. */
+	static final int MIN_CHUNK_SIZE = 256;
+	static final int MAX_CHUNK_SIZE = 8 * 1024;
+
+	/** Full chunks, not including the current one. */
+	private final ArrayList<char[]> chunks = new ArrayList<>(4);
+	private char[] current = new char[MIN_CHUNK_SIZE];
+	private int pos = 0;
+	private long length = 0;
+
+	/**
+	 * Append given characters.
+	 */
+	public void append(CharSequence str) {
+		int len = str.length();
+		int off = 0;
+		while (off < len) {
+			if (pos == current.length) nextChunk();
+			int n = Math.min(len - off, current.length - pos);
+			if (str instanceof String s) s.getChars(off, off + n, current, pos);
+			else if (str instanceof StringBuilder sb) sb.getChars(off, off + n, current, pos);
+			else for (int i = 0; i < n; i++) current[pos + i] = str.charAt(off + i);
+			pos += n;
+			off += n;
+		}
+		length += len;
+	}
+
+	private void nextChunk() {
+		chunks.add(current);
+		current = new char[Math.min(current.length * 2, MAX_CHUNK_SIZE)];
+		pos = 0;
+	}
+
+	/**
+	 * @return number of buffered characters.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Write every buffered characters to given {@code PrintWriter}, chunk by chunk.
+	 */
+	public void writeTo(PrintWriter out) {
+		for (char[] chunk : chunks) out.write(chunk, 0, chunk.length);
+		out.write(current, 0, pos);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE));
+		for (char[] chunk : chunks) sb.append(chunk);
+		sb.append(current, 0, pos);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.time.Instant;
+
+import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+
+/**
+ * A {@code TaskBufferedLogger} that keeps the last logs of every level in a fixed-size ring,
+ * and writes logs below its log level only when a log at or above the trigger level arrives.
+ *
+ * <p>Every log is captured in the ring with its level, prefix, message, time and thread name, without being formatted.
+ * When it's formatted later, the captured time and thread name are used(see
+ * {@link LogFormatter#format(StringBuilder, Level, String, CharSequence, Instant, String)}).
+ * When a log at or above the trigger level({@code ERROR} by default) is captured, every log in the ring is formatted
+ * and flushed to the parent {@code LoggerThread} in order, so that the error is written with its {@code DEBUG}
+ * or {@code TRACE} context. When a log is pushed out of the ring or the logger is flushed(or closed),
+ * it is buffered only if its level is enabled by the log level of this logger, and discarded otherwise.
+ * So the output is the same as {@code TaskBufferedLogger} until an error occurs, and logs are kept in order.
+ *
+ * <p>Like {@code TaskBufferedLogger}, a {@code FingersCrossedLogger} should be used by only one thread at a time.
+ * */
+public abstract class FingersCrossedLogger extends TaskBufferedLogger {
+
+	private final Level[] levels;
+	private final String[] prefixes;
+	private final String[] messages;
+	private final Instant[] timestamps;
+	private final String[] threadNames;
+	/** Index of the oldest log in the ring. */
+	private int head = 0;
+	private int size = 0;
+	private Level triggerLevel = Level.ERROR;
+
+	/**
+	 * Creates a fingers-crossed logger.
+	 *
+	 * @param capacity number of logs kept in the ring
+	 * @throws IllegalArgumentException if {@code capacity} is not positive
+	 * */
+	FingersCrossedLogger(LogFormatter formatter, Level level, int capacity) throws IllegalArgumentException {
+		super(formatter, level);
+		if(capacity <= 0) throw new IllegalArgumentException("Invalid ring capacity : " + capacity);
+		levels = new Level[capacity];
+		prefixes = new String[capacity];
+		messages = new String[capacity];
+		timestamps = new Instant[capacity];
+		threadNames = new String[capacity];
+	}
+
+	/**
+	 * Set level of logs that trigger writing the whole ring. Default is {@code ERROR}.
+	 *
+	 * @param triggerLevel logs at this level or more severe trigger writing
+	 */
+	public void setTriggerLevel(Level triggerLevel) {
+		this.triggerLevel = triggerLevel;
+	}
+
+	/**
+	 * @return level of logs that trigger writing the whole ring.
+	 */
+	public Level getTriggerLevel() {
+		return triggerLevel;
+	}
+
+	/**
+	 * @return number of logs kept in the ring.
+	 */
+	public int getCapacity() {
+		return levels.length;
+	}
+
+	/**
+	 * Capture a log of any level to the ring. The log level of this logger is not checked here,
+	 * but when the log is pushed out of the ring.
+	 */
+	@Override
+	public void logInLevel(Level level, CharSequence str) {
+		writeString(level, str);
+	}
+
+	/**
+	 * Logs of every level are captured, so lazy log messages are always generated.
+	 */
+	@Override
+	protected boolean isLoggable(Level level) {
+		return true;
+	}
+
+	@Override
+	protected void writeString(Level level, CharSequence str) {
+		capture(level, str.toString());
+		if(triggerLevel.includes(level)) {
+			while(size > 0) release(true);
+			submit(level);
+		}
+	}
+
+	@Override
+	public void newLine() {
+		capture(null, null);
+	}
+
+	/**
+	 * Write logs in the ring that are enabled by the log level of this logger and discard others,
+	 * then submit buffered logs to the parent {@code LoggerThread}.
+	 * */
+	@Override
+	public void flush() {
+		while(size > 0) release(false);
+		super.flush();
+	}
+
+	private void capture(Level level, String msg) {
+		if(size == levels.length) release(false);
+		int i = (head + size) % levels.length;
+		levels[i] = level;
+		prefixes[i] = prefix;
+		messages[i] = msg;
+		if(msg != null) {
+			timestamps[i] = Instant.now();
+			threadNames[i] = Thread.currentThread().getName();
+		}
+		size++;
+	}
+
+	/**
+	 * Remove the oldest log from the ring, and buffer it if {@code all} is {@code true} or it's enabled.
+	 * A {@code null} message means a line separator.
+	 */
+	private void release(boolean all) {
+		Level l = levels[head];
+		String p = prefixes[head];
+		String msg = messages[head];
+		Instant timestamp = timestamps[head];
+		String threadName = threadNames[head];
+		levels[head] = null;
+		prefixes[head] = null;
+		messages[head] = null;
+		timestamps[head] = null;
+		threadNames[head] = null;
+		head = (head + 1) % levels.length;
+		size--;
+
+		if(msg == null) {
+			super.newLine();
+		} else if(all || level.includes(l)) {
+			StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+			try {
+				formatter.format(sb, l, p, msg, timestamp, threadName);
+				consumeLogString(l, sb.toString());
+			} finally {
+				SimpleLogFormatter.builderPool().release(sb);
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A {@link LogQueue} backed by a {@link LinkedBlockingQueue}.
+ * An unbounded {@code LinkedLogQueue} is the default queue of a {@code LoggerThread}.
+ *
+ * <p>Every claimed {@code LogEvent} is newly allocated(with a message buffer of the exact size of the message),
+ * and every producer contends on the same put lock.
+ * If many threads are logging at high rate, consider using {@link RingBufferLogQueue}.
+ * */
+public class LinkedLogQueue implements LogQueue {
+
+	private final LinkedBlockingQueue<LogEvent> queue = new LinkedBlockingQueue<>();
+	/** Permits for claiming an event. {@code null} if unbounded. */
+	private final Semaphore permits;
+	/** An event that is taken by {@code await}, but not handled yet. Used only in the consumer thread. */
+	private LogEvent pending = null;
+
+	/**
+	 * Creates an unbounded queue.
+	 */
+	public LinkedLogQueue() {
+		permits = null;
+	}
+
+	/**
+	 * Creates a queue with given capacity.
+	 * 
+	 * @param capacity the capacity of this queue
+	 * @throws IllegalArgumentException if {@code capacity} is not greater than zero
+	 * @see OverflowPolicy
+	 */
+	public LinkedLogQueue(int capacity) throws IllegalArgumentException {
+		if(capacity <= 0) throw new IllegalArgumentException("Invalid queue capacity : " + capacity);
+		permits = new Semaphore(capacity);
+	}
+
+	@Override
+	public LogEvent claim() throws InterruptedException {
+		if(permits != null) permits.acquire();
+		return new LogEvent(false);
+	}
+
+	@Override
+	public LogEvent tryClaim() {
+		if(permits != null && !permits.tryAcquire()) return null;
+		return new LogEvent(false);
+	}
+
+	@Override
+	public void publish(LogEvent event) {
+		queue.offer(event);
+	}
+
+	@Override
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		if(pending == null) pending = queue.poll(timeout, unit);
+		return pending != null;
+	}
+
+	@Override
+	public int drain(Consumer<LogEvent> handler, int maxEvents) {
+		int n = 0;
+		LogEvent event = pending;
+		pending = null;
+		if(event == null) event = queue.poll();
+		while(event != null) {
+			try {
+				handler.accept(event);
+			} finally {
+				if(permits != null) permits.release();
+			}
+			if(++n >= maxEvents) break;
+			event = queue.poll();
+		}
+		return n;
+	}
+
+	@Override
+	public boolean evict(Consumer<LogEvent> handler) {
+		LogEvent event = queue.poll();
+		if(event == null) return false;
+		try {
+			handler.accept(event);
+		} finally {
+			if(permits != null) permits.release();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return pending == null && queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return queue.size() + (pending == null ? 0 : 1);
+	}
+
+}
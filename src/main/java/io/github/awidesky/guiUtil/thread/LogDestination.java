@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+
+/**
+ * An additional destination of a {@code LoggerThread}, that receives the same stream of logs
+ * as the main destination({@link LoggerThread#setLogDestination(Writer, boolean)}).
+ *
+ * <p>Each {@code LogDestination} has its own level threshold, {@code LogFormatter}, buffer and writer thread.
+ * The {@code LoggerThread} only formats the log and puts it into the buffer of each destination,
+ * so a slow destination(e.g. a console) does not stall other destinations.
+ * If the buffer of a destination is full, logs to that destination are dropped, and the number of dropped logs
+ * is written to the destination when the buffer becomes empty.
+ *
+ * <p>If {@link LogDestination#setLogFormatter(LogFormatter)} is not called, logs are written in the same format
+ * as the main destination. Otherwise, {@code TaskLogger}s pass the raw message of logs whose level is accepted by
+ * this destination along with the formatted one, and the {@code LoggerThread} formats it once per distinct
+ * {@code LogFormatter}. The log written to the main destination is still formatted by the {@code TaskLogger}
+ * (unless {@link LoggerThread.LoggerBuilder#setDeferredFormatting(boolean)} is set), so adding a destination does not
+ * change the main destination. The {@code LogFormatter} of this destination should override
+ * {@link LogFormatter#format(StringBuilder, Level, String, CharSequence, java.time.Instant, String)};
+ * otherwise, time and thread of those logs are those of the {@code LoggerThread}.
+ * Logs that are already formatted(logs from {@code TaskBufferedLogger}, {@code newLine()}, etc.) are written as they are.
+ *
+ * <p>The level threshold and the formatter must be set before the destination is added to a {@code LoggerThread}
+ * via {@link LoggerThread#addLogDestination(LogDestination)}. A destination can be added to only one {@code LoggerThread},
+ * and it's closed when the {@code LoggerThread} terminates.
+ * */
+public class LogDestination {
+
+	/** Default capacity of the buffer. */
+	public static final int DEFAULT_CAPACITY = 8192;
+	/** Interval of checking whether the destination is closed while waiting for a log. */
+	private static final long STOP_CHECK_INTERVAL_MILLIS = 50;
+
+	private final String name;
+	private final Writer writer;
+	private final boolean autoFlush;
+	/** Formatted texts, and flush markers({@code CompletableFuture<Void>}) that are completed when handled. */
+	private final LinkedBlockingQueue<Object> buffer;
+	/**
+	 * Flush markers that did not fit in the full buffer. Every log before them is in the buffer,
+	 * so they are completed when the buffer becomes empty.
+	 */
+	private final ConcurrentLinkedQueue<CompletableFuture<Void>> overflowMarkers = new ConcurrentLinkedQueue<>();
+	private final LongAdder droppedCount = new LongAdder();
+	private final Thread worker;
+
+	private Level level = Level.TRACE;
+	private LogFormatter formatter = null;
+	private volatile boolean added = false;
+	private volatile boolean isStop = false;
+	/** The exception that failed the writer thread, or {@code null}. Set before the buffer is drained. */
+	private volatile Throwable failure = null;
+
+	/**
+	 * Creates a destination that writes logs to given {@code Writer}, with {@link LogDestination#DEFAULT_CAPACITY}.
+	 *
+	 * @param name name of this destination, used as the name of the writer thread
+	 * @param writer the destination
+	 * @param autoFlush if {@code true}, {@code writer} is flushed whenever the buffer becomes empty
+	 */
+	public LogDestination(String name, Writer writer, boolean autoFlush) {
+		this(name, writer, autoFlush, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a destination that writes logs to given {@code OutputStream}, encoded in given {@code Charset}.
+	 *
+	 * @param name name of this destination, used as the name of the writer thread
+	 * @param os the destination
+	 * @param cs the charset to encode logs
+	 * @param autoFlush if {@code true}, {@code os} is flushed whenever the buffer becomes empty
+	 */
+	public LogDestination(String name, OutputStream os, Charset cs, boolean autoFlush) {
+		this(name, new OutputStreamWriter(os, cs), autoFlush, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a destination that writes logs to given {@code Writer}.
+	 *
+	 * @param name name of this destination, used as the name of the writer thread
+	 * @param writer the destination
+	 * @param autoFlush if {@code true}, {@code writer} is flushed whenever the buffer becomes empty
+	 * @param capacity maximum number of logs that can be buffered
+	 * @throws IllegalArgumentException if {@code capacity} is not positive
+	 */
+	public LogDestination(String name, Writer writer, boolean autoFlush, int capacity) throws IllegalArgumentException {
+		if(capacity <= 0) throw new IllegalArgumentException("Invalid buffer capacity : " + capacity);
+		this.name = name;
+		this.writer = writer;
+		this.autoFlush = autoFlush;
+		this.buffer = new LinkedBlockingQueue<>(capacity);
+		this.worker = new Thread(this::run, "LogDestination-" + name);
+	}
+
+	/**
+	 * Set the level threshold of this destination. Logs whose level is not included in {@code level} are not written.
+	 * Logs without a level are always written.
+	 * Default value is {@link Level#TRACE}.
+	 *
+	 * @throws IllegalStateException if this destination is already added to a {@code LoggerThread}
+	 */
+	public void setLevel(Level level) throws IllegalStateException {
+		checkNotAdded();
+		this.level = level;
+	}
+
+	/**
+	 * @return the level threshold of this destination.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Set the formatter of this destination. If {@code null}(default), logs are written in the same format
+	 * as the main destination.
+	 *
+	 * @throws IllegalStateException if this destination is already added to a {@code LoggerThread}
+	 */
+	public void setLogFormatter(LogFormatter formatter) throws IllegalStateException {
+		checkNotAdded();
+		this.formatter = formatter;
+	}
+
+	/**
+	 * @return the formatter of this destination, or {@code null} if logs are written in the same format as the main destination.
+	 */
+	public LogFormatter getLogFormatter() {
+		return formatter;
+	}
+
+	/**
+	 * @return name of this destination.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return number of logs dropped because the buffer was full.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	private void checkNotAdded() throws IllegalStateException {
+		if(added) throw new IllegalStateException("LogDestination " + name + " is already added to a LoggerThread, cannot modify!");
+	}
+
+	/**
+	 * @return {@code true} if a log of given level should be written to this destination.
+	 */
+	boolean accepts(Level logLevel) {
+		return logLevel == null || level.includes(logLevel);
+	}
+
+	/**
+	 * Mark this destination as added to a {@code LoggerThread}, and start the writer thread.
+	 *
+	 * @throws IllegalStateException if this destination is already added to a {@code LoggerThread}
+	 */
+	synchronized void start() throws IllegalStateException {
+		checkNotAdded();
+		added = true;
+		worker.start();
+	}
+
+	/**
+	 * Put a formatted text(including line separator) to the buffer without waiting.
+	 * If the buffer is full, or the writer thread has failed, the text is dropped.
+	 */
+	void write(String text) {
+		if(failure != null || !buffer.offer(text)) droppedCount.increment();
+	}
+
+	/**
+	 * Queue a flush marker, that completes returned future after every log buffered before it is written
+	 * and the writer is flushed. The marker is never dropped, and this never waits(the caller is the {@code LoggerThread});
+	 * if the buffer is full, the marker is completed when the buffer becomes empty.
+	 * If the writer thread fails or terminates before handling the marker, the future completes exceptionally.
+	 */
+	CompletableFuture<Void> flush() {
+		CompletableFuture<Void> marker = new CompletableFuture<>();
+		if(!buffer.offer(marker)) overflowMarkers.add(marker);
+		/*
+		 * the writer thread does not handle markers after it's terminated, or after it has drained the buffer on failure.
+		 * failure is set before draining, so a marker offered after the drain sees it here.
+		 */
+		Throwable t = failure;
+		if(t != null) marker.completeExceptionally(t);
+		else if(!worker.isAlive()) marker.completeExceptionally(new IllegalStateException("LogDestination " + name + " is closed!"));
+		return marker;
+	}
+
+	/**
+	 * Write every buffered log and close the destination.
+	 * Waits at most {@code timeOut} milliseconds for the writer thread to die. A timeout of {@code 0} means to wait forever.
+	 */
+	void close(long timeOut) throws InterruptedException {
+		isStop = true;
+		if(worker.isAlive()) worker.join(timeOut);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void run() {
+		ArrayList<Object> batch = new ArrayList<>();
+		/* overflow markers taken before the buffer was seen empty the last time */
+		ArrayList<CompletableFuture<Void>> waiting = new ArrayList<>();
+		long reportedDropCount = 0;
+		try (writer) {
+			while(!(isStop && buffer.isEmpty())) {
+				Object text = buffer.poll(STOP_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if(text != null) {
+					batch.add(text);
+					buffer.drainTo(batch);
+					for(Object o : batch) {
+						if(o instanceof String s) {
+							writer.write(s);
+						} else {
+							writer.flush();
+							((CompletableFuture<Void>) o).complete(null);
+						}
+					}
+					batch.clear();
+				}
+
+				/* take overflow markers before checking the buffer, so that logs before them are surely written */
+				for(CompletableFuture<Void> marker; (marker = overflowMarkers.poll()) != null;) waiting.add(marker);
+				if(buffer.isEmpty()) {
+					long dropped = droppedCount.sum();
+					if(dropped != reportedDropCount) {
+						writer.write((dropped - reportedDropCount) + " events dropped due to LogDestination buffer overflow" + System.lineSeparator());
+						reportedDropCount = dropped;
+					}
+					if(!waiting.isEmpty() || (autoFlush && text != null)) writer.flush();
+					for(CompletableFuture<Void> marker : waiting) marker.complete(null);
+					waiting.clear();
+				}
+			}
+			/* the buffer is empty, and nothing is queued after close() */
+			for(CompletableFuture<Void> marker; (marker = overflowMarkers.poll()) != null;) waiting.add(marker);
+			writer.flush();
+			for(CompletableFuture<Void> marker : waiting) marker.complete(null);
+		} catch (InterruptedException | IOException | RuntimeException | Error e) {
+			/* the writer cannot be used anymore. just drop remaining logs, and fail flush markers. */
+			failure = e;
+			batch.addAll(buffer);
+			buffer.clear();
+			batch.addAll(waiting);
+			batch.addAll(overflowMarkers);
+			overflowMarkers.clear();
+			for(Object o : batch) {
+				if(o instanceof CompletableFuture<?> marker) marker.completeExceptionally(e);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LogDestination [name=" + name + ", level=" + level + ", formatter=" + formatter + ", buffered=" + buffer.size() + "]";
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+
+/**
+ * A mutable carrier of a single log, passed from a child {@code TaskLogger} to the {@code LoggerThread} via {@link LogQueue}.
+ * 
+ * <p>A {@code LogEvent} either holds a formatted log message, a raw log message with the {@code LogFormatter}
+ * to format it later(deferred formatting), both of them(when an additional destination formats the log with its own
+ * {@code LogFormatter}), or a raw log task({@code Consumer<PrintWriter>}).
+ * {@code LogEvent}s are owned by the {@code LogQueue}; {@link RingBufferLogQueue} allocates one {@code LogEvent}
+ * per slot when the slot is claimed first, and recycles it after the {@code LoggerThread} writes it, so that logging
+ * a {@code CharSequence} does not allocate any object once every slot is used. {@link LinkedLogQueue} allocates a new {@code LogEvent} per log instead, whose message buffer
+ * is allocated in the exact size of the message.<br>
+ * Therefore, a {@code LogEvent} must not be referenced after it's published or handled.
+ * */
+public final class LogEvent {
+
+	/** Initial capacity of the message buffer. */
+	private static final int INITIAL_CAPACITY = 256;
+	/** Message buffer larger than this is discarded on recycle, so that a single huge message does not pin memory forever. */
+	private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+	/** A log task that does nothing. Used for an event whose content could not be filled. */
+	private static final Consumer<PrintWriter> DISCARDED = logTo -> {};
+
+	private Level level;
+	private String prefix;
+	/** {@code true} if this event is recycled by its queue, so that its message buffer is retained. */
+	private final boolean recycled;
+	/** The message buffer. Allocated when a message is set first. */
+	private StringBuilder message = null;
+	/**
+	 * The raw message, kept along with the formatted one in the message buffer so that additional destinations can
+	 * format it again. Allocated when such a message is set first.
+	 */
+	private StringBuilder raw = null;
+	/** {@code true} if the message buffer is formatted, and the raw message is kept in {@code raw}. */
+	private boolean keepsRaw = false;
+	/** Time and thread of the log. Captured only if the raw message is kept. */
+	private Instant timestamp;
+	private String threadName;
+	private Consumer<PrintWriter> task;
+	/** The formatter to format the message with, if the raw message is kept. */
+	private LogFormatter formatter;
+
+	/** Sequence number given by the queue. */
+	long sequence;
+	/** Global order of this event among all producers. Used by {@link StripedLogQueue} to merge events in order. */
+	long order;
+	/** {@code System.nanoTime()} when this event was queued, or {@code 0} if latency is not tracked. */
+	long enqueueNanos;
+	/** If not {@code null}, this event is a flush marker that completes this future when handled. */
+	CompletableFuture<Void> barrier;
+
+	/** Creates an empty {@code LogEvent} that is recycled by its queue. */
+	LogEvent() {
+		this(true);
+	}
+
+	/**
+	 * Creates an empty {@code LogEvent}.
+	 * 
+	 * @param recycled {@code true} if the event is reused for other logs after it's handled
+	 */
+	LogEvent(boolean recycled) {
+		this.recycled = recycled;
+	}
+
+	/**
+	 * Fill this event with a log message formatted by given formatter.
+	 */
+	void set(Level level, String prefix, CharSequence msg, LogFormatter formatter) {
+		this.level = level;
+		this.prefix = prefix;
+		if(recycled) {
+			formatter.format(buffer(), level, prefix, msg);
+			return;
+		}
+		/* this event is used only once, so don't allocate a buffer larger than the message */
+		StringBuilder sb = SimpleLogFormatter.builderPool().acquire();
+		try {
+			formatter.format(sb, level, prefix, msg);
+			message = new StringBuilder(sb);
+		} finally {
+			SimpleLogFormatter.builderPool().release(sb);
+		}
+	}
+
+	/**
+	 * Fill this event with a raw log message, that will be formatted by given formatter
+	 * when {@link LogEvent#formatTo(StringBuilder)} is called.
+	 * Time and thread of the log are captured, since they are formatted later in another thread.
+	 */
+	void setDeferred(Level level, String prefix, CharSequence msg, LogFormatter formatter) {
+		this.level = level;
+		this.prefix = prefix;
+		if(recycled) buffer().append(msg);
+		else message = new StringBuilder(msg);
+		this.timestamp = Instant.now();
+		this.threadName = Thread.currentThread().getName();
+		this.formatter = formatter;
+	}
+
+	/**
+	 * Fill this event with a log message formatted by given formatter, and keep the raw message too,
+	 * so that it can be formatted again by {@link LogEvent#formatTo(StringBuilder, LogFormatter)}.
+	 * Time and thread of the log are captured, since the raw message is formatted later in another thread.
+	 */
+	void setKeepingRaw(Level level, String prefix, CharSequence msg, LogFormatter formatter) {
+		set(level, prefix, msg, formatter);
+		if(raw == null) raw = new StringBuilder(recycled ? Math.max(INITIAL_CAPACITY, msg.length()) : msg.length());
+		raw.append(msg);
+		this.keepsRaw = true;
+		this.timestamp = Instant.now();
+		this.threadName = Thread.currentThread().getName();
+		this.formatter = formatter;
+	}
+
+	/**
+	 * Fill this event with a raw log task.
+	 */
+	void set(Level level, Consumer<PrintWriter> task) {
+		this.level = level;
+		this.task = task;
+	}
+
+	/**
+	 * Make this event a flush marker, that writes nothing and completes given future when handled.
+	 */
+	void setBarrier(CompletableFuture<Void> barrier) {
+		this.barrier = barrier;
+	}
+
+	/**
+	 * @return the message buffer, allocated if this event has none.
+	 */
+	private StringBuilder buffer() {
+		if(message == null) message = new StringBuilder(INITIAL_CAPACITY);
+		return message;
+	}
+
+	/**
+	 * Fill this event with the content of given event, so that it can be kept after {@code other} is recycled.
+	 */
+	void copyFrom(LogEvent other) {
+		clear();
+		level = other.level;
+		prefix = other.prefix;
+		if(other.message != null) buffer().append(other.message);
+		if(other.keepsRaw) {
+			raw = new StringBuilder(other.raw);
+			keepsRaw = true;
+		}
+		timestamp = other.timestamp;
+		threadName = other.threadName;
+		task = other.task;
+		formatter = other.formatter;
+		order = other.order;
+		enqueueNanos = other.enqueueNanos;
+		barrier = other.barrier;
+	}
+
+	/**
+	 * Make this event write nothing. Used when filling the event failed after it's claimed,
+	 * or when an event is published only to wake the consumer up.
+	 */
+	void discard() {
+		clear();
+		task = DISCARDED;
+	}
+
+	/**
+	 * @return {@code true} if this event is discarded and writes nothing.
+	 */
+	boolean isDiscarded() {
+		return task == DISCARDED;
+	}
+
+	/**
+	 * Clear this event so that it can be reused.
+	 */
+	void clear() {
+		level = null;
+		prefix = null;
+		timestamp = null;
+		threadName = null;
+		task = null;
+		formatter = null;
+		enqueueNanos = 0;
+		barrier = null;
+		if(keepsRaw) {
+			keepsRaw = false;
+			if(!recycled || raw.capacity() > MAX_RETAINED_CAPACITY) raw = null;
+			else raw.setLength(0);
+		}
+		if(message == null) return;
+		if(!recycled || message.capacity() > MAX_RETAINED_CAPACITY) message = null;
+		else message.setLength(0);
+	}
+
+	/**
+	 * @return level of this log. {@code null} if the log does not have a level.
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return the prefix of the logger that generated this log. May be {@code null}.
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * Returns the formatted message of this log, without a line separator.
+	 * If formatting is deferred, the raw message is returned.
+	 * The content is valid only until this event is recycled.
+	 * 
+	 * @return the message. Empty if this event holds a log task.
+	 */
+	public CharSequence getMessage() {
+		return message == null ? "" : message;
+	}
+
+	/**
+	 * @return the time when this log was generated, or {@code null} if formatting is not deferred and the raw message
+	 * is not kept(the time is already formatted in the message).
+	 */
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return name of the thread that generated this log, or {@code null} if formatting is not deferred and the raw message
+	 * is not kept.
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+
+	/**
+	 * @return the raw log task, or {@code null} if this event holds a formatted message.
+	 */
+	public Consumer<PrintWriter> getTask() {
+		return task;
+	}
+
+	/**
+	 * @return {@code true} if the message of this event is not formatted yet.
+	 */
+	boolean isDeferred() {
+		return formatter != null && !keepsRaw;
+	}
+
+	/**
+	 * @return {@code true} if the raw message of this event can be formatted by another formatter,
+	 * 			because formatting is deferred or the raw message is kept.
+	 */
+	boolean hasRawMessage() {
+		return formatter != null;
+	}
+
+	/**
+	 * Format the raw message of this event as if it was formatted by the thread that generated it, at the time it was generated.
+	 */
+	void formatTo(StringBuilder sb) {
+		formatTo(sb, formatter);
+	}
+
+	/**
+	 * Format the raw message of this event with given formatter, as if it was formatted by the thread that generated it,
+	 * at the time it was generated.
+	 */
+	void formatTo(StringBuilder sb, LogFormatter formatter) {
+		formatter.format(sb, level, prefix, keepsRaw ? raw : getMessage(), timestamp, threadName);
+	}
+
+	/**
+	 * @return the formatter of this event if formatting is deferred or the raw message is kept, otherwise {@code null}.
+	 */
+	LogFormatter formatter() {
+		return formatter;
+	}
+
+	/**
+	 * @return the message buffer of this event.
+	 */
+	StringBuilder messageBuffer() {
+		return buffer();
+	}
+
+	@Override
+	public String toString() {
+		return "LogEvent [level=" + level + ", thread=" + threadName + ", " + (task != null ? "task=" + task : "message=" + getMessage()) + "]";
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A queue of {@link LogEvent}s that connects child {@code TaskLogger}s(producers) to the {@code LoggerThread}(consumer).
+ *
+ * <p>A producer claims an empty {@code LogEvent} from the queue via {@link LogQueue#claim()} or {@link LogQueue#tryClaim()},
+ * fills it, and then publishes it via {@link LogQueue#publish(LogEvent)}. Every claimed event must be published,
+ * even if filling it failed.
+ * The consumer waits for published events via {@link LogQueue#await(long, TimeUnit)} and handles them in place
+ * via {@link LogQueue#drain(Consumer, int)}. After the handler returns, the event is recycled by the queue.
+ *
+ * <p>Implementations must accept events from any number of threads, but only the owning {@code LoggerThread}
+ * takes events out of the queue. Events published by a single thread must be handled in the order they were published.
+ *
+ * @see LinkedLogQueue
+ * @see RingBufferLogQueue
+ * @see LoggerThread#LoggerThread(LogQueue)
+ * */
+public interface LogQueue {
+
+	/**
+	 * Claim an empty log event, waiting if necessary for space to become available.
+	 *
+	 * @return an empty log event that must be published
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public LogEvent claim() throws InterruptedException;
+
+	/**
+	 * Claim an empty log event if it is possible to do so immediately.
+	 *
+	 * @return an empty log event that must be published, or {@code null} if the queue is full
+	 */
+	public LogEvent tryClaim();
+
+	/**
+	 * Publish a log event that was claimed from this queue, so that the consumer can handle it.
+	 *
+	 * @param event the filled log event
+	 */
+	public void publish(LogEvent event);
+
+	/**
+	 * Waits up to the specified wait time until a published log event is available.
+	 * This method is called only by the consumer {@code LoggerThread}.
+	 *
+	 * @return {@code true} if a log event is available, or {@code false} if the specified waiting time elapses
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException;
+
+	/**
+	 * Handles at most {@code maxEvents} published log events without waiting, in the order they were taken.
+	 * Each event is recycled after {@code handler} returns, so {@code handler} must not keep any reference of it.
+	 * This method is called only by the consumer {@code LoggerThread}.
+	 *
+	 * @return the number of events handled
+	 */
+	public int drain(Consumer<LogEvent> handler, int maxEvents);
+
+	/**
+	 * Removes the oldest published log event without waiting.
+	 * Unlike other consuming methods, this may be called by any thread.
+	 * Producers use this to drop the oldest log event when the queue is full.
+	 * The removed event is passed to {@code handler}(e.g. to keep a flush marker), and recycled after it returns.
+	 * 
+	 * @param handler handler of the removed event, which must not keep any reference of it
+	 * @return {@code true} if an event was removed
+	 * @see OverflowPolicy#DROP_OLDEST
+	 */
+	public boolean evict(Consumer<LogEvent> handler);
+	/**
+	 * Wakes the consumer up if it's waiting in {@link LogQueue#await(long, TimeUnit)}, so that it re-checks its state.
+	 * This may be called by any thread.
+	 * Default implementation publishes an event that writes nothing, if there is space.
+	 */
+	public default void wakeUp() {
+		LogEvent event = tryClaim();
+		if(event == null) return; // the queue is full, so the consumer is not waiting
+		event.discard();
+		publish(event);
+	}
+
+	/**
+	 * @return {@code true} if there is no queued log event.
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * @return approximate number of queued log events.
+	 */
+	public int size();
+}
@@ -9,17 +9,28 @@
 
 package io.github.awidesky.guiUtil.thread;
 
+import java.io.FilterWriter;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
@@ -27,6 +38,8 @@ import io.github.awidesky.guiUtil.formatter.LogFormatter;
 import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
 import io.github.awidesky.guiUtil.level.Level;
 import io.github.awidesky.guiUtil.level.Leveled;
+import io.github.awidesky.guiUtil.metrics.LatencyHistogram;
+import io.github.awidesky.guiUtil.metrics.LoggerMetrics;
 
 
 /**
@@ -36,29 +49,137 @@ import io.github.awidesky.guiUtil.level.Leveled;
  * 
  * <p>Each Thread or task can have their {@code TaskLogger} created by <code>LoggerThread#getLogger</code> or
  * <code>LoggerThread#getBufferedLogger</code> methods, and queued log tasks are executed in the {@code LoggerThread}.
- * {@code LoggerThread} constantly checks the queue and executes log tasks. If <code>autoFlush</code> in 
- * {@code LoggerThread#setLogDestination(OutputStream, boolean, Charset)} is {@code true}, backing {@code PrintWriter}
- * of this logger thread's <code>autoFlush</code> will also be true.
+ * {@code LoggerThread} constantly checks the queue, takes every available log task at once and executes them as a batch.
+ * If <code>autoFlush</code> in {@code LoggerThread#setLogDestination(OutputStream, boolean, Charset)} is {@code true},
+ * the destination is flushed once when the queue becomes empty, or when the flush threshold is reached.
+ * (see {@link LoggerThread#setFlushThreshold(int, long)} and {@link LoggerThread#setMaxFlushDelay(long)})
  * 
  * <p>{@code LoggerThread#getLogger()} method family will create a normal {@code TaskLogger}; logs will queued every time you call 
  * {@code log} methods. On the other hand, {@code LoggerThread#getBufferedLogger()} method family will create {@code TaskBufferedLogger}; 
  * logs will not queued to {@code LoggerThread} unless {@code TaskBufferedLogger#flush()} is called.
  * 
+ * <p>Log tasks are passed to the {@code LoggerThread} via a {@link LogQueue}. By default, an unbounded {@link LinkedLogQueue}
+ * is used. A lock-free {@link RingBufferLogQueue} can be specified via {@link LoggerThread#LoggerThread(LogQueue)}
+ * when many threads are logging concurrently, and a {@link StripedLogQueue} gives each logging thread its own buffer
+ * so that producers do not contend with each other at all.
+ * 
+ * <p>Logs can be written to additional destinations, each with its own level threshold, {@code LogFormatter},
+ * buffer and writer thread, via {@link LoggerThread#addLogDestination(LogDestination)}.
+ * 
+ * <p>If the queue is bounded, what happens when the queue is full is decided by {@link OverflowPolicy}.
+ * (see {@link LoggerThread#setOverflowPolicy(OverflowPolicy)})
+ * Severe logs can be queued to a separate priority lane that is serviced first, so that they are not stuck behind
+ * a backlog of debug logs. (see {@link LoggerThread#setPriorityLane(Level, LogQueue, boolean)})
+ * 
  * <p>{@code LoggerThread} is not a Daemon Thread; since external output destination({@code OutputStream}) is not closed until
- * {@code LoggerThread#shutdown(int)} is called. {@code LoggerThread#shutdown(int)} must be called before the main application terminates.
+ * {@code LoggerThread#shutdown(int)} is called. {@code LoggerThread#shutdown(int)} must be called before the main application terminates,
+ * or a JVM shutdown hook can do it via {@link LoggerThread#registerShutdownHook(int)}.
+ * On shutdown, queued logs are written until the queue is empty or the deadline has passed,
+ * and numbers of written, dropped and pending logs are reported in {@link ShutdownReport}.
+ * (see {@link RunState})
  * */
 public class LoggerThread extends Thread implements Leveled {
 
 	private PrintWriter logTo = null;
-	private	LinkedBlockingQueue<Consumer<PrintWriter>> loggerQueue = new LinkedBlockingQueue<>();
+	private CountingWriter counter = null;
+	private boolean autoFlush = true;
+	private final LogQueue loggerQueue;
+	/** Lane of logs at or above {@code priorityLevel}, serviced before {@code loggerQueue}. {@code null} if not used. */
+	private volatile LogQueue priorityLane = null;
+	private Level priorityLevel = Level.ERROR;
+	/** If {@code true}, events of both lanes are written in the order they were queued. */
+	private boolean priorityOrdered = false;
+	/** Global order of events in both lanes. Used only if {@code priorityOrdered}. */
+	private final AtomicLong orderSequence = new AtomicLong();
+	/** Additional destinations. Copied on write. */
+	private volatile LogDestination[] destinations = new LogDestination[0];
 	private Set<TaskLogger> children = Collections.synchronizedSet(new HashSet<TaskLogger>());
 	
-	public volatile boolean isStop = false;
+	private final AtomicReference<RunState> state = new AtomicReference<>(RunState.NEW);
+	/** {@code System.nanoTime()} until which queued logs are written on shutdown. Valid only if {@code hasDeadline}. */
+	private volatile long drainDeadline;
+	private volatile boolean hasDeadline;
+	/** Number of log events written by the consumer thread, published after each batch. */
+	private volatile long writtenCount = 0;
+	/** Number of queued log events that are not written because the consumer is terminated. */
+	private volatile long pendingCount = 0;
+	private final Object shutdownLock = new Object();
+	/** {@code System.nanoTime()} when shutdown has begun. Valid only if {@code shutdownBegun}. Guarded by {@code shutdownLock}. */
+	private long shutdownStart;
+	private boolean shutdownBegun = false;
+	private ShutdownReport shutdownReport = null;
+	private Thread shutdownHook = null;
 	private Level level = Level.getRootLogLevel();
 	private LogFormatter formatter = new SimpleLogFormatter();
 	
-	/** Creates a new logger thread. */
-	public LoggerThread() { super("LoggerThread"); }
+	/** Interval of checking the state while waiting for a log task. */
+	private static final long STOP_CHECK_INTERVAL_MILLIS = 50;
+	/** Additional time {@link #shutdown(int)} waits for the consumer to finish its last batch and close the destinations. */
+	private static final long SHUTDOWN_GRACE_MILLIS = 1000;
+	
+	private int batchSize = 1024;
+	private int flushThresholdTasks = 1024;
+	private long flushThresholdChars = 64 * 1024;
+	private long maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(100);
+	
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private volatile Level dropLevel = Level.INFO;
+	private final LongAdder[] overflowCounts = new LongAdder[OverflowPolicy.values().length];
+	private final LongAdder droppedCount = new LongAdder();
+	private final LoggerMetrics metrics;
+	/** Latency between queuing and writing of each log. {@code null} if not tracked. */
+	private volatile LatencyHistogram latency = null;
+	private volatile long latencySummaryIntervalNanos = 0;
+	/** Number of dropped tasks that is reported in the log. Used only in the consumer thread. */
+	private long reportedDropCount = 0;
+	
+	/* Fields below are used only in the consumer thread. */
+	private final Consumer<LogEvent> eventHandler = this::writeEvent;
+	/** Handler of events in {@code loggerQueue} when the priority lane is used. */
+	private final Consumer<LogEvent> laneHandler = this::writeAfterPriority;
+	/** Copies of priority events that are waiting for earlier events in {@code loggerQueue}, if {@code priorityOrdered}. */
+	private final ArrayDeque<LogEvent> heldPriority = new ArrayDeque<>();
+	private final ArrayDeque<LogEvent> freeHeld = new ArrayDeque<>();
+	private final Consumer<LogEvent> holdHandler = this::hold;
+	private final String lineSeparator = System.lineSeparator();
+	private char[] lineBuffer = new char[256];
+	private final StringBuilder formatBuffer = new StringBuilder(256);
+	/** Output of log tasks, captured to be written to additional destinations. */
+	private final StringWriter captured = new StringWriter();
+	private final PrintWriter capturePrinter = new PrintWriter(captured);
+	/** Formatters and formatted lines of the current event, so that an event is formatted once per distinct formatter. */
+	private LogFormatter[] fanOutFormatters = new LogFormatter[0];
+	private String[] fanOutLines = new String[0];
+	private int unflushedTasks;
+	private long lastFlush;
+	private long written;
+	/** Values of {@code written} and {@code counter.total} that are recorded in {@code metrics}. */
+	private long recordedWritten, recordedChars;
+	private long lastLatencySummary;
+	
+	/** Flush markers evicted by {@link OverflowPolicy#DROP_OLDEST}, completed by the consumer after its current batch. */
+	private final ConcurrentLinkedQueue<CompletableFuture<Void>> evictedBarriers = new ConcurrentLinkedQueue<>();
+	/** Handler of events evicted by {@link OverflowPolicy#DROP_OLDEST}. */
+	private final Consumer<LogEvent> evictHandler = this::evicted;
+	
+	/** A marker returned by {@code claimEvent} when the log should be written by the caller. Never published. */
+	private static final LogEvent CALLER_RUNS_EVENT = new LogEvent();
+	
+	/** Creates a new logger thread with an unbounded {@link LinkedLogQueue}. */
+	public LoggerThread() { this(new LinkedLogQueue()); }
+	
+	/**
+	 * Creates a new logger thread that receives log tasks via given {@code LogQueue}.
+	 * 
+	 * @param queue the queue between child {@code TaskLogger}s and this thread
+	 * @see RingBufferLogQueue
+	 */
+	public LoggerThread(LogQueue queue) {
+		super("LoggerThread");
+		this.loggerQueue = queue;
+		for(int i = 0; i < overflowCounts.length; i++) overflowCounts[i] = new LongAdder();
+		this.metrics = new LoggerMetrics(droppedCount::sum, () -> queuedCount());
+	}
 	
 	/**
 	 * Set destination of log to given {@code OutputStream}. Log Strings will be encoded in {@code Charset#defaultCharset()}.
@@ -96,10 +217,227 @@ public class LoggerThread extends Thread implements Leveled {
 	/**
 	 * Set destination of log to given {@code Writer}.
 	 * 
-	 * @param  autoFlush  A boolean; if true, the logs will flushed to the output buffer when printed.
+	 * <p>An {@code IOException} thrown by {@code wt}(e.g. a failed rollover of {@code RollingFileWriter}) does not stop
+	 * this {@code LoggerThread}; it's reported to {@code System.err} after the batch of logs that caused it.
+	 * 
+	 * @param  autoFlush  A boolean; if true, the logs will flushed to the output buffer when the queue becomes empty,
+	 * 					   or when the flush threshold is reached.
 	 * */
 	public void setLogDestination(Writer wt, boolean autoFlush) {
-		logTo = new PrintWriter(wt, autoFlush);
+		counter = new CountingWriter(wt, metrics);
+		logTo = new PrintWriter(counter, false);
+		this.autoFlush = autoFlush;
+	}
+	
+	/**
+	 * Add a destination that receives the same logs as the main destination, with its own level threshold,
+	 * {@code LogFormatter}, buffer and writer thread.<br>
+	 * The writer thread of {@code destination} is started immediately, and the destination is closed
+	 * when this {@code LoggerThread} terminates.
+	 * 
+	 * @param destination the destination to add
+	 * @throws IllegalStateException if {@code destination} is already added to a {@code LoggerThread}
+	 * @see LogDestination
+	 */
+	public synchronized void addLogDestination(LogDestination destination) throws IllegalStateException {
+		destination.start();
+		LogDestination[] arr = Arrays.copyOf(destinations, destinations.length + 1);
+		arr[arr.length - 1] = destination;
+		destinations = arr;
+	}
+	
+	/**
+	 * @return additional destinations of this {@code LoggerThread}.
+	 * @see LoggerThread#addLogDestination(LogDestination)
+	 */
+	public List<LogDestination> getLogDestinations() {
+		return List.of(destinations);
+	}
+	
+	/**
+	 * @return {@code true} if a log of given level is written to a destination with its own {@code LogFormatter},
+	 * 			so that the raw message should be passed to this thread along with the formatted one.
+	 */
+	private boolean formattedByDestination(Level level) {
+		for (LogDestination dest : destinations) {
+			if (dest.getLogFormatter() != null && dest.accepts(level)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Set maximum number of log tasks that are taken from the queue at once.
+	 * Default value is 1024.
+	 * 
+	 * @param batchSize maximum number of log tasks in a batch
+	 * @throws IllegalArgumentException if {@code batchSize} is not positive
+	 */
+	public void setBatchSize(int batchSize) throws IllegalArgumentException {
+		if(batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive : " + batchSize);
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Set the flush threshold of this {@code LoggerThread}.
+	 * While the queue is not empty, the destination is flushed when {@code tasks} log tasks,
+	 * or {@code chars} characters are written since the last flush.<br>
+	 * Default values are 1024 tasks, and 65536 characters.
+	 * <p>This has no effect when <code>autoFlush</code> of the destination is {@code false}.
+	 * 
+	 * @param tasks number of log tasks that triggers a flush
+	 * @param chars number of characters that triggers a flush
+	 * @throws IllegalArgumentException if {@code tasks} or {@code chars} is not positive
+	 */
+	public void setFlushThreshold(int tasks, long chars) throws IllegalArgumentException {
+		if(tasks <= 0 || chars <= 0) throw new IllegalArgumentException("flush threshold must be positive : " + tasks + ", " + chars);
+		this.flushThresholdTasks = tasks;
+		this.flushThresholdChars = chars;
+	}
+	
+	/**
+	 * Set maximum time in milliseconds that written logs can stay unflushed while the queue is not empty.
+	 * Default value is 100 milliseconds.
+	 * <p>This has no effect when <code>autoFlush</code> of the destination is {@code false}.
+	 * 
+	 * @param millis maximum delay of a flush
+	 * @throws IllegalArgumentException if {@code millis} is negative
+	 */
+	public void setMaxFlushDelay(long millis) throws IllegalArgumentException {
+		if(millis < 0) throw new IllegalArgumentException("max flush delay cannot be negative : " + millis);
+		this.maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+	
+	/**
+	 * Use a separate queue(lane) with an unbounded {@link LinkedLogQueue} for logs at or above given level.
+	 * 
+	 * @see LoggerThread#setPriorityLane(Level, LogQueue, boolean)
+	 */
+	public void setPriorityLane(Level level, boolean ordered) throws IllegalStateException {
+		setPriorityLane(level, new LinkedLogQueue(), ordered);
+	}
+	
+	/**
+	 * Use a separate queue(lane) for logs at or above given level, so that an error is not stuck behind
+	 * (or dropped because of) a backlog of less important logs.<br>
+	 * The lane has its own capacity, and the {@code OverflowPolicy} is applied to each lane separately.
+	 * When the shutdown deadline has passed, logs in the priority lane are still written, while other queued logs are discarded.
+	 * <p>
+	 * If {@code ordered} is {@code false}, the priority lane is always serviced first: a priority log is written before
+	 * the next log in the normal queue, even if it was queued later.
+	 * If {@code ordered} is {@code true}, each log is given a global sequence number when queued, and logs of both lanes
+	 * are written in that order. Priority logs then do not bypass the backlog, but still have their own capacity.
+	 * 
+	 * @param level logs at this level or more severe are queued to the priority lane
+	 * @param lane the queue of the priority lane
+	 * @param ordered whether to keep global order between the lanes
+	 * @throws IllegalStateException if this {@code LoggerThread} is already started or shut down
+	 */
+	public void setPriorityLane(Level level, LogQueue lane, boolean ordered) throws IllegalStateException {
+		if (state.get() != RunState.NEW || getState() != Thread.State.NEW)
+			throw new IllegalStateException("Priority lane cannot be set after the LoggerThread is started!");
+		this.priorityLevel = level;
+		this.priorityOrdered = ordered;
+		this.priorityLane = lane;
+	}
+	
+	/**
+	 * Set the policy that is applied when the queue is full.
+	 * 
+	 * @param policy the overflow policy
+	 * @see OverflowPolicy
+	 */
+	public void setOverflowPolicy(OverflowPolicy policy) {
+		this.overflowPolicy = policy;
+	}
+	
+	/**
+	 * Set the policy that is applied when the queue is full, with the drop level of {@link OverflowPolicy#DROP_BELOW_LEVEL}.
+	 * 
+	 * @param policy the overflow policy
+	 * @param dropLevel logs whose level is below this level can be dropped if {@code policy} is {@code DROP_BELOW_LEVEL}.
+	 * 					{@code ERROR} and {@code FATAL} logs are never dropped.
+	 * @see OverflowPolicy
+	 */
+	public void setOverflowPolicy(OverflowPolicy policy, Level dropLevel) {
+		this.dropLevel = dropLevel;
+		this.overflowPolicy = policy;
+	}
+	
+	/**
+	 * @return the policy that is applied when the queue is full.
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+	
+	/**
+	 * Returns how many times given policy was applied since this {@code LoggerThread} is created.
+	 * For {@code BLOCK}, it's number of times a producer had to wait(including waits of {@code DROP_BELOW_LEVEL}).
+	 * For {@code DROP_*} policies, it's number of dropped log tasks.
+	 * For {@code CALLER_RUNS}, it's number of log tasks executed by producers.
+	 * 
+	 * @param policy the overflow policy
+	 * @return overflow count of given policy
+	 */
+	public long getOverflowCount(OverflowPolicy policy) {
+		return overflowCounts[policy.ordinal()].sum();
+	}
+	
+	/**
+	 * @return total number of dropped log tasks since this {@code LoggerThread} is created.
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+	
+	/**
+	 * Returns counters and gauges of this {@code LoggerThread}: number of queued and written logs, written characters,
+	 * flushes, time producers spent blocked, dropped logs and current queue depth.<br>
+	 * It can be exposed as a JMX MBean via {@link LoggerMetrics#registerMBean(String, String)},
+	 * and it's unregistered when this {@code LoggerThread} terminates.
+	 * Logs written by producers({@link OverflowPolicy#CALLER_RUNS}) are counted as written, but not as queued.
+	 * 
+	 * @return metrics of this {@code LoggerThread}
+	 */
+	public LoggerMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Enable or disable tracking of latency between queuing of each log and writing it.<br>
+	 * When enabled, each log is stamped with {@code System.nanoTime()} when queued,
+	 * and the latency is recorded in a {@link LatencyHistogram} when written.
+	 * When disabled(default), the only cost is a branch per log.
+	 * Logs written by producers({@link OverflowPolicy#CALLER_RUNS}) are not tracked.
+	 * 
+	 * @param enable whether to track latency. If {@code true}, a new histogram is used.
+	 * @see LoggerThread#getLatencyHistogram()
+	 */
+	public void setLatencyTracking(boolean enable) {
+		latency = enable ? new LatencyHistogram() : null;
+	}
+	
+	/**
+	 * @return the histogram of latency between queuing and writing of each log,
+	 * 			or {@code null} if latency is not tracked.
+	 * @see LoggerThread#setLatencyTracking(boolean)
+	 */
+	public LatencyHistogram getLatencyHistogram() {
+		return latency;
+	}
+	
+	/**
+	 * Set interval of writing a summary(count, p50, p99, p99.9 and max) of latencies to the destination.
+	 * The histogram is reset after each summary, so each summary covers one interval.
+	 * Has no effect unless latency is tracked.
+	 * 
+	 * @param millis interval in milliseconds. {@code 0}(default) means not to write summaries.
+	 * @throws IllegalArgumentException if {@code millis} is negative
+	 * @see LoggerThread#setLatencyTracking(boolean)
+	 */
+	public void setLatencySummaryInterval(long millis) throws IllegalArgumentException {
+		if (millis < 0) throw new IllegalArgumentException("Invalid latency summary interval : " + millis);
+		latencySummaryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(millis);
 	}
 	
 	/**
@@ -115,27 +453,355 @@ public class LoggerThread extends Thread implements Leveled {
 	@Override
 	public void run() {
 
+		state.compareAndSet(RunState.NEW, RunState.RUNNING);
+		if (logTo == null) setLogDestination(Writer.nullWriter(), false);
 		logTo.println("LoggerThread started at [" + new SimpleDateFormat("yyyy/MM/dd-kk:mm:ss").format(new Date()) + "]");
 		
+		unflushedTasks = 1;
+		lastFlush = System.nanoTime();
+		lastLatencySummary = lastFlush;
+		
+		LogQueue lane = priorityLane;
+		boolean interrupted = false;
 		while (true) {
 
-			if (loggerQueue.isEmpty() && isStop) {
+			RunState s = state.get();
+			if (s == RunState.TERMINATED || (s == RunState.DRAINING
+					&& (isQueueEmpty() || (hasDeadline && System.nanoTime() - drainDeadline >= 0)))) {
 				break;	
 			}
 
 			try {
-				loggerQueue.take().accept(logTo);
+				if (lane != null) servicePriority();
+				if (loggerQueue.await(STOP_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+					/* take only events queued now, so that a batch ends even if producers keep refilling the queue,
+					 * and the shutdown deadline is checked between batches. */
+					loggerQueue.drain(lane == null ? eventHandler : laneHandler, Math.max(1, Math.min(batchSize, loggerQueue.size())));
+					if (lane != null) servicePriority();
+				}
+				if (!evictedBarriers.isEmpty()) completeEvictedBarriers();
+				writtenCount = written;
+				recordMetrics();
+				reportWriteFailure();
 			} catch (InterruptedException e) {
 				logTo.println("LoggerThread Interrupted! : " + e.getMessage());
 				logTo.println("Closing LoggerThread..");
+				interrupted = true;
+				break;
+			} catch (RuntimeException | Error e) {
+				/* not from a log task(see writeEvent). terminate properly, so that producers and flush markers don't wait forever. */
+				logTo.println("LoggerThread failed! : " + e);
+				logTo.println("Closing LoggerThread..");
 				break;
 			}
+			
+			if (isQueueEmpty() && reportDrops()) unflushedTasks++;
+			if (latencySummaryIntervalNanos > 0 && reportLatency()) unflushedTasks++;
+			
+			if (autoFlush && unflushedTasks > 0 && isQueueEmpty()) {
+				logTo.flush();
+				unflushedTasks = 0;
+				lastFlush = System.nanoTime();
+				reportWriteFailure();
+			}
 		}
 		
+		/* From now on, producers drop their logs. Discard remaining logs, so that blocked producers can continue. */
+		state.set(RunState.TERMINATED);
+		if (lane != null && !interrupted) {
+			/* priority logs are written even if the deadline has passed */
+			servicePriority();
+			writtenCount = written;
+		}
+		pendingCount = discardQueued();
+		completeEvictedBarriers();
+		
+		reportDrops();
+		if (pendingCount > 0) logTo.println(pendingCount + " events discarded because the LoggerThread shutdown deadline has passed");
 		logTo.close();
+		reportWriteFailure();
+		recordMetrics();
+		metrics.unregisterMBean();
+		
+		for (LogDestination dest : destinations) {
+			try {
+				dest.close(0);
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
 
 	}
 	
+	/**
+	 * Discard every queued event, so that blocked producers can continue.
+	 * Flush markers complete exceptionally.
+	 * 
+	 * @return number of discarded log events
+	 */
+	private long discardQueued() {
+		long[] pending = new long[1];
+		Consumer<LogEvent> discarder = e -> {
+			if (e.barrier != null) e.barrier.completeExceptionally(terminatedException());
+			else if (!e.isDiscarded()) pending[0]++;
+		};
+		loggerQueue.drain(discarder, Integer.MAX_VALUE);
+		LogQueue lane = priorityLane;
+		if (lane != null) lane.drain(discarder, Integer.MAX_VALUE);
+		pending[0] += heldPriority.size();
+		heldPriority.clear();
+		return pending[0];
+	}
+	
+	/**
+	 * @return {@code true} if there is no queued log event in any lane.
+	 */
+	private boolean isQueueEmpty() {
+		LogQueue lane = priorityLane;
+		return loggerQueue.isEmpty() && (lane == null || (lane.isEmpty() && heldPriority.isEmpty()));
+	}
+	
+	/**
+	 * @return approximate number of queued log events in every lane.
+	 */
+	private int queuedCount() {
+		LogQueue lane = priorityLane;
+		return loggerQueue.size() + (lane == null ? 0 : lane.size());
+	}
+	
+	/**
+	 * Write every event in the priority lane. If ordered, they are written only if the normal queue is empty,
+	 * or this {@code LoggerThread} is terminated.
+	 */
+	private void servicePriority() {
+		LogQueue lane = priorityLane;
+		if (priorityOrdered) {
+			if (!lane.isEmpty()) lane.drain(holdHandler, Math.max(1, lane.size()));
+			if (loggerQueue.isEmpty() || state.get() == RunState.TERMINATED) writeHeld(Long.MAX_VALUE);
+		} else if (!lane.isEmpty()) {
+			lane.drain(eventHandler, Math.max(1, lane.size()));
+		}
+	}
+	
+	/**
+	 * Write an event of the normal queue, after priority events that should be written before it.
+	 */
+	private void writeAfterPriority(LogEvent event) {
+		if (!priorityOrdered) {
+			servicePriority();
+		} else if (!event.isDiscarded()) {
+			LogQueue lane = priorityLane;
+			if (!lane.isEmpty()) lane.drain(holdHandler, Math.max(1, lane.size()));
+			writeHeld(event.order);
+		}
+		writeEvent(event);
+	}
+	
+	/**
+	 * Keep a copy of a priority event until earlier events in the normal queue are written.
+	 */
+	private void hold(LogEvent event) {
+		if (event.isDiscarded()) return;
+		LogEvent copy = freeHeld.poll();
+		if (copy == null) copy = new LogEvent();
+		copy.copyFrom(event);
+		heldPriority.add(copy);
+	}
+	
+	/**
+	 * Write held priority events whose order is less than given order.
+	 */
+	private void writeHeld(long before) {
+		LogEvent event;
+		while ((event = heldPriority.peek()) != null && event.order < before) {
+			heldPriority.poll();
+			writeEvent(event);
+			event.clear();
+			freeHeld.add(event);
+		}
+	}
+	
+	/**
+	 * Write a log event to the destination, and flush if the flush threshold is reached.
+	 * A formatted message is copied to a reused buffer and written at once, so that it's not interleaved
+	 * with logs written by producers({@link OverflowPolicy#CALLER_RUNS}).
+	 */
+	private void writeEvent(LogEvent event) {
+		if (event.barrier != null) {
+			/* a flush marker. every event queued before it is written. */
+			flushAndComplete(event.barrier);
+			return;
+		}
+		LogDestination[] dests = destinations;
+		Consumer<PrintWriter> task = event.getTask();
+		if (event.isDiscarded()) return;
+		written++;
+		try {
+			if (task != null) {
+				if (dests.length == 0) {
+					task.accept(logTo);
+				} else {
+					captured.getBuffer().setLength(0);
+					task.accept(capturePrinter);
+					capturePrinter.flush();
+					String text = captured.toString();
+					logTo.write(text);
+					for (LogDestination dest : dests) {
+						if (dest.accepts(event.getLevel())) dest.write(text);
+					}
+				}
+			} else {
+				StringBuilder line = event.messageBuffer();
+				if (event.isDeferred()) {
+					formatBuffer.setLength(0);
+					event.formatTo(formatBuffer);
+					line = formatBuffer;
+				}
+				writeLine(line);
+				if (dests.length > 0) fanOut(dests, event, line);
+			}
+		} catch (Throwable t) {
+			/* a broken log task or formatter must not kill this thread and every log after it */
+			logTo.println("Log task failed : " + t);
+		}
+		LatencyHistogram h = latency;
+		if (h != null && event.enqueueNanos != 0) h.record(System.nanoTime() - event.enqueueNanos);
+		unflushedTasks++;
+		if (autoFlush && (unflushedTasks >= flushThresholdTasks || counter.count >= flushThresholdChars
+				|| System.nanoTime() - lastFlush >= maxFlushDelayNanos)) {
+			logTo.flush();
+			unflushedTasks = 0;
+			lastFlush = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Flush the destination, and complete the flush marker after every additional destination has written and flushed
+	 * logs given before it.
+	 */
+	private void flushAndComplete(CompletableFuture<Void> barrier) {
+		logTo.flush();
+		unflushedTasks = 0;
+		lastFlush = System.nanoTime();
+		LogDestination[] dests = destinations;
+		if (dests.length == 0) {
+			barrier.complete(null);
+			return;
+		}
+		CompletableFuture<?>[] flushed = new CompletableFuture<?>[dests.length];
+		for (int i = 0; i < dests.length; i++) flushed[i] = dests[i].flush();
+		CompletableFuture.allOf(flushed).whenComplete((v, e) -> {
+			if (e == null) barrier.complete(null);
+			else barrier.completeExceptionally(e);
+		});
+	}
+	
+	/**
+	 * Complete flush markers evicted by {@link OverflowPolicy#DROP_OLDEST}.
+	 * Events before them were taken before they were evicted, so they are written by now.
+	 */
+	private void completeEvictedBarriers() {
+		CompletableFuture<Void> barrier;
+		while ((barrier = evictedBarriers.poll()) != null) flushAndComplete(barrier);
+	}
+	
+	/**
+	 * Write a log event to additional destinations.
+	 * The event is formatted once per distinct formatter of the destinations.
+	 * 
+	 * @param line the line written to the main destination, without a line separator
+	 */
+	private void fanOut(LogDestination[] dests, LogEvent event, CharSequence line) {
+		if (fanOutFormatters.length < dests.length) {
+			fanOutFormatters = new LogFormatter[dests.length];
+			fanOutLines = new String[dests.length];
+		}
+		String mainLine = null;
+		int formatted = 0;
+		for (LogDestination dest : dests) {
+			if (!dest.accepts(event.getLevel())) continue;
+			LogFormatter f = dest.getLogFormatter();
+			if (f == null || !event.hasRawMessage() || f == event.formatter()) {
+				if (mainLine == null) mainLine = line + lineSeparator;
+				dest.write(mainLine);
+				continue;
+			}
+			int i = 0;
+			while (i < formatted && fanOutFormatters[i] != f) i++;
+			if (i == formatted) {
+				StringBuilder sb = new StringBuilder(line.length() + 64);
+				event.formatTo(sb, f);
+				fanOutFormatters[i] = f;
+				fanOutLines[i] = sb.append(lineSeparator).toString();
+				formatted++;
+			}
+			dest.write(fanOutLines[i]);
+		}
+		Arrays.fill(fanOutFormatters, 0, formatted, null);
+		Arrays.fill(fanOutLines, 0, formatted, null);
+	}
+	
+	/**
+	 * Write given line with a line separator at once, using a reused buffer.
+	 */
+	private void writeLine(StringBuilder line) {
+		int len = line.length();
+		int total = len + lineSeparator.length();
+		if (lineBuffer.length < total) lineBuffer = new char[Math.max(total, lineBuffer.length * 2)];
+		line.getChars(0, len, lineBuffer, 0);
+		lineSeparator.getChars(0, lineSeparator.length(), lineBuffer, len);
+		logTo.write(lineBuffer, 0, total);
+	}
+	
+	/**
+	 * Record numbers of logs and characters written since the last call in {@code metrics}.
+	 * Called once per batch, so that the consumer does not update shared counters per log.
+	 */
+	private void recordMetrics() {
+		long chars = counter.total;
+		metrics.recordWritten(written - recordedWritten, chars - recordedChars);
+		recordedWritten = written;
+		recordedChars = chars;
+	}
+	
+	/**
+	 * Write a summary of latencies since the last summary and reset the histogram, if the summary interval has passed.
+	 * 
+	 * @return {@code true} if a summary was written
+	 */
+	private boolean reportLatency() {
+		LatencyHistogram h = latency;
+		long now = System.nanoTime();
+		if (h == null || now - lastLatencySummary < latencySummaryIntervalNanos) return false;
+		lastLatencySummary = now;
+		logTo.println("LoggerThread latency : " + h.snapshotAndReset().summary());
+		return true;
+	}
+	
+	/**
+	 * Report the last failure of the destination to {@code System.err}, if exists.
+	 * {@code logTo} is a {@code PrintWriter}, which does not throw {@code IOException}s of the destination,
+	 * and the destination itself may be unable to write the report.
+	 */
+	private void reportWriteFailure() {
+		IOException e = counter.takeFailure();
+		if (e == null) return;
+		System.err.println("LoggerThread " + getName() + " failed to write logs : " + e + (e.getCause() == null ? "" : ", caused by " + e.getCause()));
+	}
+	
+	/**
+	 * Write number of log tasks dropped since the last report, if exists.
+	 * 
+	 * @return {@code true} if a report was written
+	 */
+	private boolean reportDrops() {
+		long dropped = droppedCount.sum();
+		if(dropped == reportedDropCount) return false;
+		logTo.println((dropped - reportedDropCount) + " events dropped due to LoggerThread queue overflow");
+		reportedDropCount = dropped;
+		return true;
+	}
+	
 	/**
 	 * @return true if the child {@code TaskLogger} to be generated
 	 * 			will be enabled for the INFO level.
@@ -248,26 +914,390 @@ public class LoggerThread extends Thread implements Leveled {
 	}
 	
 	/**
-	 * Waits at most <code>timeOut</code> milliseconds for this LoggerThread to die.
-	 * A timeout of {@code 0} means to wait forever.
-	 * If the time has past and this LoggerThread is not dead, interrupt.
+	 * Shut down this {@code LoggerThread}, and wait for it to die.
+	 * <p>
+	 * Every child logger is closed, and queued logs are written as fast as possible until the queue becomes empty,
+	 * or <code>timeOut</code> milliseconds has passed. A timeout of {@code 0} means to wait forever.
+	 * Logs left in the queue after the deadline are discarded, and counted as pending in the returned report.
+	 * Logs queued after this {@code LoggerThread} has terminated are dropped.
+	 * <p>
+	 * If the {@code LoggerThread} does not die even after the deadline(e.g. a destination is blocked),
+	 * it's interrupted after a short grace period.
+	 * If this method is called more than once, later calls return the report of the first call.
+	 * 
+	 * @return numbers of written, dropped and pending logs
 	 * */
-	public void shutdown(int timeOut) {
-		
-		isStop = true;
-		
-		new HashSet<>(children).stream().forEach(TaskLogger::close);
+	public ShutdownReport shutdown(int timeOut) {
+		synchronized (shutdownLock) {
+			if (shutdownReport != null) return shutdownReport;
+			beginShutdown(timeOut);
+			long start = shutdownStart;
+			/* the deadline is set when shutdown has begun, which may be earlier than this call */
+			int remaining = hasDeadline ? (int) Math.max(1L, TimeUnit.NANOSECONDS.toMillis(drainDeadline - System.nanoTime())) : 0;
+			
+			if (getState() == Thread.State.NEW) {
+				/* never started. nothing is written. */
+				state.set(RunState.TERMINATED);
+				pendingCount = discardQueued();
+				CompletableFuture<Void> barrier;
+				while ((barrier = evictedBarriers.poll()) != null) barrier.completeExceptionally(terminatedException());
+				if (logTo != null) logTo.close();
+				for (LogDestination dest : destinations) {
+					try {
+						dest.close(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			} else {
+				try {
+					this.join(remaining == 0 ? 0 : remaining + SHUTDOWN_GRACE_MILLIS);
+					if (isAlive()) {
+						this.interrupt();
+						this.join(SHUTDOWN_GRACE_MILLIS);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+				try {
+					Runtime.getRuntime().removeShutdownHook(shutdownHook);
+				} catch (IllegalStateException e) {
+					/* the JVM is already shutting down */
+				}
+			}
+			
+			boolean terminated = state.get() == RunState.TERMINATED && !isAlive();
+			shutdownReport = new ShutdownReport(writtenCount, droppedCount.sum(), terminated ? pendingCount : queuedCount(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), terminated);
+			return shutdownReport;
+		}
+	}
+	
+	/**
+	 * Begin to shut down this {@code LoggerThread} without waiting for it : set the deadline, let the thread drain its
+	 * queue and close every child logger. {@link #shutdown(int)} waits until the deadline set here.
+	 * Does nothing if shutdown has already begun.
+	 * 
+	 * @param timeOut milliseconds from now until which queued logs are written. {@code 0} means no deadline.
+	 */
+	void beginShutdown(int timeOut) {
+		synchronized (shutdownLock) {
+			if (shutdownBegun) return;
+			shutdownBegun = true;
+			shutdownStart = System.nanoTime();
+			
+			if (timeOut > 0) {
+				drainDeadline = shutdownStart + TimeUnit.MILLISECONDS.toNanos(timeOut);
+				hasDeadline = true;
+			}
+			/* retry, since the thread may start running between attempts */
+			RunState s;
+			while (((s = state.get()) == RunState.NEW || s == RunState.RUNNING) && !state.compareAndSet(s, RunState.DRAINING));
+			
+			new HashSet<>(children).stream().forEach(TaskLogger::close);
+			if (getState() != Thread.State.NEW) wakeUp();
+		}
+	}
+	
+	/**
+	 * Queue an empty log task if possible, so that the consumer waiting for a log can check the state immediately.
+	 */
+	private void wakeUp() {
+		loggerQueue.wakeUp();
+	}
+	
+	/**
+	 * Register a JVM shutdown hook that calls {@link #shutdown(int)} with given timeout, so that queued logs are written
+	 * even if the application exits without calling {@link #shutdown(int)}.
+	 * The hook is removed when {@link #shutdown(int)} is called explicitly.
+	 * 
+	 * @param timeOut timeout in milliseconds passed to {@link #shutdown(int)}
+	 * @throws IllegalStateException if a hook is already registered
+	 */
+	public void registerShutdownHook(int timeOut) throws IllegalStateException {
+		synchronized (shutdownLock) {
+			if (shutdownHook != null) throw new IllegalStateException("Shutdown hook is already registered!");
+			shutdownHook = new Thread(() -> shutdown(timeOut), getName() + "-shutdownHook");
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+		}
+	}
+	
+	/**
+	 * @return current state of this {@code LoggerThread}.
+	 */
+	public RunState getRunState() {
+		return state.get();
+	}
+	
+	/**
+	 * @return number of log events written by this {@code LoggerThread} so far. Updated after each batch.
+	 */
+	public long getWrittenCount() {
+		return writtenCount;
+	}
+	
+	/**
+	 * @return the report of {@link #shutdown(int)}, or {@code null} if not shut down yet.
+	 */
+	public ShutdownReport getShutdownReport() {
+		synchronized (shutdownLock) {
+			return shutdownReport;
+		}
+	}
+	
+	/**
+	 * Queue a log task from a child {@code TaskLogger}, or from a logger that uses this thread as its worker
+	 * (e.g. {@link io.github.awidesky.guiUtil.AsyncLogger}).
+	 * The task is run in this thread with the {@code PrintWriter} of the destination.
+	 * If the queue is full, current {@code OverflowPolicy} is applied.
+	 * If this {@code LoggerThread} is terminated, the task is dropped.
+	 * 
+	 * @param level level of the log task. {@code null} if the task does not have a level.
+	 * @param logTask the log task
+	 */
+	public void queueLogTask(Level level, Consumer<PrintWriter> logTask) {
+		LogQueue queue = queueOf(level);
+		LogEvent event = claimEvent(queue, level);
+		if (event == null) return;
+		if (event == CALLER_RUNS_EVENT) {
+			runInCaller(level, logTask);
+			return;
+		}
+		event.set(level, logTask);
+		if (latency != null) event.enqueueNanos = System.nanoTime();
+		publish(queue, event);
+		metrics.recordEnqueued();
+	}
+	
+	/**
+	 * Queue a log message from a child {@code TaskLogger}. The message is formatted directly into a {@code LogEvent}
+	 * owned by the queue, so no intermediate {@code String} or log task is generated.
+	 * If {@code deferred} is {@code true}, only the raw message is copied and formatting is done in this thread.
+	 * Otherwise, if an additional destination with its own {@code LogFormatter} accepts the log, the raw message is
+	 * copied along with the formatted one, so that the main destination gets the same line as without the destination.
+	 * If the queue is full, current {@code OverflowPolicy} is applied.
+	 */
+	private void queueLogEvent(boolean deferred, Level level, LogFormatter formatter, String prefix, CharSequence msg) {
+		LogQueue queue = queueOf(level);
+		LogEvent event = claimEvent(queue, level);
+		if (event == null) return;
+		if (event == CALLER_RUNS_EVENT) {
+			writeInCaller(level, formatter, prefix, msg);
+			return;
+		}
+		try {
+			if (deferred) event.setDeferred(level, prefix, msg, formatter);
+			else if (formattedByDestination(level)) event.setKeepingRaw(level, prefix, msg, formatter);
+			else event.set(level, prefix, msg, formatter);
+		} catch (RuntimeException | Error e) {
+			event.discard();
+			throw e;
+		} finally {
+			if (latency != null) event.enqueueNanos = System.nanoTime();
+			publish(queue, event);
+		}
+		metrics.recordEnqueued();
+	}
+	
+	/**
+	 * Queue a flush marker that completes given future after every event queued before it is written
+	 * and the destination is flushed. The caller waits for space if the queue is full.
+	 * The marker is never dropped by the {@code OverflowPolicy}; if it's evicted by {@link OverflowPolicy#DROP_OLDEST},
+	 * the future completes after events taken before it are written.
+	 * If this {@code LoggerThread} terminates before handling the marker, the future completes exceptionally.
+	 */
+	void queueFlushMarker(CompletableFuture<Void> future) {
+		if (state.get() == RunState.TERMINATED) {
+			future.completeExceptionally(terminatedException());
+			return;
+		}
+		LogEvent event = loggerQueue.tryClaim();
+		if (event == null) {
+			try {
+				event = loggerQueue.claim();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.completeExceptionally(e);
+				return;
+			}
+		}
+		event.setBarrier(future);
+		publish(loggerQueue, event);
+		/* the consumer does not write events after it's terminated. if the marker was not handled, it never will be. */
+		if (state.get() == RunState.TERMINATED) future.completeExceptionally(terminatedException());
+	}
+	
+	private static IllegalStateException terminatedException() {
+		return new IllegalStateException("LoggerThread is terminated before the flush marker is handled!");
+	}
+	
+	/**
+	 * @return the lane that a log of given level is queued to.
+	 */
+	private LogQueue queueOf(Level level) {
+		LogQueue lane = priorityLane;
+		return (lane != null && level != null && priorityLevel.includes(level)) ? lane : loggerQueue;
+	}
+	
+	/**
+	 * Publish a filled event to given lane. If the priority lane is used, the event is given a global order when ordered,
+	 * and the consumer is woken up if it may be waiting for the normal queue.
+	 */
+	private void publish(LogQueue queue, LogEvent event) {
+		LogQueue lane = priorityLane;
+		if (lane == null) {
+			queue.publish(event);
+			return;
+		}
+		if (priorityOrdered) event.order = orderSequence.getAndIncrement();
+		queue.publish(event);
+		if (queue == lane && loggerQueue.isEmpty()) wakeUp();
+	}
+	
+	/**
+	 * Run a log task in the current(producer) thread, and write the output to the main destination and additional destinations.
+	 * The task writes to a private buffer, whose content is written to the main destination at once, so that the output
+	 * is not interleaved with logs written by this thread or other producers.
+	 */
+	private void runInCaller(Level level, Consumer<PrintWriter> logTask) {
+		metrics.recordWritten(1, 0);
+		LogDestination[] dests = destinations;
+		StringWriter sw = new StringWriter();
+		PrintWriter pw = new PrintWriter(sw);
+		logTask.accept(pw);
+		pw.flush();
+		String text = sw.toString();
+		logTo.write(text);
+		for (LogDestination dest : dests) {
+			if (dest.accepts(level)) dest.write(text);
+		}
+	}
+	
+	/**
+	 * Format and write a log in the current(producer) thread, to the main destination and additional destinations.
+	 */
+	private void writeInCaller(Level level, LogFormatter formatter, String prefix, CharSequence msg) {
+		metrics.recordWritten(1, 0);
+		String line = formatter.format(level, prefix, msg);
+		logTo.println(line);
+		for (LogDestination dest : destinations) {
+			if (!dest.accepts(level)) continue;
+			LogFormatter f = dest.getLogFormatter();
+			dest.write((f == null ? line : f.format(level, prefix, msg)) + lineSeparator);
+		}
+	}
+	
+	/**
+	 * Claim a {@code LogEvent} for a log of given level.
+	 * If the queue is full, current {@code OverflowPolicy} is applied.
+	 * If interrupted while waiting, an event is claimed only if there is space immediately available,
+	 * and the interrupt status of the current thread is restored.
+	 * If this {@code LoggerThread} is terminated, the log is dropped.
+	 * 
+	 * @param queue the lane to claim the event from
+	 * @return claimed event that must be published, {@code null} if the log is dropped, or {@code CALLER_RUNS_EVENT}
+	 * 			if the log should be written by the caller.
+	 */
+	private LogEvent claimEvent(LogQueue queue, Level level) {
+		if (state.get() == RunState.TERMINATED) {
+			droppedCount.increment();
+			return null;
+		}
+		LogEvent event = claimEvent0(queue, level);
+		if (event != null && event != CALLER_RUNS_EVENT && state.get() == RunState.TERMINATED) {
+			/* terminated while waiting. the consumer has discarded remaining events to wake this thread up. */
+			event.discard();
+			queue.publish(event);
+			droppedCount.increment();
+			return null;
+		}
+		return event;
+	}
+	
+	private LogEvent claimEvent0(LogQueue queue, Level level) {
+		LogEvent event = queue.tryClaim();
+		if (event != null) return event;
 		
+		OverflowPolicy policy = overflowPolicy;
+		switch (policy) {
+		case DROP_NEWEST:
+			drop(policy);
+			return null;
+		case DROP_OLDEST:
+			while ((event = queue.tryClaim()) == null) {
+				if (!queue.evict(evictHandler)) Thread.onSpinWait();
+			}
+			return event;
+		case DROP_BELOW_LEVEL:
+			if (level != null && !dropLevel.includes(level) && !Level.ERROR.includes(level)) {
+				drop(policy);
+				return null;
+			}
+			return waitEvent(queue);
+		case CALLER_RUNS:
+			overflowCounts[policy.ordinal()].increment();
+			return CALLER_RUNS_EVENT;
+		case BLOCK:
+		default:
+			return waitEvent(queue);
+		}
+	}
+	
+	/**
+	 * Count an event evicted by {@link OverflowPolicy#DROP_OLDEST} as dropped. A flush marker is not dropped;
+	 * every event before it is already taken by the consumer, so it's completed after the consumer's current batch.
+	 */
+	private void evicted(LogEvent event) {
+		if (event.barrier != null) {
+			CompletableFuture<Void> barrier = event.barrier;
+			evictedBarriers.add(barrier);
+			/* the consumer may have completed evicted markers for the last time */
+			if (state.get() == RunState.TERMINATED) barrier.completeExceptionally(terminatedException());
+		} else if (!event.isDiscarded()) {
+			drop(OverflowPolicy.DROP_OLDEST);
+		}
+	}
+	
+	/**
+	 * Claim a {@code LogEvent}, waiting if necessary.
+	 */
+	private LogEvent waitEvent(LogQueue queue) {
+		overflowCounts[OverflowPolicy.BLOCK.ordinal()].increment();
+		long start = System.nanoTime();
 		try {
-			this.join(timeOut);
+			return queue.claim();
 		} catch (InterruptedException e) {
-			logTo.println("Failed to join logger thread!");
-			e.printStackTrace(logTo);
+			LogEvent event = queue.tryClaim();
+			if (event == null) droppedCount.increment();
+			Thread.currentThread().interrupt();
+			return event;
+		} finally {
+			metrics.recordBlocked(System.nanoTime() - start);
 		}
-		
-		this.interrupt();
-		if(logTo != null) logTo.close();
-		
+	}
+	
+	private void drop(OverflowPolicy policy) {
+		overflowCounts[policy.ordinal()].increment();
+		droppedCount.increment();
+	}
+	
+	/**
+	 * Lifecycle of a {@code LoggerThread}.
+	 * Named {@code RunState} not to be confused with {@link Thread.State}.
+	 */
+	public static enum RunState {
+		/** Not started yet. Logs are queued, and written after the thread starts. */
+		NEW,
+		/** Writing logs. */
+		RUNNING,
+		/** {@link LoggerThread#shutdown(int)} is called. Queued logs are written until the queue is empty or the deadline has passed. */
+		DRAINING,
+		/** Finished. Logs are not written anymore, and new logs are dropped. */
+		TERMINATED;
 	}
 	
 	/**
@@ -290,6 +1320,7 @@ public class LoggerThread extends Thread implements Leveled {
 		private Level childLevel = LoggerThread.this.level;
 		private String childPrefix = null;
 		private boolean cloneLogFormatter = false;
+		private boolean deferredFormatting = false;
 		
 		/**
 		 * Specifies log level.
@@ -333,6 +1364,25 @@ public class LoggerThread extends Thread implements Leveled {
 			this.cloneLogFormatter  = cloneLogFormatter;
 			return this;
 		}
+		/**
+		 * Specifies whether to defer formatting of logs to the {@code LoggerThread}.<br>
+		 * If {@code true}, the generated {@code TaskLogger} only copies the log message and captures
+		 * the time and the name of the current thread. The log is formatted later in the {@code LoggerThread},
+		 * so that threads that log do not pay for formatting.
+		 * The output is the same as when the log is formatted immediately(default).
+		 * <p>The {@code LogFormatter} must be safe to be used by the {@code LoggerThread}
+		 * while other threads are using it. {@code %d} and {@code %t} of {@code SimpleLogFormatter} are
+		 * replaced with the captured values; a custom {@code LogFormatter} should override
+		 * {@link LogFormatter#format(StringBuilder, Level, String, CharSequence, java.time.Instant, String)}.
+		 * <p>This has no effect on {@code TaskBufferedLogger}, which formats logs when they are buffered.
+		 * 
+		 * @param deferredFormatting {@code true} to format logs in the {@code LoggerThread}
+		 * @return This builder instance
+		 */
+		public LoggerBuilder setDeferredFormatting(boolean deferredFormatting) {
+			this.deferredFormatting = deferredFormatting;
+			return this;
+		}
 		private LogFormatter getLogFormatter() {
 			return cloneLogFormatter ? childLogFormatter.clone() : childLogFormatter;
 		}
@@ -341,16 +1391,27 @@ public class LoggerThread extends Thread implements Leveled {
 		 * Returns a new {@code TaskLogger} that submits logs to the logger thread with specified properties.
 		 * */
 		public TaskLogger getLogger() {
+			final boolean deferred = deferredFormatting;
 			TaskLogger newLogger = new TaskLogger(getLogFormatter(), childLevel) {
 
 				@Override
 				public void queueLogTask(Consumer<PrintWriter> logTask) {
-					try {
-						loggerQueue.put(logTask);
-					} catch (InterruptedException e) {
-						loggerQueue.offer(logTask);
-						if (!isStop) error(e);
-					}
+					LoggerThread.this.queueLogTask(null, logTask);
+				}
+				
+				@Override
+				protected void queueLogTask(Level level, Consumer<PrintWriter> logTask) {
+					LoggerThread.this.queueLogTask(level, logTask);
+				}
+				
+				@Override
+				protected void queueFlushMarker(CompletableFuture<Void> future) {
+					LoggerThread.this.queueFlushMarker(future);
+				}
+				
+				@Override
+				protected void queueLogEvent(Level level, LogFormatter formatter, String prefix, CharSequence msg) {
+					LoggerThread.this.queueLogEvent(deferred, level, formatter, prefix, msg);
 				}
 
 				@Override
@@ -375,12 +1436,17 @@ public class LoggerThread extends Thread implements Leveled {
 
 				@Override
 				public void queueLogTask(Consumer<PrintWriter> logTask) {
-					try {
-						loggerQueue.put(logTask);
-					} catch (InterruptedException e) {
-						loggerQueue.offer(logTask);
-						if (!isStop) error(e);
-					}
+					LoggerThread.this.queueLogTask(null, logTask);
+				}
+				
+				@Override
+				protected void queueLogTask(Level level, Consumer<PrintWriter> logTask) {
+					LoggerThread.this.queueLogTask(level, logTask);
+				}
+				
+				@Override
+				protected void queueFlushMarker(CompletableFuture<Void> future) {
+					LoggerThread.this.queueFlushMarker(future);
 				}
 
 				@Override
@@ -395,6 +1461,129 @@ public class LoggerThread extends Thread implements Leveled {
 			return newLogger;
 		}
 		
+		/**
+		 * Returns a new {@code FingersCrossedLogger} that keeps last {@code capacity} logs of every level,
+		 * and writes them when an error occurs. Logs that are enabled by the log level are submitted
+		 * to the logger thread when they are pushed out of the ring, or the logger is flushed.
+		 * 
+		 * @param capacity number of logs kept in the ring
+		 * @throws IllegalArgumentException if {@code capacity} is not positive
+		 * @see FingersCrossedLogger
+		 * */
+		public FingersCrossedLogger getFingersCrossedLogger(int capacity) throws IllegalArgumentException {
+			FingersCrossedLogger newLogger = new FingersCrossedLogger(getLogFormatter(), childLevel, capacity) {
+
+				@Override
+				public void queueLogTask(Consumer<PrintWriter> logTask) {
+					LoggerThread.this.queueLogTask(null, logTask);
+				}
+				
+				@Override
+				protected void queueLogTask(Level level, Consumer<PrintWriter> logTask) {
+					LoggerThread.this.queueLogTask(level, logTask);
+				}
+				
+				@Override
+				protected void queueFlushMarker(CompletableFuture<Void> future) {
+					LoggerThread.this.queueFlushMarker(future);
+				}
+
+				@Override
+				public void close() {
+					flush();
+					children.remove(this);
+				}
+				
+			};
+			newLogger.setPrefix(childPrefix);
+			children.add(newLogger);
+			return newLogger;
+		}
+		
+	}
+	
+	/**
+	 * A {@code Writer} that counts characters written since the last flush.
+	 */
+	private static class CountingWriter extends FilterWriter {
+		
+		/** Number of characters written since the last flush. */
+		private long count = 0;
+		/** Number of characters written in total. */
+		private long total = 0;
+		/** The last {@code IOException} from the destination that is not reported yet. Set by producers too(caller runs). */
+		private final AtomicReference<IOException> failure = new AtomicReference<>();
+		private final LoggerMetrics metrics;
+		
+		public CountingWriter(Writer out, LoggerMetrics metrics) {
+			super(out);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			try {
+				out.write(c);
+			} catch (IOException e) {
+				throw failed(e);
+			}
+			count++;
+			total++;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			try {
+				out.write(cbuf, off, len);
+			} catch (IOException e) {
+				throw failed(e);
+			}
+			count += len;
+			total += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			try {
+				out.write(str, off, len);
+			} catch (IOException e) {
+				throw failed(e);
+			}
+			count += len;
+			total += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			try {
+				out.flush();
+			} catch (IOException e) {
+				throw failed(e);
+			}
+			count = 0;
+			metrics.recordFlush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				out.close();
+			} catch (IOException e) {
+				throw failed(e);
+			}
+		}
+
+		private IOException failed(IOException e) {
+			failure.set(e);
+			return e;
+		}
+
+		/**
+		 * @return the last failure since the last call, or {@code null} if there's none.
+		 */
+		IOException takeFailure() {
+			return failure.getAndSet(null);
+		}
 	}
 	
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of {@code LoggerThread}s(shards), each with its own queue and destination.
+ *
+ * <p>A single {@code LoggerThread} writes every log in one thread, so it can be a bottleneck when
+ * many threads are logging heavily. {@code LoggerThreadPool} spreads child loggers to several {@code LoggerThread}s,
+ * so that logs are formatted and written by several threads in parallel.
+ *
+ * <p>A child logger is bound to a shard when it's created, by an explicit shard id({@link #getLoggerBuilder(int)}),
+ * by the hash of a key({@link #getLoggerBuilderByKey(Object)}), or by the hash of its prefix({@link #getLoggerBuilderByPrefix(String)}).
+ * Loggers with the same key or prefix are always bound to the same shard. Logs of a shard are written in the order they're queued,
+ * as in a single {@code LoggerThread}, but there is no order between logs of different shards.
+ *
+ * <p>Each shard is a normal {@code LoggerThread}, so destination, formatter, level, overflow policy, etc. can be set
+ * via {@link #getShard(int)} or {@link #forEachShard(Consumer)}. Usually each shard should have its own destination
+ * (e.g. a file per shard); shards sharing one {@code Writer} contend for it.
+ */
+public class LoggerThreadPool {
+
+	private final LoggerThread[] shards;
+
+	/**
+	 * Creates a pool of {@code LoggerThread}s with unbounded {@link LinkedLogQueue}s.
+	 *
+	 * @param shards number of {@code LoggerThread}s
+	 * @throws IllegalArgumentException if {@code shards} is not positive
+	 */
+	public LoggerThreadPool(int shards) throws IllegalArgumentException {
+		this(shards, LinkedLogQueue::new);
+	}
+
+	/**
+	 * Creates a pool of {@code LoggerThread}s.
+	 *
+	 * @param shards number of {@code LoggerThread}s
+	 * @param queueSupplier creates a queue for each {@code LoggerThread}
+	 * @throws IllegalArgumentException if {@code shards} is not positive
+	 */
+	public LoggerThreadPool(int shards, Supplier<LogQueue> queueSupplier) throws IllegalArgumentException {
+		if(shards <= 0) throw new IllegalArgumentException("Invalid number of shards : " + shards);
+		this.shards = new LoggerThread[shards];
+		for(int i = 0; i < shards; i++) {
+			this.shards[i] = new LoggerThread(queueSupplier.get());
+			this.shards[i].setName("LoggerThread-" + i);
+		}
+	}
+
+	/**
+	 * Set destination of each shard.
+	 *
+	 * @param destinations returns the destination of given shard id
+	 * @param autoFlush whether to flush the destinations automatically
+	 * @see LoggerThread#setLogDestination(Writer, boolean)
+	 */
+	public void setLogDestinations(IntFunction<Writer> destinations, boolean autoFlush) {
+		for(int i = 0; i < shards.length; i++) shards[i].setLogDestination(destinations.apply(i), autoFlush);
+	}
+
+	/**
+	 * Apply given action to every shard. Useful to configure every shard in the same way.
+	 */
+	public void forEachShard(Consumer<LoggerThread> action) {
+		for(LoggerThread lt : shards) action.accept(lt);
+	}
+
+	/**
+	 * @return the shard of given id.
+	 * @throws IllegalArgumentException if {@code shard} is out of range
+	 */
+	public LoggerThread getShard(int shard) throws IllegalArgumentException {
+		if(shard < 0 || shard >= shards.length) throw new IllegalArgumentException("Invalid shard id : " + shard + ", number of shards : " + shards.length);
+		return shards[shard];
+	}
+
+	/**
+	 * @return every shard, in the order of shard id.
+	 */
+	public List<LoggerThread> getShards() {
+		return Collections.unmodifiableList(Arrays.asList(shards));
+	}
+
+	/**
+	 * @return number of shards.
+	 */
+	public int size() {
+		return shards.length;
+	}
+
+	/**
+	 * Returns id of the shard that logs with given key are routed to.
+	 *
+	 * @param key the routing key. {@code null} is routed to shard {@code 0}.
+	 * @return shard id
+	 */
+	public int shardOf(Object key) {
+		if(key == null) return 0;
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return Math.floorMod(h, shards.length);
+	}
+
+	/**
+	 * Get a builder for a child logger of given shard.
+	 *
+	 * @throws IllegalArgumentException if {@code shard} is out of range
+	 */
+	public LoggerThread.LoggerBuilder getLoggerBuilder(int shard) throws IllegalArgumentException {
+		return getShard(shard).getLoggerBuilder();
+	}
+
+	/**
+	 * Get a builder for a child logger of the shard that given key is routed to.
+	 *
+	 * @see LoggerThreadPool#shardOf(Object)
+	 */
+	public LoggerThread.LoggerBuilder getLoggerBuilderByKey(Object key) {
+		return shards[shardOf(key)].getLoggerBuilder();
+	}
+
+	/**
+	 * Get a builder for a child logger with given prefix, of the shard that the prefix is routed to.
+	 *
+	 * @see LoggerThreadPool#shardOf(Object)
+	 */
+	public LoggerThread.LoggerBuilder getLoggerBuilderByPrefix(String prefix) {
+		return shards[shardOf(prefix)].getLoggerBuilder().setPrefix(prefix);
+	}
+
+	/**
+	 * Start every shard.
+	 */
+	public void start() {
+		for(LoggerThread lt : shards) lt.start();
+	}
+
+	/**
+	 * Shut down every shard, waiting at most {@code timeOut} milliseconds in total.
+	 * A timeout of {@code 0} means to wait forever.
+	 * Every shard begins to drain its queue at once, so that the shards are drained in parallel until the same deadline.
+	 *
+	 * @return sum of the reports of the shards
+	 * @see LoggerThread#shutdown(int)
+	 */
+	public ShutdownReport shutdown(int timeOut) {
+		long start = System.nanoTime();
+		for(LoggerThread lt : shards) lt.beginShutdown(timeOut);
+		long written = 0, dropped = 0, pending = 0;
+		boolean terminated = true;
+		for(LoggerThread lt : shards) {
+			/* waits until the deadline set by beginShutdown */
+			ShutdownReport r = lt.shutdown(timeOut);
+			written += r.getWrittenCount();
+			dropped += r.getDroppedCount();
+			pending += r.getPendingCount();
+			terminated &= r.isTerminated();
+		}
+		return new ShutdownReport(written, dropped, pending, (System.nanoTime() - start) / 1_000_000L, terminated);
+	}
+
+	@Override
+	public String toString() {
+		return "LoggerThreadPool [shards=" + shards.length + "]";
+	}
+}
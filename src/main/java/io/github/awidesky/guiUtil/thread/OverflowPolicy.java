@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import io.github.awidesky.guiUtil.level.Level;
+
+/**
+ * Defines what a child {@code TaskLogger} does when the {@link LogQueue} of its {@code LoggerThread} is full.
+ * 
+ * <p>Overflow can only happen with a bounded queue, like {@link RingBufferLogQueue} or {@link LinkedLogQueue#LinkedLogQueue(int)}.
+ * Every time a policy is applied, it's counted in {@link LoggerThread#getOverflowCount(OverflowPolicy)}.
+ * If any log task is dropped, {@code LoggerThread} writes a line of "N events dropped" when the queue becomes empty again.
+ * 
+ * @see LoggerThread#setOverflowPolicy(OverflowPolicy)
+ * @see LoggerThread#setOverflowPolicy(OverflowPolicy, Level)
+ */
+public enum OverflowPolicy {
+	/** Block the producer thread until the queue has space. This is the default policy. */
+	BLOCK,
+	/** Drop the log task that is being queued. */
+	DROP_NEWEST,
+	/** Drop the oldest queued log tasks until the new log task can be queued. */
+	DROP_OLDEST,
+	/**
+	 * Drop the log task that is being queued if its level is below the drop level given in
+	 * {@link LoggerThread#setOverflowPolicy(OverflowPolicy, Level)}. Otherwise, block the producer thread.<br>
+	 * {@code ERROR} and {@code FATAL} logs, and log tasks without a level(like {@code TaskLogger#newLine()})
+	 * are never dropped.
+	 */
+	DROP_BELOW_LEVEL,
+	/**
+	 * Execute the log task in the producer thread, without queuing it.
+	 * The log task will be written before the log tasks that are already queued.
+	 */
+	CALLER_RUNS;
+}
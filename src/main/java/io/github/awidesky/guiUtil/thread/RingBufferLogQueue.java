@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/*
+ * Padding classes. Fields of a superclass are laid out before the fields of a subclass,
+ * so each hot field below is surrounded by 64 bytes of padding and never shares a cache line
+ * with other hot fields.
+ */
+abstract class RingBufferPad0 { long p00, p01, p02, p03, p04, p05, p06, p07; }
+abstract class RingBufferTail extends RingBufferPad0 { volatile long tail; }
+abstract class RingBufferPad1 extends RingBufferTail { long p10, p11, p12, p13, p14, p15, p16, p17; }
+abstract class RingBufferHead extends RingBufferPad1 { volatile long head; }
+abstract class RingBufferPad2 extends RingBufferHead { long p20, p21, p22, p23, p24, p25, p26, p27; }
+abstract class RingBufferWaiter extends RingBufferPad2 { volatile Thread waiter; }
+abstract class RingBufferPad3 extends RingBufferWaiter { long p30, p31, p32, p33, p34, p35, p36, p37; }
+
+/**
+ * A bounded, lock-free multi-producer/single-consumer {@link LogQueue} that reuses its {@link LogEvent}s.
+ *
+ * <p>Slots are stored in an array whose length is a power of two, and each slot holds a {@link LogEvent}
+ * that is allocated lazily when the slot is claimed first, and reused forever; so a large queue that is never filled
+ * does not hold an event for every slot. Each producer claims a sequence number with a single CAS on the tail, fills the event
+ * of the claimed slot, and publishes it by advancing the sequence of the slot. The consumer({@code LoggerThread})
+ * handles slots in sequence order, and advances the head with a CAS that is uncontended unless producers are
+ * evicting the oldest events({@link OverflowPolicy#DROP_OLDEST}).
+ * Therefore, events are handled in exactly the order their sequences were claimed, and events published by one thread
+ * are always handled in the order they were published.
+ *
+ * <p>No object is allocated per log event once every slot is used. If the queue is full, {@link #claim()} spins, yields and then
+ * parks until the consumer frees a slot.
+ *
+ * @see LoggerThread#LoggerThread(LogQueue)
+ * */
+public class RingBufferLogQueue extends RingBufferPad3 implements LogQueue {
+
+	/** Default capacity of the ring buffer. */
+	public static final int DEFAULT_CAPACITY = 8192;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private static final int SPIN_TRIES = 128;
+	private static final int YIELD_TRIES = 256;
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private static final VarHandle TAIL;
+	private static final VarHandle HEAD;
+	private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			TAIL = lookup.findVarHandle(RingBufferTail.class, "tail", long.class);
+			HEAD = lookup.findVarHandle(RingBufferHead.class, "head", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final int mask;
+	/** Sequence of each slot. A slot is writable at sequence {@code n} if its value is {@code n}, and readable if {@code n + 1}. */
+	private final long[] sequences;
+	private final LogEvent[] events;
+
+	/**
+	 * Creates a ring buffer with {@link RingBufferLogQueue#DEFAULT_CAPACITY}.
+	 */
+	public RingBufferLogQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a ring buffer that can hold at least {@code capacity} events.
+	 * Actual capacity is rounded up to the next power of two.
+	 *
+	 * @param capacity the minimum capacity
+	 * @throws IllegalArgumentException if {@code capacity} is not positive or larger than {@code 2^30}
+	 */
+	public RingBufferLogQueue(int capacity) throws IllegalArgumentException {
+		int size = actualCapacity(capacity);
+		mask = size - 1;
+		sequences = new long[size];
+		events = new LogEvent[size];
+		for(int i = 0; i < size; i++) sequences[i] = i;
+	}
+
+	/**
+	 * @return {@code capacity} rounded up to the next power of two.
+	 * @throws IllegalArgumentException if {@code capacity} is not positive or larger than {@code 2^30}
+	 */
+	static int actualCapacity(int capacity) throws IllegalArgumentException {
+		if(capacity <= 0 || capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Invalid ring buffer capacity : " + capacity);
+		}
+		return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+	}
+
+	/**
+	 * @return the actual capacity of this ring buffer, which is always a power of two.
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	@Override
+	public LogEvent claim() throws InterruptedException {
+		LogEvent event;
+		int idle = 0;
+		while((event = tryClaim()) == null) {
+			if(Thread.interrupted()) throw new InterruptedException();
+			idle = backoff(idle);
+		}
+		return event;
+	}
+
+	@Override
+	public LogEvent tryClaim() {
+		while(true) {
+			long seq = tail;
+			long diff = (long) SEQUENCE.getVolatile(sequences, (int) seq & mask) - seq;
+			if(diff == 0) {
+				if(TAIL.compareAndSet(this, seq, seq + 1)) {
+					/* the slot is owned by this thread until published, and publishing makes the new event visible */
+					LogEvent event = events[(int) seq & mask];
+					if(event == null) events[(int) seq & mask] = event = new LogEvent();
+					event.sequence = seq;
+					return event;
+				}
+			} else if(diff < 0) {
+				return null;
+			}
+			// else, another producer claimed this sequence already. retry with the new tail.
+		}
+	}
+
+	@Override
+	public void publish(LogEvent event) {
+		long seq = event.sequence;
+		SEQUENCE.setVolatile(sequences, (int) seq & mask, seq + 1);
+		Thread w = waiter;
+		if(w != null) LockSupport.unpark(w);
+	}
+
+	private static int backoff(int idle) {
+		if(idle < SPIN_TRIES) Thread.onSpinWait();
+		else if(idle < YIELD_TRIES) Thread.yield();
+		else LockSupport.parkNanos(PARK_NANOS);
+		return idle + 1;
+	}
+
+	/**
+	 * Take the next published sequence by advancing the head.
+	 * The slot of returned sequence is owned by the caller until {@link #release(long)} is called.
+	 *
+	 * @return taken sequence, or {@code -1} if there is no published event
+	 */
+	private long take() {
+		while(true) {
+			long seq = head;
+			long diff = (long) SEQUENCE.getVolatile(sequences, (int) seq & mask) - (seq + 1);
+			if(diff == 0) {
+				if(HEAD.compareAndSet(this, seq, seq + 1)) return seq;
+			} else if(diff < 0) {
+				return -1;
+			}
+			// else, the slot was evicted by a producer. retry with the new head.
+		}
+	}
+
+	/** Recycle the event of a taken sequence and make the slot writable for the next lap. */
+	private void release(long seq) {
+		int index = (int) seq & mask;
+		events[index].clear();
+		SEQUENCE.setRelease(sequences, index, seq + mask + 1);
+	}
+
+	/** @return {@code true} if the slot at the head is published. */
+	boolean available() {
+		long seq = head;
+		return (long) SEQUENCE.getVolatile(sequences, (int) seq & mask) == seq + 1;
+	}
+
+	/** @return the published event at the head, or {@code null} if there is none. */
+	LogEvent peek() {
+		long seq = head;
+		int index = (int) seq & mask;
+		return (long) SEQUENCE.getVolatile(sequences, index) == seq + 1 ? events[index] : null;
+	}
+
+	@Override
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		for(int i = 0; i < SPIN_TRIES; i++) {
+			if(available()) return true;
+			Thread.onSpinWait();
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		waiter = Thread.currentThread();
+		try {
+			/*
+			 * waiter is written before the slot is re-checked, and producers write the slot before reading waiter.
+			 * so either we see the published event, or the producer sees us and unparks.
+			 */
+			while(!available()) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) return false;
+				LockSupport.parkNanos(this, remaining);
+				if(Thread.interrupted()) throw new InterruptedException();
+			}
+			return true;
+		} finally {
+			waiter = null;
+		}
+	}
+
+	@Override
+	public int drain(Consumer<LogEvent> handler, int maxEvents) {
+		int n = 0;
+		long seq;
+		while(n < maxEvents && (seq = take()) >= 0) {
+			try {
+				handler.accept(events[(int) seq & mask]);
+			} finally {
+				release(seq);
+			}
+			n++;
+		}
+		return n;
+	}
+
+	@Override
+	public boolean evict(Consumer<LogEvent> handler) {
+		long seq = take();
+		if(seq < 0) return false;
+		try {
+			handler.accept(events[(int) seq & mask]);
+		} finally {
+			release(seq);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns {@code true} if there is no claimed sequence that is not taken by the consumer.
+	 * An event that is being published is considered as queued.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return head == tail;
+	}
+
+	@Override
+	public int size() {
+		long size = tail - head;
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	@Override
+	public String toString() {
+		return "RingBufferLogQueue [capacity=" + capacity() + ", size=" + size() + "]";
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+/**
+ * Result of {@link LoggerThread#shutdown(int)}.
+ * Tells how many log events were written, dropped and left pending(not written because the deadline has passed)
+ * during the lifetime of a {@code LoggerThread}.
+ */
+public final class ShutdownReport {
+
+	private final long written;
+	private final long dropped;
+	private final long pending;
+	private final long elapsedMillis;
+	private final boolean terminated;
+
+	ShutdownReport(long written, long dropped, long pending, long elapsedMillis, boolean terminated) {
+		this.written = written;
+		this.dropped = dropped;
+		this.pending = pending;
+		this.elapsedMillis = elapsedMillis;
+		this.terminated = terminated;
+	}
+
+	/**
+	 * @return number of log events written by the {@code LoggerThread}.
+	 * 			Logs written by producers({@link OverflowPolicy#CALLER_RUNS}) are not included.
+	 */
+	public long getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * @return number of log events dropped due to queue overflow.
+	 * @see LoggerThread#getDroppedCount()
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * @return number of log events that were queued but not written, because the shutdown deadline has passed.
+	 */
+	public long getPendingCount() {
+		return pending;
+	}
+
+	/**
+	 * @return time taken by {@link LoggerThread#shutdown(int)} in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return {@code true} if the {@code LoggerThread} had terminated when {@link LoggerThread#shutdown(int)} returned.
+	 */
+	public boolean isTerminated() {
+		return terminated;
+	}
+
+	/**
+	 * @return {@code true} if every queued log event was written(nothing is pending) and the {@code LoggerThread} has terminated.
+	 */
+	public boolean isComplete() {
+		return terminated && pending == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ShutdownReport [written=" + written + ", dropped=" + dropped + ", pending=" + pending
+				+ ", elapsedMillis=" + elapsedMillis + ", terminated=" + terminated + "]";
+	}
+}
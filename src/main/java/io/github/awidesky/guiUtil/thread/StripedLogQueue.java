@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2023 Eugene Hong
+ *
+ * This software is distributed under license. Use of this software
+ * implies agreement with all terms and conditions of the accompanying
+ * software license.
+ * Please refer to LICENSE
+ * */
+
+package io.github.awidesky.guiUtil.thread;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A {@link LogQueue} that gives each producing thread its own bounded {@link RingBufferLogQueue}(lane),
+ * and merges the lanes in the consumer({@code LoggerThread}).
+ *
+ * <p>Since each lane is written by only one thread, producers never write to a cache line that is written
+ * by another producer, and the enqueue path does not bounce cache lines across cores.
+ * A lane is created when a thread logs for the first time, and removed by the consumer
+ * after the thread terminates and every event of the lane is handled.
+ * Each lane allocates its slot array(about 12 bytes per slot) when created, and a {@code LogEvent} per slot only when
+ * the slot is used first; so a thread that logs rarely costs little more than the slot array.
+ * Use {@link StripedLogQueue#StripedLogQueue(int, boolean)} to set a smaller lane capacity if many threads log.
+ *
+ * <p>By default, lanes are drained in turn. Events published by one thread are always handled in the order
+ * they were published, but events from different threads may be handled out of order.<br>
+ * If {@code ordered} is {@code true}, each event is given a global sequence number when it's claimed,
+ * and the consumer handles the event with the smallest sequence number among the events available at the moment.
+ * This costs one increment of a shared {@code AtomicLong} per event: every producer writes the same cache line on every
+ * claim, which is the contention that striping avoids. Under heavy multi-threaded logging, ordered mode may be no faster
+ * than a single {@link RingBufferLogQueue}; use it only if order across threads matters more than throughput.
+ * An event that is claimed but not published yet cannot be waited, so the order is only approximate when
+ * producers race closely.
+ *
+ * <p>If the lane of the current thread is full, {@link #claim()} waits until the consumer frees a slot in that lane,
+ * and {@link #evict(Consumer)} removes the oldest event of that lane.
+ *
+ * @see LoggerThread#LoggerThread(LogQueue)
+ * */
+public class StripedLogQueue implements LogQueue {
+
+	/** Default capacity of each lane. */
+	public static final int DEFAULT_LANE_CAPACITY = 1024;
+
+	private static final int SPIN_TRIES = 128;
+	/** Number of {@code drain} calls between checks for dead lanes. */
+	private static final int REAP_INTERVAL = 256;
+
+	private final int laneCapacity;
+	private final boolean ordered;
+	private final AtomicLong orderSequence;
+
+	private final ThreadLocal<Lane> localLane = new ThreadLocal<>();
+	/** Every lane that is not removed yet. Copied on write. */
+	private volatile Lane[] lanes = new Lane[0];
+	/** Index of the lane to be drained first. Used only in the consumer thread. */
+	private int nextLane = 0;
+	/** Number of {@code drain} calls since dead lanes were checked. Used only in the consumer thread. */
+	private int drainsSinceReap = 0;
+	private volatile Thread waiter;
+	/** Set by {@link StripedLogQueue#wakeUp()}, and cleared by the consumer when it returns from {@code await}. */
+	private volatile boolean wakeUpRequested = false;
+
+	/** A lane owned by a single producer thread. */
+	private static final class Lane extends RingBufferLogQueue {
+		private final Thread owner;
+
+		private Lane(int capacity, Thread owner) {
+			super(capacity);
+			this.owner = owner;
+		}
+	}
+
+	/**
+	 * Creates an unordered striped queue with {@link StripedLogQueue#DEFAULT_LANE_CAPACITY}.
+	 */
+	public StripedLogQueue() {
+		this(DEFAULT_LANE_CAPACITY, false);
+	}
+
+	/**
+	 * Creates a striped queue.
+	 *
+	 * @param laneCapacity the minimum capacity of each lane. Actual capacity is rounded up to the next power of two.
+	 * @param ordered if {@code true}, events from different threads are merged in the order they were claimed,
+	 * 			at the cost of a shared atomic increment per event.
+	 * @throws IllegalArgumentException if {@code laneCapacity} is not positive or larger than {@code 2^30}
+	 */
+	public StripedLogQueue(int laneCapacity, boolean ordered) throws IllegalArgumentException {
+		this.laneCapacity = RingBufferLogQueue.actualCapacity(laneCapacity);
+		this.ordered = ordered;
+		this.orderSequence = ordered ? new AtomicLong() : null;
+	}
+
+	/**
+	 * @return the actual capacity of each lane.
+	 */
+	public int laneCapacity() {
+		return laneCapacity;
+	}
+
+	/**
+	 * @return {@code true} if events from different threads are merged in order.
+	 */
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	/**
+	 * @return number of lanes that are not removed yet.
+	 */
+	public int laneCount() {
+		return lanes.length;
+	}
+
+	private Lane lane() {
+		Lane lane = localLane.get();
+		if(lane == null) {
+			lane = new Lane(laneCapacity, Thread.currentThread());
+			synchronized (this) {
+				Lane[] old = lanes;
+				Lane[] arr = Arrays.copyOf(old, old.length + 1);
+				arr[old.length] = lane;
+				lanes = arr;
+			}
+			localLane.set(lane);
+		}
+		return lane;
+	}
+
+	@Override
+	public LogEvent claim() throws InterruptedException {
+		return stamp(lane().claim());
+	}
+
+	@Override
+	public LogEvent tryClaim() {
+		return stamp(lane().tryClaim());
+	}
+
+	private LogEvent stamp(LogEvent event) {
+		if(ordered && event != null) event.order = orderSequence.getAndIncrement();
+		return event;
+	}
+
+	/**
+	 * Publish a log event. The event must be published by the thread that claimed it.
+	 */
+	@Override
+	public void publish(LogEvent event) {
+		localLane.get().publish(event);
+		Thread w = waiter;
+		if(w != null) LockSupport.unpark(w);
+	}
+
+	private boolean available() {
+		for(Lane lane : lanes) {
+			if(lane.available()) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return {@code true} if an event is available, or a wake up was requested(which is cleared).
+	 */
+	private boolean ready() {
+		if(wakeUpRequested) {
+			wakeUpRequested = false;
+			return true;
+		}
+		return available();
+	}
+
+	/**
+	 * Wakes the consumer up without publishing an event, so that a thread that never logged(e.g. a shutdown hook)
+	 * does not create a lane.
+	 */
+	@Override
+	public void wakeUp() {
+		wakeUpRequested = true;
+		Thread w = waiter;
+		if(w != null) LockSupport.unpark(w);
+	}
+
+	@Override
+	public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+		for(int i = 0; i < SPIN_TRIES; i++) {
+			if(ready()) return true;
+			Thread.onSpinWait();
+		}
+
+		removeDeadLanes();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		waiter = Thread.currentThread();
+		try {
+			/*
+			 * waiter is written before the lanes are re-checked, and producers publish(or wakeUp requests) before reading waiter.
+			 * so either we see the published event, or the producer sees us and unparks.
+			 */
+			while(!ready()) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) return false;
+				LockSupport.parkNanos(this, remaining);
+				if(Thread.interrupted()) throw new InterruptedException();
+			}
+			return true;
+		} finally {
+			waiter = null;
+		}
+	}
+
+	/**
+	 * Remove lanes whose owner thread is terminated and has no queued event.
+	 * A terminated thread cannot claim or publish anymore, so the lane stays empty forever.
+	 */
+	private void removeDeadLanes() {
+		Lane[] arr = lanes;
+		for(Lane lane : arr) {
+			if(!lane.owner.isAlive() && lane.isEmpty()) {
+				synchronized (this) {
+					lanes = Arrays.stream(lanes).filter(l -> l.owner.isAlive() || !l.isEmpty()).toArray(Lane[]::new);
+				}
+				return;
+			}
+		}
+	}
+
+	@Override
+	public int drain(Consumer<LogEvent> handler, int maxEvents) {
+		/* await removes dead lanes only before parking, which may never happen if the queue is always busy */
+		if(++drainsSinceReap >= REAP_INTERVAL) {
+			drainsSinceReap = 0;
+			removeDeadLanes();
+		}
+		return ordered ? drainOrdered(handler, maxEvents) : drainUnordered(handler, maxEvents);
+	}
+
+	private int drainUnordered(Consumer<LogEvent> handler, int maxEvents) {
+		Lane[] arr = lanes;
+		int n = 0;
+		/* drain each lane in turn, starting from a different lane each time so that no lane starves. */
+		for(int i = 0; i < arr.length && n < maxEvents; i++) {
+			n += arr[(nextLane + i) % arr.length].drain(handler, maxEvents - n);
+		}
+		if(arr.length > 0) nextLane = (nextLane + 1) % arr.length;
+		return n;
+	}
+
+	private int drainOrdered(Consumer<LogEvent> handler, int maxEvents) {
+		Lane[] arr = lanes;
+		int n = 0;
+		while(n < maxEvents) {
+			Lane min = null;
+			long minOrder = Long.MAX_VALUE;
+			for(Lane lane : arr) {
+				LogEvent e = lane.peek();
+				if(e != null && e.order < minOrder) {
+					min = lane;
+					minOrder = e.order;
+				}
+			}
+			if(min == null || min.drain(handler, 1) == 0) break;
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Removes the oldest published log event of the current thread's lane.
+	 */
+	@Override
+	public boolean evict(Consumer<LogEvent> handler) {
+		Lane lane = localLane.get();
+		return lane != null && lane.evict(handler);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for(Lane lane : lanes) {
+			if(!lane.isEmpty()) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for(Lane lane : lanes) size += lane.size();
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "StripedLogQueue [lanes=" + lanes.length + ", laneCapacity=" + laneCapacity + ", ordered=" + ordered + ", size=" + size() + "]";
+	}
+}
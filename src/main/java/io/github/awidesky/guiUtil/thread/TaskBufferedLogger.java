@@ -10,19 +10,27 @@
 package io.github.awidesky.guiUtil.thread;
 
 import java.io.Flushable;
-import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
 
 import io.github.awidesky.guiUtil.formatter.LogFormatter;
 import io.github.awidesky.guiUtil.level.Level;
 
 /**
- * A {@code TaskLogger} that buffer all logs to {@code StringWriter} and does not actually prints it
- * before {@code TaskBufferedLogger#flush()} is called.
+ * A {@code TaskLogger} that buffer all logs and does not actually prints it
+ * before {@code TaskBufferedLogger#flush()} is called, or the buffer exceeds the auto flush threshold.
  * {@code TaskBufferedLogger#runLogTask(Consumer)} is not supported; this class is for buffered operation only.
+ * 
+ * <p>Logs are buffered in an unsynchronized chunked buffer, which is handed to the parent {@code LoggerThread}
+ * as it is when flushed. So a {@code TaskBufferedLogger} should be used by only one thread at a time.
  * */
 public abstract class TaskBufferedLogger extends TaskLogger implements Flushable {
 
-	private StringWriter buffer = new StringWriter();
+	/** Default auto flush threshold in characters. */
+	public static final int DEFAULT_FLUSH_THRESHOLD = 64 * 1024;
+
+	private ChunkedCharBuffer buffer = new ChunkedCharBuffer();
+	private int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+	private boolean flushOnError = false;
 
 	/**
 	 * Creates a task based buffered logger.
@@ -31,29 +39,88 @@ public abstract class TaskBufferedLogger extends TaskLogger implements Flushable
 		super(formatter, level);
 	}
 
+	/**
+	 * Set number of buffered characters that triggers flush.
+	 * The threshold is checked after each log, so a log is never split across flushes.
+	 * 
+	 * @param chars the threshold. {@code 0} means buffered logs are submitted only when {@code flush()} or {@code close()} is called.
+	 * @throws IllegalArgumentException if {@code chars} is negative
+	 */
+	public void setFlushThreshold(int chars) throws IllegalArgumentException {
+		if(chars < 0) throw new IllegalArgumentException("Invalid flush threshold : " + chars);
+		flushThreshold = chars;
+	}
+
+	/**
+	 * @return number of buffered characters that triggers flush, or {@code 0} if disabled.
+	 */
+	public int getFlushThreshold() {
+		return flushThreshold;
+	}
+
+	/**
+	 * Set whether to flush immediately after an {@code ERROR} or {@code FATAL} log is buffered,
+	 * so that it's not lost(with logs before it) if the buffer is never flushed. Default is {@code false}.
+	 */
+	public void setFlushOnError(boolean flushOnError) {
+		this.flushOnError = flushOnError;
+	}
+
+	/**
+	 * @return {@code true} if buffered logs are flushed after an {@code ERROR} or {@code FATAL} log.
+	 */
+	public boolean isFlushOnError() {
+		return flushOnError;
+	}
+
+	/**
+	 * @return number of buffered characters that are not submitted yet.
+	 */
+	public long bufferedLength() {
+		return buffer.length();
+	}
+
 	@Override
 	public void newLine() {
 		buffer.append(System.lineSeparator());
+		if(flushThreshold > 0 && buffer.length() >= flushThreshold) submit(null);
 	}
 	
 	@Override
-	protected void consumeLogString(String str) {
+	protected void consumeLogString(Level level, String str) {
 		buffer.append(str);
-		newLine();		
+		buffer.append(System.lineSeparator());
+		if(flushOnError && level != null && Level.ERROR.includes(level)) submit(level);
+		else if(flushThreshold > 0 && buffer.length() >= flushThreshold) submit(null);
 	}
 
 	/**
 	 * Empty the buffer and submit logs to the parent {@code LoggerThread}.<br>
-	 * Buffered logs are submitted if and only if {@code flush()} or {@code close()} called.
+	 * The buffer is handed to the {@code LoggerThread} without copying, and a new buffer is used afterward.
 	 * */
 	@Override
 	public void flush() {
-		if(buffer.getBuffer().length() != 0) {
-			String str = buffer.toString();
-			buffer.getBuffer().setLength(0);
-			queueLogTask((logTo) -> {
-				logTo.print(str);
-			});
+		submit(null);
+	}
+
+	/**
+	 * Submit buffered logs via {@link #flush()} first, so that the returned future covers them.
+	 */
+	@Override
+	public CompletableFuture<Void> flushAsync() {
+		flush();
+		return super.flushAsync();
+	}
+
+	/**
+	 * Submit buffered logs as a task of given level, so that the parent {@code LoggerThread} does not drop
+	 * an error log when its queue is full.
+	 */
+	void submit(Level level) {
+		if(buffer.length() != 0) {
+			ChunkedCharBuffer buf = buffer;
+			buffer = new ChunkedCharBuffer();
+			queueLogTask(level, buf::writeTo);
 		}
 	}
 
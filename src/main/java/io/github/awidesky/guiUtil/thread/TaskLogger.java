@@ -10,6 +10,10 @@
 package io.github.awidesky.guiUtil.thread;
 
 import java.io.PrintWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import io.github.awidesky.guiUtil.AbstractLogger;
@@ -45,6 +49,17 @@ public abstract class TaskLogger extends AbstractLogger {
 	 * */
 	protected abstract void queueLogTask(Consumer<PrintWriter> logTask);
 
+	/**
+	 * Queue a log task of given level.
+	 * Implementation may use the level to decide whether the task can be dropped.
+	 * Default implementation just calls {@link TaskLogger#queueLogTask(Consumer)}.
+	 * 
+	 * @param level level of the log task. {@code null} if the task does not have a level.
+	 * */
+	protected void queueLogTask(Level level, Consumer<PrintWriter> logTask) {
+		queueLogTask(logTask);
+	}
+
 	@Override
 	public void newLine() {
 		queueLogTask((logTo) -> {
@@ -52,9 +67,38 @@ public abstract class TaskLogger extends AbstractLogger {
 		});
 	}
 
+	/**
+	 * Queue a log message that is not formatted yet.
+	 * Implementation may format the message directly into a reusable buffer, without generating intermediate objects.
+	 * Default implementation formats the message and calls {@link TaskLogger#consumeLogString(Level, String)}.
+	 * 
+	 * @param level level of the log
+	 * @param formatter the formatter to format the log with
+	 * @param prefix prefix of the log, may be {@code null}
+	 * @param msg the log message
+	 * */
+	protected void queueLogEvent(Level level, LogFormatter formatter, String prefix, CharSequence msg) {
+		consumeLogString(level, formatter.format(level, prefix, msg));
+	}
+
+	@Override
+	protected void writeString(Level level, CharSequence msg) {
+		queueLogEvent(level, formatter, prefix, msg);
+	}
+
 	@Override
 	protected void consumeLogString(String str) {
-		queueLogTask(getLogTask(str));
+		consumeLogString(null, str);
+	}
+
+	/**
+	 * Actually write the log with its level.
+	 * 
+	 * @param level the log level, {@code null} if unknown.
+	 * @param str the string to log
+	 */
+	protected void consumeLogString(Level level, String str) {
+		queueLogTask(level, getLogTask(str));
 	}
 
 	/**
@@ -66,6 +110,47 @@ public abstract class TaskLogger extends AbstractLogger {
 		};
 	}
 	
+	/**
+	 * Returns a future that completes when every log queued by this logger before this call is written
+	 * and the destination(and every additional {@link LogDestination}) is flushed.<br>
+	 * This is done by queuing a marker after the logs, so other loggers are not blocked.
+	 * Since only logs queued by a single thread are guaranteed to be written in order(see {@link LogQueue}),
+	 * the future covers logs queued by the current thread, and logs of other threads that are already in the queue
+	 * if the queue is FIFO({@link LinkedLogQueue}, {@link RingBufferLogQueue}).
+	 * Additional {@link LogDestination}s, which have their own writer threads, are waited for until they write
+	 * and flush logs given before the marker.
+	 * 
+	 * @return a future that completes when logs are written, or completes exceptionally if the {@code LoggerThread}
+	 * 			terminates before writing them.
+	 */
+	public CompletableFuture<Void> flushAsync() {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		queueFlushMarker(future);
+		return future;
+	}
+
+	/**
+	 * Waits until every log queued by this logger before this call is written and the destination is flushed.
+	 * 
+	 * @return {@code true} if logs are written, {@code false} if the timeout elapsed,
+	 * 			or the {@code LoggerThread} terminated before writing them.
+	 * @throws InterruptedException if interrupted while waiting
+	 * @see TaskLogger#flushAsync()
+	 */
+	public boolean awaitWritten(long timeout, TimeUnit unit) throws InterruptedException {
+		try {
+			flushAsync().get(timeout, unit);
+			return true;
+		} catch (ExecutionException | TimeoutException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Queue a flush marker that completes given future when every log queued before it is written.
+	 * */
+	protected abstract void queueFlushMarker(CompletableFuture<Void> future);
+	
 	/**
 	 * Closes this logger and releases any system resources associated with it.
 	 * If the logger is already closed then invoking this method has no effect.
@@ -3,8 +3,11 @@ module awidesky.GUIUtil {
 	exports io.github.awidesky.guiUtil;
 	exports io.github.awidesky.guiUtil.level;
 	exports io.github.awidesky.guiUtil.formatter;
+	exports io.github.awidesky.guiUtil.io;
+	exports io.github.awidesky.guiUtil.metrics;
 	exports io.github.awidesky.guiUtil.simple;
 	exports io.github.awidesky.guiUtil.thread;
 	requires java.base;
 	requires java.desktop;
+	requires transitive java.management;
 }
\ No newline at end of file
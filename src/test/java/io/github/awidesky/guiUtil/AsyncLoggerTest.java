@@ -0,0 +1,192 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+import io.github.awidesky.guiUtil.simple.SysoutLogger;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.OverflowPolicy;
+import io.github.awidesky.guiUtil.thread.RingBufferLogQueue;
+import io.github.awidesky.guiUtil.thread.ShutdownReport;
+
+class AsyncLoggerTest {
+
+	private static final int LOG_NUM = 100;
+
+	/**
+	 * A destination that takes 5 milliseconds for each write, and records the threads that wrote.
+	 */
+	private static class SlowWriter extends Writer {
+		final StringWriter sw = new StringWriter();
+		final Set<Thread> writers = ConcurrentHashMap.newKeySet();
+		volatile boolean closed = false;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writers.add(Thread.currentThread());
+			sw.write(cbuf, off, len);
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	@Test
+	void asyncTest() throws IOException {
+		SlowWriter out = new SlowWriter();
+		SimpleLogger simple = new SimpleLogger(out, false);
+		simple.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+		AsyncLogger logger = new AsyncLogger(simple);
+		assertEquals(simple.getLogFormatter(), logger.getLogFormatter());
+
+		long start = System.nanoTime();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		System.out.println("Logging " + LOG_NUM + " logs to a 5ms/write destination took " + millis + "ms");
+
+		logger.close();
+		assertTrue(out.closed);
+		/* the caller thread never writes to the destination */
+		assertEquals(Set.of(logger.getLoggerThread()), out.writers);
+		assertEquals(IntStream.range(0, LOG_NUM).mapToObj(i -> "[INFO] " + i).toList(), out.sw.toString().lines().toList());
+	}
+
+	@Test
+	void derivedLoggerTest() throws IOException {
+		StringWriter out = new StringWriter();
+		SimpleLogger simple = new SimpleLogger(out, true);
+		simple.setLogFormatter(new SimpleLogFormatter("%p %m"));
+		simple.setPrefix("async");
+		AsyncLogger logger = new AsyncLogger(simple);
+
+		logger.info("direct");
+		logger.withMorePrefix("-more", false).info("more prefix");
+		logger.getChildlogger(new SimpleLogFormatter("child %m"), false).info("child");
+		PrintStream ps = logger.toPrintStream(Level.INFO, true, StandardCharsets.UTF_8);
+		ps.println("print stream");
+		logger.newLine();
+		ps.close();
+
+		assertEquals(List.of("async direct", "async-more more prefix", "async child child", "async print stream", ""), out.toString().lines().toList());
+	}
+
+	@Test
+	void callTimeTest() throws IOException, InterruptedException {
+		StringWriter out = new StringWriter();
+		SimpleLogger simple = new SimpleLogger(out, true);
+		simple.setLogFormatter(new SimpleLogFormatter("%d|%t|%m"));
+		AsyncLogger logger = new AsyncLogger(simple);
+		/* the background thread is busy, so the log is written at least 100ms after it was logged */
+		CountDownLatch release = new CountDownLatch(1);
+		logger.getLoggerThread().queueLogTask(null, logTo -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		Instant[] range = new Instant[2];
+		Thread producer = new Thread(() -> {
+			range[0] = Instant.now();
+			logger.info("message");
+			range[1] = Instant.now();
+		}, "producer");
+		producer.start();
+		producer.join();
+		Thread.sleep(100);
+		release.countDown();
+		logger.close();
+
+		String[] s = out.toString().strip().split("\\|");
+		Instant time = LocalDateTime.parse(s[0]).atZone(ZoneId.systemDefault()).toInstant();
+		assertTrue(!time.isBefore(range[0]) && !time.isAfter(range[1]), time + " is not in " + range[0] + " ~ " + range[1]);
+		assertEquals("producer", s[1]);
+		assertEquals("message", s[2]);
+	}
+
+	@Test
+	void flushTest() throws IOException, InterruptedException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SimpleLogger simple = new SimpleLogger(out, false, StandardCharsets.UTF_8);
+		simple.setLogFormatter(new SimpleLogFormatter("%m"));
+		AsyncLogger logger = new AsyncLogger(simple);
+		logger.info("flushed");
+		/* the wrapped logger buffers logs in its encoder, but it's flushed after the batch */
+		for (int i = 0; i < 500 && out.size() == 0; i++) Thread.sleep(10);
+		assertEquals(List.of("flushed"), out.toString(StandardCharsets.UTF_8).lines().toList());
+		logger.close();
+	}
+
+	@Test
+	void overflowTest() {
+		SimpleLogger simple = new SimpleLogger(new SlowWriter(), false);
+		AsyncLogger logger = new AsyncLogger(simple, new RingBufferLogQueue(16));
+		logger.getLoggerThread().setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		ShutdownReport report = logger.shutdown(0);
+
+		assertTrue(report.getDroppedCount() > 0, report::toString);
+		assertEquals(LOG_NUM, report.getWrittenCount() + report.getDroppedCount(), report::toString);
+		assertEquals(report, logger.shutdown(0));
+	}
+
+	@Test
+	void sysoutLoggerTest() throws IOException {
+		PrintStream stdout = System.out, stderr = System.err;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+		AsyncLogger logger;
+		try {
+			System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+			System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+			SysoutLogger sysout = new SysoutLogger(true);
+			sysout.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+			logger = new AsyncLogger(sysout);
+			logger.info("info");
+			/* SysoutLogger does not support consumeLogString, but the failure does not kill the background thread */
+			logger.withMorePrefix("more", false).info("unsupported");
+			logger.error("error");
+			logger.close();
+		} finally {
+			System.setOut(stdout);
+			System.setErr(stderr);
+		}
+		/* logs are routed to stdout or stderr by level, as SysoutLogger does */
+		assertEquals(List.of("[INFO] info"), out.toString(StandardCharsets.UTF_8).lines().toList());
+		/* the failure is reported to stderr */
+		assertEquals(List.of("Log task failed : " + new UnsupportedOperationException("This method should not be called!"), "[ERROR] error"),
+				err.toString(StandardCharsets.UTF_8).lines().toList());
+		assertEquals(LoggerThread.RunState.TERMINATED, logger.getLoggerThread().getRunState());
+	}
+}
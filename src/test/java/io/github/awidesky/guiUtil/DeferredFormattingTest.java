@@ -0,0 +1,82 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class DeferredFormattingTest {
+
+	private static String run(boolean deferred, Exception e) {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(sw, true);
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder()
+				.setLogFormatter(new SimpleLogFormatter("[%l] [%t] %p%m"))
+				.setLevel(Level.TRACE)
+				.setPrefix("[prefix] ")
+				.setDeferredFormatting(deferred)
+				.getLogger();
+
+		StringBuilder sb = new StringBuilder("mutable message");
+		logger.info(sb);
+		sb.setLength(0); // deferred logger must have copied the message already
+		sb.append("changed");
+		logger.debug(sb);
+		logger.warning("multi\nline");
+		logger.log("no level");
+		logger.newLine();
+		logger.error(e);
+		lt.shutdown(5000);
+		return sw.toString().substring(sw.toString().indexOf(System.lineSeparator()) + System.lineSeparator().length());
+	}
+
+	@Test
+	void identicalOutputTest() {
+		Exception e = new Exception("test");
+		String expected = run(false, e);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, run(true, e));
+	}
+
+	@Test
+	void callTimeTest() throws InterruptedException {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(sw, true);
+		TaskLogger logger = lt.getLoggerBuilder()
+				.setLogFormatter(new SimpleLogFormatter("%d|%t|%m"))
+				.setDeferredFormatting(true)
+				.getLogger();
+
+		Instant[] range = new Instant[2];
+		Thread producer = new Thread(() -> {
+			range[0] = Instant.now();
+			logger.info("message");
+			range[1] = Instant.now();
+		}, "producer");
+		producer.start();
+		producer.join();
+		Thread.sleep(100);
+		lt.start(); // formatted at least 100ms after the log call
+		lt.shutdown(5000);
+
+		String[] s = sw.toString().lines().skip(1).findFirst().get().split("\\|");
+		Instant time = LocalDateTime.parse(s[0]).atZone(ZoneId.systemDefault()).toInstant();
+		assertTrue(!time.isBefore(range[0]) && !time.isAfter(range[1]), time + " is not in " + range[0] + " ~ " + range[1]);
+		assertEquals("producer", s[1]);
+		assertEquals("message", s[2]);
+	}
+}
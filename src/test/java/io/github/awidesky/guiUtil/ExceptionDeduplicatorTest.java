@@ -0,0 +1,220 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.formatter.StackTraceRenderer;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+import io.github.awidesky.guiUtil.simple.SynchronizedStringLogger;
+
+class ExceptionDeduplicatorTest {
+
+	private static final int LOG_NUM = 10_000;
+	private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+	private StringWriter sw;
+	private SimpleLogger logger;
+
+	@BeforeEach
+	void setUp() {
+		sw = new StringWriter();
+		logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("[%l] %p%m"));
+		logger.setStackTraceRenderer(new StackTraceRenderer().setMaxDepth(0));
+	}
+
+	private List<String> lines() {
+		return sw.toString().lines().filter(s -> !s.isEmpty() && !s.startsWith("\t")).toList();
+	}
+
+	private static Exception failA(int id) {
+		return new IllegalStateException("connection " + id + " refused");
+	}
+
+	private static Exception failB(int id) {
+		return new IllegalStateException("connection " + id + " refused");
+	}
+
+	@Test
+	void fingerprintTest() {
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(1, 1000);
+		assertEquals(dedup.fingerprint(failA(1)), dedup.fingerprint(failA(2)));
+		assertNotEquals(dedup.fingerprint(failA(1)), dedup.fingerprint(failB(1)));
+		assertNotEquals(dedup.fingerprint(failA(1)), dedup.fingerprint(new RuntimeException("connection 1 refused")));
+		/* with no frames, only the type matters */
+		ExceptionDeduplicator typeOnly = new ExceptionDeduplicator(1, 1000, 0, 16);
+		assertEquals(typeOnly.fingerprint(failA(1)), typeOnly.fingerprint(failB(1)));
+
+		assertThrows(IllegalArgumentException.class, () -> new ExceptionDeduplicator(-1, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new ExceptionDeduplicator(1, 0));
+		assertThrows(IllegalArgumentException.class, () -> new ExceptionDeduplicator(1, 1000, -1, 16));
+		assertThrows(IllegalArgumentException.class, () -> new ExceptionDeduplicator(1, 1000, 5, 0));
+	}
+
+	@Test
+	void windowTest() {
+		/* only the top frame, so that exceptions from failA are identical wherever it's called */
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(2, 1000, 1, 16);
+		long now = 0L;
+		assertTrue(dedup.accept(failA(0), logger, Level.ERROR, now));
+		assertTrue(dedup.accept(failA(1), logger, Level.ERROR, now));
+		for (int i = 0; i < 5; i++) assertFalse(dedup.accept(failA(i), logger, Level.WARNING, now + i));
+		/* another fingerprint has its own count */
+		assertTrue(dedup.accept(failB(0), logger, Level.ERROR, now));
+		assertEquals("", sw.toString());
+
+		assertTrue(dedup.accept(failA(9), logger, Level.ERROR, now + WINDOW));
+		assertTrue(dedup.accept(failA(10), logger, Level.ERROR, now + WINDOW));
+		assertFalse(dedup.accept(failA(11), logger, Level.ERROR, now + WINDOW));
+		List<String> lines = lines();
+		assertEquals(1, lines.size(), lines::toString);
+		String fingerprint = String.format("%016x", dedup.fingerprint(failA(0)));
+		assertEquals("[ERROR] Suppressed 5 identical exceptions in 1,000ms (fingerprint " + fingerprint + ") : " + failA(1), lines.get(0));
+		assertEquals(6, dedup.getSuppressedCount());
+		assertEquals(2, dedup.size());
+	}
+
+	@Test
+	void evictionTest() {
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(0, 1000, 1, 2);
+		assertFalse(dedup.accept(failA(0), logger, Level.ERROR, 0L));
+		assertFalse(dedup.accept(failB(0), logger, Level.ERROR, 0L));
+		assertFalse(dedup.accept(failA(1), logger, Level.ERROR, 0L));
+		/* failB is the least recently seen */
+		assertFalse(dedup.accept(new RuntimeException(), logger, Level.WARNING, 0L));
+		assertEquals(2, dedup.size());
+		List<String> lines = lines();
+		assertEquals(1, lines.size(), lines::toString);
+		assertTrue(lines.get(0).startsWith("[ERROR] Suppressed 1 identical exceptions in 0ms"), lines.get(0));
+		assertTrue(lines.get(0).endsWith(" : " + failB(0)), lines.get(0));
+	}
+
+	@Test
+	void loggerTest() throws InterruptedException {
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(3, 60_000);
+		logger.setExceptionDeduplicator(dedup);
+		Logger child = logger.withMorePrefix("child ", false);
+		for (int i = 0; i < LOG_NUM; i++) {
+			Exception e = failA(i);
+			logger.error("request " + i + " failed : ", e);
+			child.warning(e);
+		}
+		logger.info("not deduplicated {}", "message", failA(0));
+		List<String> lines = lines();
+		assertEquals(4, lines.size(), lines::toString);
+		assertEquals("[ERROR] request 0 failed : " + failA(0), lines.get(0));
+		assertEquals("[WARNING] child " + failA(0), lines.get(1));
+		assertEquals("[ERROR] request 1 failed : " + failA(1), lines.get(2));
+		assertEquals("[INFO] not deduplicated message" + failA(0), lines.get(3));
+
+		dedup.flushSummaries(logger);
+		lines = lines();
+		assertEquals(5, lines.size(), lines::toString);
+		assertTrue(lines.get(4).matches("\\[WARNING\\] Suppressed 19,997 identical exceptions in [\\d,]+ms \\(fingerprint [0-9a-f]{16}\\) : "
+				+ IllegalStateException.class.getName() + ": connection 1 refused"), lines.get(4));
+		dedup.flushSummaries(logger);
+		assertEquals(5, lines().size());
+
+		logger.setExceptionDeduplicator(null);
+		logger.error(failA(0));
+		assertEquals(6, lines().size());
+	}
+
+	@Test
+	void endedBurstTest() throws InterruptedException {
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(1, 100);
+		logger.setExceptionDeduplicator(dedup);
+		for (int i = 0; i < 10; i++) logger.error(failA(i));
+		assertEquals(1, lines().size(), lines()::toString);
+
+		/* the burst has stopped, no occurrence comes to write the summary */
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (dedup.pendingSize() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(1, dedup.pendingSize());
+		/* the daemon thread does not write to the logger */
+		assertEquals(1, lines().size(), lines()::toString);
+
+		logger.error(failB(0));
+		List<String> lines = lines();
+		assertEquals(3, lines.size(), lines::toString);
+		assertTrue(lines.get(1).matches("\\[ERROR\\] Suppressed 9 identical exceptions in [\\d,]+ms \\(fingerprint [0-9a-f]{16}\\) : "
+				+ IllegalStateException.class.getName() + ": connection 0 refused"), lines.get(1));
+		assertEquals("[ERROR] " + failB(0), lines.get(2));
+		assertEquals(0, dedup.pendingSize());
+		dedup.flushSummaries(logger);
+		assertEquals(3, lines().size());
+	}
+
+	@Test
+	void evictionOwnerTest() {
+		StringWriter otherSw = new StringWriter();
+		SimpleLogger other = new SimpleLogger(otherSw, true);
+		other.setLogFormatter(new SimpleLogFormatter("[%l] %p%m"));
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(0, 1000, 1, 1);
+		assertFalse(dedup.accept(failA(0), logger, Level.ERROR, 0L));
+		/* evicts failA, whose summary belongs to logger */
+		assertFalse(dedup.accept(failB(0), other, Level.WARNING, 0L));
+		assertEquals("", otherSw.toString());
+		assertEquals("", sw.toString());
+		assertEquals(1, dedup.pendingSize());
+
+		/* written when logger logs a Throwable next time */
+		assertFalse(dedup.accept(new RuntimeException(), logger, Level.WARNING, 0L));
+		assertEquals("", otherSw.toString());
+		List<String> lines = lines();
+		assertEquals(1, lines.size(), lines::toString);
+		assertTrue(lines.get(0).startsWith("[ERROR] Suppressed 1 identical exceptions in 0ms"), lines.get(0));
+		assertTrue(lines.get(0).endsWith(" : " + failA(0)), lines.get(0));
+		/* failB is evicted by logger, but belongs to other */
+		assertEquals(1, dedup.pendingSize());
+		dedup.flushSummaries(other);
+		assertTrue(otherSw.toString().startsWith("[WARNING] Suppressed 1 identical exceptions in 0ms"), otherSw::toString);
+		assertEquals(0, dedup.pendingSize());
+		assertEquals(1, lines().size());
+	}
+
+	@Test
+	void summaryLoggerTest() throws InterruptedException {
+		SynchronizedStringLogger summaryLogger = new SynchronizedStringLogger();
+		summaryLogger.setLogFormatter(new SimpleLogFormatter("[%l] %p%m"));
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(1, 100, summaryLogger);
+		logger.setExceptionDeduplicator(dedup);
+		for (int i = 0; i < 10; i++) logger.error(failA(i));
+		/* the burst ends, and logger is never used again */
+		logger.close();
+		assertEquals(1, lines().size(), lines()::toString);
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (summaryLogger.peekString().isEmpty() && System.nanoTime() < deadline) Thread.sleep(10);
+		String summary = summaryLogger.getString().strip();
+		assertTrue(summary.matches("\\[ERROR\\] Suppressed 9 identical exceptions in [\\d,]+ms \\(fingerprint [0-9a-f]{16}\\) : "
+				+ IllegalStateException.class.getName() + ": connection 0 refused"), summary);
+		assertEquals(0, dedup.pendingSize());
+		assertEquals(1, lines().size(), lines()::toString);
+	}
+
+	@Test
+	void pendingBoundTest() {
+		ExceptionDeduplicator dedup = new ExceptionDeduplicator(0, 1000, 1, 2);
+		for (int i = 0; i < 5; i++) {
+			/* each logger is used only once, its summary is left pending when evicted */
+			SimpleLogger once = new SimpleLogger(new StringWriter(), true);
+			assertFalse(dedup.accept(i % 2 == 0 ? failA(i) : failB(i), once, Level.ERROR, 0L));
+			if (i % 2 == 1) assertFalse(dedup.accept(new IllegalArgumentException(), once, Level.ERROR, 0L));
+		}
+		assertTrue(dedup.pendingSize() <= 2, () -> "pending : " + dedup.pendingSize());
+		assertTrue(dedup.getLostSummaryCount() > 0);
+	}
+}
@@ -0,0 +1,117 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.io.FileChannelWriter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class FileChannelWriterTest {
+
+	@TempDir
+	Path dir;
+
+	private static final String TEXT = "ascii line\n한글 라인\nemoji 😀 end\nlone \uD800 surrogate\n";
+
+	private void encodeTest(Charset cs, int bufferSize) throws IOException {
+		Path file = dir.resolve(cs.name() + bufferSize);
+		try (FileChannelWriter w = new FileChannelWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE), cs, bufferSize, 2)) {
+			for (int i = 0; i < 100; i++) {
+				/* write in small pieces, so that surrogate pairs are split between writes */
+				for (int j = 0; j < TEXT.length(); j += 3) w.write(TEXT, j, Math.min(3, TEXT.length() - j));
+			}
+		}
+		Path expectedFile = dir.resolve(cs.name() + bufferSize + ".expected");
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(expectedFile.toFile()), cs)) {
+			for (int i = 0; i < 100; i++) w.write(TEXT);
+		}
+		assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(file), cs.name());
+	}
+
+	@Test
+	void encodeTest() throws IOException {
+		for (Charset cs : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1 }) {
+			encodeTest(cs, 16);
+			encodeTest(cs, FileChannelWriter.DEFAULT_BUFFER_SIZE);
+		}
+	}
+
+	@Test
+	void appendTest() throws IOException {
+		Path file = dir.resolve("append");
+		try (FileChannelWriter w = new FileChannelWriter(file, StandardCharsets.UTF_8, false)) {
+			w.write("first\n");
+		}
+		try (FileChannelWriter w = new FileChannelWriter(file, StandardCharsets.UTF_8, true)) {
+			w.write("second\n");
+			w.flush();
+			assertEquals("first\nsecond\n", Files.readString(file));
+		}
+	}
+
+	private static void logTo(Writer writer, int logs) {
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(writer, true);
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] %m")).getLogger();
+		for (int i = 0; i < logs; i++) logger.info("log message 한글 " + i);
+		lt.shutdown(0);
+	}
+
+	@Test
+	void loggerThreadTest() throws IOException {
+		Path stream = dir.resolve("stream.log");
+		Path channel = dir.resolve("channel.log");
+		logTo(new OutputStreamWriter(new FileOutputStream(stream.toFile()), StandardCharsets.UTF_8), 10000);
+		logTo(new FileChannelWriter(channel, StandardCharsets.UTF_8, false), 10000);
+		/* skip the first line, which has the start time */
+		assertEquals(Files.readString(stream).lines().skip(1).toList(), Files.readString(channel).lines().skip(1).toList());
+	}
+
+	/**
+	 * @return nanoseconds taken to write every line, flushing every 1024 lines like the {@code LoggerThread} does.
+	 */
+	private static long write(Writer writer, String[] lines) throws IOException {
+		long t = System.nanoTime();
+		try (writer) {
+			for (int i = 0; i < lines.length; i++) {
+				writer.write(lines[i]);
+				if (i % 1024 == 0) writer.flush();
+			}
+		}
+		return System.nanoTime() - t;
+	}
+
+	@Test
+	void throughputTest() throws IOException {
+		String[] lines = new String[500_000];
+		for (int i = 0; i < lines.length; i++) lines[i] = "[INFO] [main] [2024-01-01T00:00:00.000] throughput test log message number " + i + System.lineSeparator();
+		Path stream = dir.resolve("stream.log");
+		Path channel = dir.resolve("channel.log");
+		for (int i = 0; i < 3; i++) { // warm up, and take the last
+			long streamTime = write(new OutputStreamWriter(new FileOutputStream(stream.toFile()), StandardCharsets.UTF_8), lines);
+			long channelTime = write(new FileChannelWriter(channel, StandardCharsets.UTF_8, false), lines);
+			if (i == 2) {
+				System.out.printf("OutputStreamWriter(FileOutputStream) : %.1f MB/s%n", Files.size(stream) * 1000.0 / streamTime);
+				System.out.printf("FileChannelWriter                    : %.1f MB/s%n", Files.size(channel) * 1000.0 / channelTime);
+			}
+		}
+		assertArrayEquals(Files.readAllBytes(stream), Files.readAllBytes(channel));
+	}
+}
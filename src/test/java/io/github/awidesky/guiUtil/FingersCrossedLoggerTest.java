@@ -0,0 +1,86 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.FingersCrossedLogger;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+
+class FingersCrossedLoggerTest {
+
+	private LoggerThread lt;
+	private StringWriter sw;
+
+	@BeforeEach
+	void setUp() {
+		lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+		lt.setLogLevel(Level.INFO);
+		sw = new StringWriter();
+		lt.setLogDestination(sw, true);
+	}
+
+	private List<String> lines() {
+		lt.start();
+		lt.shutdown(1000);
+		return sw.toString().lines().filter(s -> !s.startsWith("LoggerThread started at ")).toList();
+	}
+
+	@Test
+	void noErrorTest() {
+		FingersCrossedLogger logger = lt.getLoggerBuilder().getFingersCrossedLogger(4);
+		assertEquals(Level.ERROR, logger.getTriggerLevel());
+		for (int i = 0; i < 10; i++) {
+			logger.debug("debug " + i);
+			logger.info("info " + i);
+		}
+		logger.close();
+		/* only enabled logs are written, in order */
+		assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).stream().map(i -> "[INFO] info " + i).toList(), lines());
+	}
+
+	@Test
+	void triggerTest() {
+		FingersCrossedLogger logger = lt.getLoggerBuilder().getFingersCrossedLogger(4);
+		for (int i = 0; i < 6; i++) logger.debug("debug " + i);
+		logger.info("info");
+		logger.error("error");
+		logger.trace("trace after error");
+		logger.close();
+		/* the ring keeps the error and 3 logs before it. debug 0 to 3 are pushed out and discarded */
+		assertEquals(List.of("[DEBUG] debug 4", "[DEBUG] debug 5", "[INFO] info", "[ERROR] error"), lines());
+	}
+
+	@Test
+	void capturedThreadTest() throws InterruptedException {
+		lt.setLogFormatter(new SimpleLogFormatter("[%l] [%t] %m"));
+		FingersCrossedLogger logger = lt.getLoggerBuilder().getFingersCrossedLogger(4);
+		Thread worker = new Thread(() -> logger.debug("context"), "worker");
+		worker.start();
+		worker.join();
+		logger.error("error");
+		logger.close();
+		/* the context is formatted with the thread that logged it, not the one that triggered writing */
+		assertEquals(List.of("[DEBUG] [worker] context", "[ERROR] [" + Thread.currentThread().getName() + "] error"), lines());
+	}
+
+	@Test
+	void triggerLevelTest() {
+		lt.setLogFormatter(new SimpleLogFormatter("[%l] %p %m"));
+		FingersCrossedLogger logger = lt.getLoggerBuilder().setPrefix("prefix").getFingersCrossedLogger(8);
+		logger.setTriggerLevel(Level.WARNING);
+		logger.trace("trace");
+		logger.warning("warning");
+		logger.flush();
+		assertEquals(List.of("[TRACE] prefix trace", "[WARNING] prefix warning"), lines());
+		assertThrows(IllegalArgumentException.class, () -> lt.getLoggerBuilder().getFingersCrossedLogger(0));
+	}
+}
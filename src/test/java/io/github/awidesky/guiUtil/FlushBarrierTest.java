@@ -0,0 +1,116 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskBufferedLogger;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class FlushBarrierTest {
+
+	private static final int LOG_NUM = 100;
+
+	private LoggerThread lt;
+	private FlushRecordingWriter out;
+
+	/**
+	 * A slow destination that records what was written when it was last flushed.
+	 */
+	private static class FlushRecordingWriter extends Writer {
+		final StringWriter sw = new StringWriter();
+		volatile String flushed = "";
+
+		@Override
+		public synchronized void write(char[] cbuf, int off, int len) {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			sw.write(cbuf, off, len);
+		}
+
+		@Override
+		public synchronized void flush() {
+			flushed = sw.toString();
+		}
+
+		@Override
+		public void close() {}
+
+		List<String> flushedLines() {
+			return flushed.lines().filter(s -> !s.startsWith("LoggerThread started at ")).toList();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		out = new FlushRecordingWriter();
+		/* flushed only by the flush markers */
+		lt.setLogDestination(out, false);
+	}
+
+	@Test
+	void flushAsyncTest() throws InterruptedException, ExecutionException, TimeoutException {
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		CompletableFuture<Void> future = logger.flushAsync();
+		future.get(5, TimeUnit.SECONDS);
+		assertEquals(IntStream.range(0, LOG_NUM).mapToObj(String::valueOf).toList(), out.flushedLines());
+
+		lt.shutdown(1000);
+		/* the marker is not counted as a log */
+		assertEquals(LOG_NUM, lt.getMetrics().getWrittenCount());
+		assertTrue(logger.flushAsync().isCompletedExceptionally());
+	}
+
+	@Test
+	void awaitWrittenTest() throws InterruptedException {
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		logger.info("first");
+		assertFalse(logger.awaitWritten(100, TimeUnit.MILLISECONDS));
+		lt.start();
+		logger.info("second");
+		assertTrue(logger.awaitWritten(5, TimeUnit.SECONDS));
+		assertEquals(List.of("first", "second"), out.flushedLines());
+		lt.shutdown(1000);
+	}
+
+	@Test
+	void bufferedTest() throws InterruptedException {
+		lt.start();
+		TaskBufferedLogger logger = lt.getLoggerBuilder().getBufferedLogger();
+		logger.info("buffered");
+		assertTrue(logger.awaitWritten(5, TimeUnit.SECONDS));
+		assertEquals(List.of("buffered"), out.flushedLines());
+		lt.shutdown(1000);
+	}
+
+	@Test
+	void notStartedTest() {
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		logger.info("never written");
+		CompletableFuture<Void> future = logger.flushAsync();
+		lt.shutdown(1000);
+		assertTrue(future.isCompletedExceptionally());
+		assertEquals(1, lt.getShutdownReport().getPendingCount());
+	}
+}
@@ -0,0 +1,98 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.metrics.LatencyHistogram;
+import io.github.awidesky.guiUtil.metrics.LatencySnapshot;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class LatencyHistogramTest {
+
+	private static final int LOG_NUM = 1000;
+
+	private static void assertClose(long expected, long actual) {
+		assertTrue(actual >= expected && actual <= expected + expected / 8, () -> "expected " + expected + " but was " + actual);
+	}
+
+	@Test
+	void percentileTest() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (long i = 1; i <= 100_000; i++) h.record(i);
+		LatencySnapshot s = h.snapshot();
+		assertEquals(100_000, s.getCount());
+		assertEquals(100_000, s.getMax());
+		assertClose(50_000, s.getP50());
+		assertClose(99_000, s.getP99());
+		assertClose(99_900, s.getP999());
+		assertEquals(1, s.getPercentile(0.0));
+		assertEquals(100_000, s.getPercentile(1.0));
+		assertThrows(IllegalArgumentException.class, () -> s.getPercentile(1.5));
+		assertThrows(IllegalArgumentException.class, () -> s.getPercentile(Double.NaN));
+	}
+
+	@Test
+	void resetTest() {
+		LatencyHistogram h = new LatencyHistogram();
+		h.record(5);
+		h.record(Long.MAX_VALUE);
+		h.record(-1);
+		LatencySnapshot s = h.snapshotAndReset();
+		assertEquals(3, s.getCount());
+		assertEquals(Long.MAX_VALUE, s.getMax());
+		assertEquals(0, s.getPercentile(0.0));
+		assertEquals(Long.MAX_VALUE, s.getPercentile(1.0));
+
+		LatencySnapshot empty = h.snapshot();
+		assertEquals(0, empty.getCount());
+		assertEquals(0, empty.getMax());
+		assertEquals(0, empty.getP99());
+	}
+
+	@Test
+	void loggerThreadTest() {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(sw, true);
+		assertNull(lt.getLatencyHistogram());
+		assertThrows(IllegalArgumentException.class, () -> lt.setLatencySummaryInterval(-1));
+		lt.setLatencyTracking(true);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		lt.start();
+		lt.shutdown(0);
+
+		LatencySnapshot s = lt.getLatencyHistogram().snapshot();
+		assertEquals(LOG_NUM, s.getCount());
+		assertTrue(s.getMax() > 0);
+		assertTrue(s.getP50() <= s.getP99() && s.getP99() <= s.getMax());
+	}
+
+	@Test
+	void summaryTest() throws InterruptedException {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(sw, true);
+		lt.setLatencyTracking(true);
+		lt.setLatencySummaryInterval(100);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		lt.start();
+		Thread.sleep(500);
+		lt.shutdown(1000);
+
+		String out = sw.toString();
+		assertTrue(out.contains("LoggerThread latency : count=" + LOG_NUM + ", p50="), out);
+		/* reset after the summary */
+		assertTrue(lt.getLatencyHistogram().snapshot().getCount() < LOG_NUM);
+	}
+}
@@ -0,0 +1,86 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+
+class LazyLoggingTest {
+
+	private static final int LOG_NUM = 1_000_000;
+
+	private StringWriter sw;
+	private SimpleLogger logger;
+	private final AtomicInteger evaluated = new AtomicInteger();
+	/** An argument that counts how many times it's converted to a String. */
+	private final Object counting = new Object() {
+		@Override
+		public String toString() {
+			evaluated.incrementAndGet();
+			return "arg";
+		}
+	};
+
+	@BeforeEach
+	void setUp() {
+		sw = new StringWriter();
+		logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+		logger.setLogLevel(Level.INFO);
+	}
+
+	@Test
+	void disabledTest() {
+		logger.debug("%s", counting);
+		logger.debug("{}", counting);
+		logger.trace(() -> "supplier " + counting);
+		logger.debug("message", new Exception() {
+			@Override
+			public StackTraceElement[] getStackTrace() {
+				evaluated.incrementAndGet();
+				return super.getStackTrace();
+			}
+		});
+		assertEquals(0, evaluated.get());
+		assertEquals("", sw.toString());
+
+		logger.info(() -> "supplier " + counting);
+		assertEquals(1, evaluated.get());
+		assertEquals("[INFO] supplier arg" + System.lineSeparator(), sw.toString());
+	}
+
+	@Test
+	void placeholderTest() {
+		logger.info("{} + {} = {}", 1, 2, 3);
+		logger.info("{} and {}", "only one");
+		logger.info("%d%% {}", 100);
+		logger.info("no placeholder");
+		Exception e = new Exception("failed");
+		logger.error("failed with {}", "arg", e);
+		List<String> lines = sw.toString().lines().toList();
+		assertEquals(List.of("[INFO] 1 + 2 = 3", "[INFO] only one and {}", "[INFO] 100% {}", "[INFO] no placeholder", "[ERROR] failed with argjava.lang.Exception: failed"),
+				lines.subList(0, 5));
+		assertTrue(lines.get(5).contains("placeholderTest"), lines.get(5));
+	}
+
+	@Test
+	void disabledCostTest() {
+		for (int i = 0; i < LOG_NUM; i++) logger.debug("{} {}", i, counting); /* warm up */
+		long start = System.nanoTime();
+		for (int i = 0; i < LOG_NUM; i++) logger.debug("{} {}", i, counting);
+		long nanos = System.nanoTime() - start;
+		System.out.printf("Disabled parameterized log : %.2fns per call%n", (double) nanos / LOG_NUM);
+		/* neither the arguments nor the message are generated */
+		assertEquals(0, evaluated.get());
+		assertEquals("", sw.toString());
+	}
+}
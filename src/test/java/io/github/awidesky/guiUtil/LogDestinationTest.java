@@ -0,0 +1,258 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.LogFormatter;
+import io.github.awidesky.guiUtil.formatter.NullLogFormatter;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.LogDestination;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class LogDestinationTest {
+
+	private static final String NL = System.lineSeparator();
+
+	/** A {@code LogFormatter} that counts deferred formatting. */
+	private static class CountingFormatter extends LogFormatter {
+		final AtomicInteger count = new AtomicInteger();
+		@Override
+		public String format(Level level, String prefix, CharSequence msg) {
+			return "counted " + msg;
+		}
+		@Override
+		public void format(StringBuilder sb, Level level, String prefix, CharSequence msg, Instant timestamp, String threadName) {
+			count.incrementAndGet();
+			sb.append(format(level, prefix, msg));
+		}
+		@Override
+		public LogFormatter clone() {
+			return this;
+		}
+	}
+
+	@Test
+	void fanOutTest() {
+		StringWriter main = new StringWriter();
+		StringWriter warn = new StringWriter();
+		StringWriter raw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(main, true);
+		LogDestination warnDest = new LogDestination("warn", warn, true);
+		warnDest.setLevel(Level.WARNING);
+		lt.addLogDestination(warnDest);
+		LogDestination rawDest = new LogDestination("raw", raw, true);
+		rawDest.setLogFormatter(NullLogFormatter.instance());
+		lt.addLogDestination(rawDest);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] %m")).setLevel(Level.TRACE).getLogger();
+		logger.info("info");
+		logger.warning("warning");
+		logger.newLine();
+		logger.error("error");
+		lt.shutdown(5000);
+
+		assertEquals("[INFO] info" + NL + "[WARNING] warning" + NL + NL + "[ERROR] error" + NL, main.toString().substring(main.toString().indexOf(NL) + NL.length()));
+		assertEquals("[WARNING] warning" + NL + NL + "[ERROR] error" + NL, warn.toString());
+		assertEquals("info" + NL + "warning" + NL + NL + "error" + NL, raw.toString());
+		assertThrows(IllegalStateException.class, () -> warnDest.setLevel(Level.INFO));
+	}
+
+	@Test
+	void formatOncePerFormatterTest() {
+		CountingFormatter formatter = new CountingFormatter();
+		StringWriter a = new StringWriter();
+		StringWriter b = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(Writer.nullWriter(), false);
+		LogDestination destA = new LogDestination("a", a, true);
+		destA.setLogFormatter(formatter);
+		lt.addLogDestination(destA);
+		LogDestination destB = new LogDestination("b", b, true);
+		destB.setLogFormatter(formatter);
+		lt.addLogDestination(destB);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < 100; i++) logger.info(String.valueOf(i));
+		lt.shutdown(5000);
+
+		assertEquals(100, formatter.count.get());
+		assertEquals(a.toString(), b.toString());
+		assertEquals(100, a.toString().lines().count());
+		assertTrue(a.toString().startsWith("counted 0" + NL));
+	}
+
+	@Test
+	void slowDestinationTest() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		Writer slow = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {}
+			}
+			@Override
+			public void flush() {}
+			@Override
+			public void close() {}
+		};
+		StringWriter fast = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(Writer.nullWriter(), false);
+		lt.addLogDestination(new LogDestination("slow", slow, true, 16));
+		LogDestination fastDest = new LogDestination("fast", fast, true);
+		lt.addLogDestination(fastDest);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(NullLogFormatter.instance()).getLogger();
+		for (int i = 0; i < 100; i++) logger.info(String.valueOf(i));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (fast.getBuffer().toString().lines().count() < 100 && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(100, fast.getBuffer().toString().lines().count(), "fast destination is stalled by the slow one");
+
+		release.countDown();
+		lt.shutdown(5000);
+		LogDestination slowDest = lt.getLogDestinations().get(0);
+		assertTrue(slowDest.getDroppedCount() > 0);
+		assertEquals(0, fastDest.getDroppedCount());
+	}
+
+	@Test
+	void deferOnlyFormattedLevelsTest() {
+		/* a formatter that does not override the deferred format, and writes the thread that formatted the log */
+		LogFormatter threadFormatter = new LogFormatter() {
+			@Override
+			public String format(Level level, String prefix, CharSequence msg) {
+				return msg + " by " + Thread.currentThread().getName();
+			}
+			@Override
+			public LogFormatter clone() {
+				return this;
+			}
+		};
+		StringWriter main = new StringWriter();
+		StringWriter errors = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(main, true);
+		LogDestination errorDest = new LogDestination("errors", errors, true);
+		errorDest.setLevel(Level.ERROR);
+		errorDest.setLogFormatter(NullLogFormatter.instance());
+		lt.addLogDestination(errorDest);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(threadFormatter).getLogger();
+		logger.info("info");
+		logger.error("error");
+		lt.shutdown(5000);
+
+		/* the main destination is formatted by the TaskLogger, whether the log goes to a destination with its own formatter or not */
+		assertTrue(main.toString().contains("info by " + Thread.currentThread().getName() + NL), main.toString());
+		assertTrue(main.toString().contains("error by " + Thread.currentThread().getName() + NL), main.toString());
+		/* only the error goes to a destination with its own formatter, which formats the raw message */
+		assertEquals("error" + NL, errors.toString());
+	}
+
+	@Test
+	void flushBarrierTest() throws InterruptedException {
+		AtomicInteger flushed = new AtomicInteger();
+		StringWriter sw = new StringWriter() {
+			@Override
+			public void flush() {
+				flushed.incrementAndGet();
+			}
+		};
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(Writer.nullWriter(), false);
+		LogDestination dest = new LogDestination("dest", sw, false);
+		lt.addLogDestination(dest);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(NullLogFormatter.instance()).getLogger();
+		for (int i = 0; i < 100; i++) logger.info(String.valueOf(i));
+		assertTrue(logger.awaitWritten(5, TimeUnit.SECONDS));
+		/* the future completes after the additional destination has written and flushed the logs */
+		assertEquals(100, sw.toString().lines().count());
+		assertEquals(1, flushed.get());
+		lt.shutdown(5000);
+	}
+
+	@Test
+	void fullBufferFlushTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Writer blocked = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			@Override public void flush() {}
+			@Override public void close() {}
+		};
+		StringWriter main = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(main, true);
+		lt.addLogDestination(new LogDestination("blocked", blocked, false, 2));
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < 10; i++) logger.info(String.valueOf(i));
+		CompletableFuture<Void> flushed = logger.flushAsync();
+		logger.info("after flush");
+		/* the buffer of the destination is full, but the LoggerThread keeps writing the main destination */
+		for (int i = 0; i < 500 && !main.toString().contains("after flush"); i++) Thread.sleep(10);
+		assertTrue(main.toString().contains("after flush"), main::toString);
+
+		release.countDown();
+		flushed.get(5, TimeUnit.SECONDS);
+		lt.shutdown(5000);
+	}
+
+	@Test
+	void failingWriterTest() throws InterruptedException {
+		Writer failing = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				throw new IllegalStateException("broken destination");
+			}
+			@Override public void flush() {}
+			@Override public void close() {}
+		};
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(Writer.nullWriter(), false);
+		lt.addLogDestination(new LogDestination("failing", failing, false));
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		logger.info("log");
+		/* the flush marker is failed instead of left uncompleted */
+		ExecutionException e = assertThrows(ExecutionException.class, () -> logger.flushAsync().get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IllegalStateException, e::toString);
+		/* markers queued after the failure are failed too */
+		logger.info("after failure");
+		e = assertThrows(ExecutionException.class, () -> logger.flushAsync().get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof IllegalStateException, e::toString);
+		lt.shutdown(5000);
+	}
+}
@@ -0,0 +1,91 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LinkedLogQueue;
+import io.github.awidesky.guiUtil.thread.LogQueue;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.RingBufferLogQueue;
+import io.github.awidesky.guiUtil.thread.StripedLogQueue;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+/**
+ * Prints throughput of each {@code LogQueue} with 1, 8, 32 and 128 producer threads.
+ * Numbers depend on the machine, so only the number of written logs is asserted.
+ */
+class LogQueueThroughputTest {
+
+	private static final int LOGS_PER_RUN = 256_000;
+	private static final int[] PRODUCERS = { 1, 8, 32, 128 };
+
+	/** A {@code Writer} that only counts lines. Used only in the {@code LoggerThread}. */
+	private static class LineCountingWriter extends Writer {
+		long lines = 0;
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			for (int i = off; i < off + len; i++) if (cbuf[i] == '\n') lines++;
+		}
+		@Override
+		public void flush() {}
+		@Override
+		public void close() {}
+	}
+
+	/**
+	 * @return logs per second
+	 */
+	private static double run(LogQueue queue, int producers) throws InterruptedException {
+		LineCountingWriter writer = new LineCountingWriter();
+		LoggerThread lt = new LoggerThread(queue);
+		lt.setLogDestination(writer, true);
+		lt.start();
+		int logsPerProducer = LOGS_PER_RUN / producers;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = IntStream.range(0, producers).mapToObj(p -> new Thread(() -> {
+			TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] [%t] %m")).getLogger();
+			try {
+				start.await();
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (int i = 0; i < logsPerProducer; i++) logger.info("throughput test log message");
+		})).toList();
+		threads.forEach(Thread::start);
+
+		long t = System.nanoTime();
+		start.countDown();
+		for (Thread th : threads) th.join();
+		lt.shutdown(0);
+		t = System.nanoTime() - t;
+
+		assertEquals(1 + (long) logsPerProducer * producers, writer.lines);
+		return (double) logsPerProducer * producers * 1_000_000_000L / t;
+	}
+
+	private static void compare(String name, Supplier<LogQueue> queue) throws InterruptedException {
+		run(queue.get(), 4); // warm up
+		StringBuilder sb = new StringBuilder(String.format("%-24s", name));
+		for (int producers : PRODUCERS) sb.append(String.format("%14.0f", run(queue.get(), producers)));
+		System.out.println(sb);
+	}
+
+	@Test
+	void throughputTest() throws InterruptedException {
+		StringBuilder header = new StringBuilder(String.format("%-24s", "logs/sec, producers :"));
+		for (int producers : PRODUCERS) header.append(String.format("%14d", producers));
+		System.out.println(header);
+		compare("LinkedLogQueue", () -> new LinkedLogQueue(8192));
+		compare("RingBufferLogQueue", RingBufferLogQueue::new);
+		compare("StripedLogQueue", StripedLogQueue::new);
+		compare("StripedLogQueue(ordered)", () -> new StripedLogQueue(StripedLogQueue.DEFAULT_LANE_CAPACITY, true));
+	}
+}
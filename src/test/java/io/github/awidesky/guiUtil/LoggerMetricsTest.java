@@ -0,0 +1,103 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.metrics.MetricsSnapshot;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+import io.github.awidesky.guiUtil.thread.LinkedLogQueue;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class LoggerMetricsTest {
+
+	private static final int LOG_NUM = 1000;
+
+	@Test
+	void loggerThreadTest() {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(sw, true);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+
+		MetricsSnapshot before = lt.getMetrics().snapshot();
+		assertEquals(LOG_NUM, before.getEnqueuedCount());
+		assertEquals(LOG_NUM, before.getQueueDepth());
+		assertEquals(0, before.getWrittenCount());
+
+		lt.start();
+		lt.shutdown(0);
+		MetricsSnapshot after = lt.getMetrics().snapshot();
+		assertEquals(LOG_NUM, after.getWrittenCount());
+		assertEquals(sw.toString().length(), after.getCharsWritten());
+		assertEquals(0, after.getQueueDepth());
+		assertEquals(0, after.getDroppedCount());
+		assertEquals(0, after.getBlockedNanos());
+		assertTrue(after.getFlushCount() > 0);
+		assertTrue(after.writeRate(before) > 0);
+	}
+
+	@Test
+	void blockedTest() throws InterruptedException {
+		LoggerThread lt = new LoggerThread(new LinkedLogQueue(1));
+		lt.setLogDestination(new StringWriter(), true);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		logger.info("fills the queue");
+		Thread starter = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {}
+			lt.start();
+		});
+		starter.start();
+		logger.info("blocked until the LoggerThread starts");
+		lt.shutdown(1000);
+		assertTrue(lt.getMetrics().snapshot().getBlockedNanos() > 50_000_000L, lt.getMetrics()::toString);
+	}
+
+	@Test
+	void jmxTest() throws JMException {
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(new StringWriter(), true);
+		lt.start();
+		ObjectName name = lt.getMetrics().registerMBean("LoggerThread", "jmxTest");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertTrue(server.isRegistered(name));
+
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		assertEquals((long) LOG_NUM, server.getAttribute(name, "EnqueuedCount"));
+
+		lt.shutdown(0);
+		/* unregistered when terminated */
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	void simpleLoggerTest() {
+		StringWriter sw = new StringWriter();
+		SimpleLogger logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("%m"));
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		logger.newLine();
+		MetricsSnapshot s = logger.getMetrics().snapshot();
+		assertEquals(LOG_NUM + 1, s.getEnqueuedCount());
+		assertEquals(LOG_NUM + 1, s.getWrittenCount());
+		assertEquals(sw.toString().length(), s.getCharsWritten());
+		assertEquals(LOG_NUM + 1, s.getFlushCount());
+		assertEquals(0, s.getQueueDepth());
+	}
+}
@@ -0,0 +1,77 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class LoggerThreadFlushTest {
+
+	private static final int LOG_NUM = 10000;
+
+	/** A {@code Writer} that makes written data visible only after flush. */
+	private static class FlushCountingWriter extends Writer {
+		final StringWriter flushed = new StringWriter();
+		final StringBuilder pending = new StringBuilder();
+		final AtomicInteger flushCount = new AtomicInteger();
+
+		@Override
+		public synchronized void write(char[] cbuf, int off, int len) {
+			pending.append(cbuf, off, len);
+		}
+		@Override
+		public synchronized void flush() {
+			flushed.append(pending);
+			pending.setLength(0);
+			flushCount.incrementAndGet();
+		}
+		@Override
+		public void close() { flush(); }
+		synchronized String getFlushed() { return flushed.toString(); }
+	}
+
+	@Test
+	void batchFlushTest() {
+		FlushCountingWriter wt = new FlushCountingWriter();
+		LoggerThread lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(wt, true);
+		lt.setFlushThreshold(100, Long.MAX_VALUE);
+		lt.start();
+
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for(int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		lt.shutdown(5000);
+
+		String[] lines = wt.getFlushed().split(System.lineSeparator());
+		assertEquals(LOG_NUM + 1, lines.length);
+		for(int i = 0; i < LOG_NUM; i++) assertEquals(String.valueOf(i), lines[i + 1]);
+		assertTrue(wt.flushCount.get() < LOG_NUM / 2, "Flushed " + wt.flushCount.get() + " times for " + LOG_NUM + " logs");
+	}
+
+	@Test
+	void flushWhenIdleTest() throws InterruptedException, IOException {
+		StringWriter sw = new StringWriter();
+		BufferedWriter bw = new BufferedWriter(sw, 1 << 16);
+		LoggerThread lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(bw, true);
+		lt.start();
+
+		lt.getLoggerBuilder().getLogger().info("Hello, World!");
+		long deadline = System.currentTimeMillis() + 1000;
+		while(!sw.toString().contains("Hello, World!") && System.currentTimeMillis() < deadline) Thread.sleep(10);
+		assertTrue(sw.toString().contains("Hello, World!"), "Log was not flushed while LoggerThread is idle");
+		lt.shutdown(1000);
+	}
+}
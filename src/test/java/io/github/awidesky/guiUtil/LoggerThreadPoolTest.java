@@ -0,0 +1,153 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.LoggerThreadPool;
+import io.github.awidesky.guiUtil.thread.RingBufferLogQueue;
+import io.github.awidesky.guiUtil.thread.ShutdownReport;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class LoggerThreadPoolTest {
+
+	private static final int SHARDS = 4;
+	private static final int PRODUCERS = 8;
+	private static final int LOG_NUM = 1000;
+
+	@Test
+	void routingTest() {
+		LoggerThreadPool pool = new LoggerThreadPool(SHARDS);
+		for (int i = 0; i < 100; i++) {
+			String key = "key" + i;
+			int shard = pool.shardOf(key);
+			assertTrue(0 <= shard && shard < SHARDS);
+			assertEquals(shard, pool.shardOf(new String(key)));
+		}
+		assertEquals(0, pool.shardOf(null));
+		assertEquals("prefix", pool.getLoggerBuilderByPrefix("prefix").getLogger().getPrefix());
+		assertThrows(IllegalArgumentException.class, () -> pool.getLoggerBuilder(SHARDS));
+		assertThrows(IllegalArgumentException.class, () -> new LoggerThreadPool(0));
+		pool.start();
+		pool.shutdown(1000);
+	}
+
+	@Test
+	void orderTest() throws InterruptedException {
+		StringWriter[] outputs = new StringWriter[SHARDS];
+		LoggerThreadPool pool = new LoggerThreadPool(SHARDS, () -> new RingBufferLogQueue(256));
+		pool.setLogDestinations(i -> outputs[i] = new StringWriter(), true);
+		pool.forEachShard(lt -> lt.setLogFormatter(new SimpleLogFormatter("%p %m")));
+		pool.start();
+
+		List<Thread> threads = IntStream.range(0, PRODUCERS).mapToObj(p -> new Thread(() -> {
+			TaskLogger logger = pool.getLoggerBuilderByPrefix("producer" + p).getLogger();
+			for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+		})).toList();
+		threads.forEach(Thread::start);
+		for (Thread t : threads) t.join();
+		ShutdownReport report = pool.shutdown(0);
+		assertTrue(report.isComplete(), report::toString);
+		assertEquals(PRODUCERS * LOG_NUM, report.getWrittenCount());
+
+		/* every log of a producer is in its shard, in order */
+		for (int p = 0; p < PRODUCERS; p++) {
+			String prefix = "producer" + p + " ";
+			List<String> lines = outputs[pool.shardOf("producer" + p)].toString().lines().filter(s -> s.startsWith(prefix)).toList();
+			assertEquals(IntStream.range(0, LOG_NUM).mapToObj(i -> prefix + i).toList(), lines);
+		}
+	}
+
+	@Test
+	void parallelShutdownTest() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		StringWriter fast = new StringWriter();
+		LoggerThreadPool pool = new LoggerThreadPool(2);
+		pool.setLogDestinations(i -> i == 1 ? fast : new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				/* shard 0 is blocked while writing the slow log */
+				if (new String(cbuf, off, len).contains("slow")) {
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+			@Override
+			public void flush() {}
+			@Override
+			public void close() {}
+		}, true);
+		pool.start();
+		pool.getLoggerBuilder(0).getLogger().info("slow");
+		TaskLogger logger = pool.getLoggerBuilder(1).getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+
+		ShutdownReport[] report = new ShutdownReport[1];
+		Thread shutdown = new Thread(() -> report[0] = pool.shutdown(10_000));
+		shutdown.start();
+		/* shard 1 drains and terminates while shard 0 is still blocked */
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (pool.getShard(1).getRunState() != LoggerThread.RunState.TERMINATED && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(LoggerThread.RunState.TERMINATED, pool.getShard(1).getRunState());
+		assertEquals(LoggerThread.RunState.DRAINING, pool.getShard(0).getRunState());
+		release.countDown();
+		shutdown.join();
+		assertTrue(report[0].isComplete(), report[0]::toString);
+		assertEquals(LOG_NUM + 1, report[0].getWrittenCount());
+	}
+
+	/**
+	 * @return logs per second
+	 */
+	private static double run(int shards, int producers, int logsPerProducer) throws InterruptedException {
+		LoggerThreadPool pool = new LoggerThreadPool(shards, RingBufferLogQueue::new);
+		pool.setLogDestinations(i -> Writer.nullWriter(), true);
+		pool.start();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = IntStream.range(0, producers).mapToObj(p -> new Thread(() -> {
+			TaskLogger logger = pool.getLoggerBuilderByKey(p).setLogFormatter(new SimpleLogFormatter("[%l] [%t] %m")).getLogger();
+			try {
+				start.await();
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (int i = 0; i < logsPerProducer; i++) logger.info("throughput test log message");
+		})).toList();
+		threads.forEach(Thread::start);
+
+		long t = System.nanoTime();
+		start.countDown();
+		for (Thread th : threads) th.join();
+		ShutdownReport report = pool.shutdown(0);
+		t = System.nanoTime() - t;
+
+		assertEquals((long) logsPerProducer * producers, report.getWrittenCount());
+		return (double) logsPerProducer * producers * 1_000_000_000L / t;
+	}
+
+	/**
+	 * Prints throughput with 1, 2 and 4 shards. Scaling depends on the number of cores, so only the number of written logs is asserted.
+	 */
+	@Test
+	void throughputTest() throws InterruptedException {
+		run(2, PRODUCERS, 10_000); // warm up
+		System.out.printf("%d cores, %d producers%n", Runtime.getRuntime().availableProcessors(), PRODUCERS);
+		for (int shards : new int[] { 1, 2, 4 }) {
+			System.out.printf("%d shard(s) : %12.0f logs/sec%n", shards, run(shards, PRODUCERS, 32_000));
+		}
+	}
+}
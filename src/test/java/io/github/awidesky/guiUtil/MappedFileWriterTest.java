@@ -0,0 +1,81 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.io.MappedFileWriter;
+import io.github.awidesky.guiUtil.io.MappedFileWriter.SyncPolicy;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class MappedFileWriterTest {
+
+	@TempDir
+	Path dir;
+
+	private static final String TEXT = "ascii line\n한글 라인\nemoji 😀 end\nlone \uD800 surrogate\n";
+
+	@Test
+	void remapTest() throws IOException {
+		for (Charset cs : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16LE }) {
+			Path file = dir.resolve(cs.name());
+			/* small region, so that it's remapped many times */
+			try (MappedFileWriter w = new MappedFileWriter(file, cs, false, 64, SyncPolicy.ON_REMAP)) {
+				for (int i = 0; i < 100; i++) {
+					for (int j = 0; j < TEXT.length(); j += 3) w.write(TEXT, j, Math.min(3, TEXT.length() - j));
+				}
+			}
+			Path expectedFile = dir.resolve(cs.name() + ".expected");
+			try (Writer w = new OutputStreamWriter(new FileOutputStream(expectedFile.toFile()), cs)) {
+				for (int i = 0; i < 100; i++) w.write(TEXT);
+			}
+			assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(file), cs.name());
+		}
+	}
+
+	@Test
+	void truncateTest() throws IOException {
+		Path file = dir.resolve("mapped.log");
+		MappedFileWriter writer = new MappedFileWriter(file, StandardCharsets.UTF_8, false, 4096, SyncPolicy.NEVER);
+		writer.write("before logs\n");
+		assertEquals(4096, Files.size(file)); // preallocated by the mapping
+
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(writer, true);
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] %m")).getLogger();
+		for (int i = 0; i < 1000; i++) logger.info("log message " + i);
+		lt.shutdown(0);
+
+		assertEquals(writer.length(), Files.size(file));
+		String content = Files.readString(file);
+		assertEquals(content.length(), content.replace("\0", "").length());
+		assertEquals("[INFO] log message 999", content.lines().reduce((a, b) -> b).get());
+	}
+
+	@Test
+	void appendTest() throws IOException {
+		Path file = dir.resolve("append");
+		try (MappedFileWriter w = new MappedFileWriter(file, StandardCharsets.UTF_8, false)) {
+			w.write("first\n");
+		}
+		try (MappedFileWriter w = new MappedFileWriter(file, StandardCharsets.UTF_8, true, 16, SyncPolicy.ON_FLUSH)) {
+			w.write("second line, longer than a region\n");
+			w.flush();
+		}
+		assertEquals("first\nsecond line, longer than a region\n", Files.readString(file));
+	}
+}
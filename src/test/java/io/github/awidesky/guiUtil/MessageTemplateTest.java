@@ -0,0 +1,164 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.MessageTemplate;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+
+class MessageTemplateTest {
+
+	private static final int LOG_NUM = 200_000;
+
+	private static final String[] FORMATS = {
+			"plain", "%s", "[%10s]", "[%-10s]", "[%.3s]", "[%8.2s]", "%d", "%5d", "%-5d|", "%05d", "%x", "%X", "%08x", "%f", "%.2f",
+			"%10.3f", "%-10.1f|", "%010.4f", "%.0f", "100%% %s%n", "%s=%d (%x) %.3f"
+	};
+
+	private static void assertSameAsFormat(String format, Object... args) {
+		assertEquals(String.format(format, args), MessageTemplate.compile(format).format(args), () -> format);
+	}
+
+	@Test
+	void formatTest() {
+		Random random = new Random(42);
+		Object[] strings = { "text", "", null, 'c', new Object() { public String toString() { return "custom"; } } };
+		for (String format : FORMATS) {
+			assertTrue(MessageTemplate.compile(format).isCompiled(), format);
+			for (int i = 0; i < 200; i++) {
+				Object s = strings[i % strings.length];
+				long l = random.nextLong() >> random.nextInt(64);
+				Object integral = switch (i % 4) {
+					case 0 -> (int) l;
+					case 1 -> l;
+					case 2 -> (short) l;
+					default -> (byte) l;
+				};
+				double d = random.nextGaussian() * Math.pow(10, random.nextInt(20) - 8);
+				Object floating = i % 3 == 0 ? (float) d : d;
+				if (format.equals("%s=%d (%x) %.3f")) assertSameAsFormat(format, s, integral, integral, floating);
+				else if (format.contains("s")) assertSameAsFormat(format, s);
+				else if (format.contains("f")) assertSameAsFormat(format, floating);
+				else assertSameAsFormat(format, integral);
+			}
+		}
+		/* values rounded half-up */
+		for (double d : new double[] { 0.125, 9.9999, 99.5, -0.0000001, -0.0, 0.5, 1.5, 1.005, 2.5, -2.5, 0.0, 1e300, 1e-300, 123456.7890125 })
+			for (String format : new String[] { "%f", "%.2f", "%.0f", "%.10f" }) assertSameAsFormat(format, d);
+	}
+
+	@Test
+	void fallbackTest() {
+		for (String format : new String[] { "%,d", "%1$s", "%e", "%+d", "%#x", "%S", "%b", "%-s", "%tY", "%" }) {
+			assertFalse(MessageTemplate.compile(format).isCompiled(), format);
+		}
+		assertSameAsFormat("%,d %1$s", 1234567);
+		assertSameAsFormat("%d", BigInteger.TEN.pow(30));
+		assertSameAsFormat("%f %f %f", Double.NaN, Double.NEGATIVE_INFINITY, -0.0);
+		assertSameAsFormat("%d %x %f", null, null, null);
+		assertSameAsFormat("%s %s", "extra", "args", "ignored");
+		assertThrows(IllegalFormatException.class, () -> MessageTemplate.compile("%s %s").format("missing"));
+		assertThrows(IllegalFormatException.class, () -> MessageTemplate.compile("%d").format("not a number"));
+		assertThrows(IllegalFormatException.class, () -> MessageTemplate.compile("%.2d").format(1));
+
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		try {
+			Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+			assertEquals("3,14", MessageTemplate.compile("%.2f").format(Math.PI));
+		} finally {
+			Locale.setDefault(Locale.Category.FORMAT, locale);
+		}
+	}
+
+	@Test
+	void cacheTest() {
+		try {
+			MessageTemplate.setCacheSize(0);
+			MessageTemplate.setCacheSize(8);
+			MessageTemplate a = MessageTemplate.of("a %s");
+			assertSame(a, MessageTemplate.of("a %s"));
+			for (int i = 0; i < 7; i++) MessageTemplate.of(i + " %s");
+			assertEquals(8, MessageTemplate.cachedCount());
+			/* a quarter of the cache is evicted at once when it's full, except the referenced one */
+			MessageTemplate.of("b %s");
+			assertEquals(6, MessageTemplate.cachedCount());
+			assertSame(a, MessageTemplate.of("a %s"));
+			for (int i = 0; i < 100; i++) {
+				MessageTemplate.of("c %s" + i);
+				assertTrue(MessageTemplate.cachedCount() <= 8);
+			}
+			MessageTemplate evicted = MessageTemplate.of("a %s");
+			assertEquals(a.getFormat(), evicted.getFormat());
+			assertSame(evicted, MessageTemplate.of("a %s"));
+			MessageTemplate.setCacheSize(2);
+			assertEquals(2, MessageTemplate.cachedCount());
+			MessageTemplate.setCacheSize(0);
+			assertEquals(0, MessageTemplate.cachedCount());
+			assertThrows(IllegalArgumentException.class, () -> MessageTemplate.setCacheSize(-1));
+		} finally {
+			MessageTemplate.setCacheSize(MessageTemplate.DEFAULT_CACHE_SIZE);
+		}
+	}
+
+	@Test
+	void hotFormatTest() {
+		try {
+			MessageTemplate.setCacheSize(0);
+			MessageTemplate.setCacheSize(8);
+			MessageTemplate hot = MessageTemplate.of("hot %s");
+			for (int i = 0; i < 1000; i++) {
+				MessageTemplate.of("once " + i + " %s");
+				assertSame(hot, MessageTemplate.of("hot %s"));
+				assertTrue(MessageTemplate.cachedCount() <= 8);
+			}
+		} finally {
+			MessageTemplate.setCacheSize(MessageTemplate.DEFAULT_CACHE_SIZE);
+		}
+	}
+
+	@Test
+	void loggerTest() {
+		StringWriter sw = new StringWriter();
+		SimpleLogger logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("%m"));
+		logger.info("%-6s|%04d|%.1f", "name", 7, 2.25);
+		assertEquals("name  |0007|2.3" + System.lineSeparator(), sw.toString());
+	}
+
+	@Test
+	void throughputTest() {
+		MessageTemplate template = MessageTemplate.of("user %s logged in %d times, ratio %.2f");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < LOG_NUM; i++) { /* warm up */
+			sb.setLength(0);
+			template.appendTo(sb, "name", i, i / 3.0);
+			String.format("user %s logged in %d times, ratio %.2f", "name", i, i / 3.0);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < LOG_NUM; i++) {
+			sb.setLength(0);
+			MessageTemplate.of("user %s logged in %d times, ratio %.2f").appendTo(sb, "name", i, i / 3.0);
+		}
+		long templateNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < LOG_NUM; i++) {
+			sb.setLength(0);
+			sb.append(String.format("user %s logged in %d times, ratio %.2f", "name", i, i / 3.0));
+		}
+		long formatNanos = System.nanoTime() - start;
+		System.out.printf("MessageTemplate : %dns per message, String.format : %dns per message%n", templateNanos / LOG_NUM, formatNanos / LOG_NUM);
+		assertEquals(String.format("user %s logged in %d times, ratio %.2f", "name", LOG_NUM - 1, (LOG_NUM - 1) / 3.0), sb.toString());
+	}
+}
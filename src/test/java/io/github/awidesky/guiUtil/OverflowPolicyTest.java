@@ -0,0 +1,191 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.LinkedLogQueue;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.OverflowPolicy;
+import io.github.awidesky.guiUtil.thread.RingBufferLogQueue;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+/**
+ * Fills a small bounded queue before the {@code LoggerThread} starts consuming,
+ * and checks the result of each {@code OverflowPolicy}.
+ */
+class OverflowPolicyTest {
+
+	private static final int CAPACITY = 4;
+	private static final int LOG_NUM = 10;
+
+	private StringWriter sw;
+	private LoggerThread lt;
+
+	private TaskLogger setUp(OverflowPolicy policy, Level dropLevel) {
+		sw = new StringWriter();
+		lt = new LoggerThread(new LinkedLogQueue(CAPACITY));
+		lt.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+		lt.setLogDestination(sw, true);
+		lt.setOverflowPolicy(policy, dropLevel);
+		TaskLogger logger = lt.getLoggerBuilder().setLevel(Level.TRACE).getLogger();
+		return logger;
+	}
+
+	/** Start the consumer after a while, so that producers blocked by a full queue can continue. */
+	private void startLater() {
+		new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {}
+			lt.start();
+		}).start();
+	}
+
+	private List<String> shutdownAndGetLines() {
+		if(lt.getState() == Thread.State.NEW) lt.start();
+		lt.shutdown(5000);
+		return sw.toString().lines().filter(s -> !s.startsWith("LoggerThread started at ")).toList();
+	}
+
+	@Test
+	void dropNewestTest() {
+		TaskLogger logger = setUp(OverflowPolicy.DROP_NEWEST, Level.INFO);
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		assertEquals(LOG_NUM - CAPACITY, lt.getOverflowCount(OverflowPolicy.DROP_NEWEST));
+		assertEquals(LOG_NUM - CAPACITY, lt.getDroppedCount());
+		assertEquals(List.of("[INFO] 0", "[INFO] 1", "[INFO] 2", "[INFO] 3", (LOG_NUM - CAPACITY) + " events dropped due to LoggerThread queue overflow"),
+				shutdownAndGetLines());
+	}
+
+	@Test
+	void dropOldestTest() {
+		TaskLogger logger = setUp(OverflowPolicy.DROP_OLDEST, Level.INFO);
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		assertEquals(LOG_NUM - CAPACITY, lt.getOverflowCount(OverflowPolicy.DROP_OLDEST));
+		assertEquals(List.of("[INFO] 6", "[INFO] 7", "[INFO] 8", "[INFO] 9", (LOG_NUM - CAPACITY) + " events dropped due to LoggerThread queue overflow"),
+				shutdownAndGetLines());
+	}
+
+	@Test
+	void dropOldestRingBufferTest() {
+		sw = new StringWriter();
+		lt = new LoggerThread(new RingBufferLogQueue(CAPACITY));
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(sw, true);
+		lt.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		assertEquals(List.of("6", "7", "8", "9", (LOG_NUM - CAPACITY) + " events dropped due to LoggerThread queue overflow"),
+				shutdownAndGetLines());
+	}
+
+	@Test
+	void dropOldestFlushTest() throws Exception {
+		sw = new StringWriter();
+		lt = new LoggerThread(new RingBufferLogQueue(CAPACITY));
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(sw, true);
+		lt.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		logger.info("before");
+		CompletableFuture<Void> evicted = logger.flushAsync();
+		/* evicts "before" and the flush marker */
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		/* the flush marker is not counted */
+		assertEquals(LOG_NUM + 1 - CAPACITY, lt.getOverflowCount(OverflowPolicy.DROP_OLDEST));
+		lt.start();
+		evicted.get(5, TimeUnit.SECONDS);
+		logger.flushAsync().get(5, TimeUnit.SECONDS);
+		assertEquals(List.of("6", "7", "8", "9", (LOG_NUM + 1 - CAPACITY) + " events dropped due to LoggerThread queue overflow"),
+				shutdownAndGetLines());
+	}
+
+	@Test
+	void dropBelowLevelTest() {
+		TaskLogger logger = setUp(OverflowPolicy.DROP_BELOW_LEVEL, Level.DEBUG);
+		IntStream.range(0, CAPACITY).forEach(i -> logger.info(String.valueOf(i)));
+		logger.trace("dropped");
+		startLater();
+		logger.debug("kept");
+		logger.error("error is never dropped");
+		logger.fatal("fatal is never dropped");
+		assertEquals(1, lt.getOverflowCount(OverflowPolicy.DROP_BELOW_LEVEL));
+
+		List<String> lines = shutdownAndGetLines();
+		assertTrue(lines.contains("[DEBUG] kept"), () -> String.join("\n", lines));
+		assertTrue(lines.contains("[ERROR] error is never dropped"), () -> String.join("\n", lines));
+		assertTrue(lines.contains("[FATAL] fatal is never dropped"), () -> String.join("\n", lines));
+		assertTrue(lines.contains("1 events dropped due to LoggerThread queue overflow"), () -> String.join("\n", lines));
+		assertTrue(!lines.contains("[TRACE] dropped"), () -> String.join("\n", lines));
+	}
+
+	@Test
+	void errorIsNeverDroppedTest() {
+		TaskLogger logger = setUp(OverflowPolicy.DROP_BELOW_LEVEL, Level.FATAL);
+		IntStream.range(0, CAPACITY).forEach(i -> logger.info(String.valueOf(i)));
+		startLater();
+		logger.error("error");
+		assertEquals(0, lt.getDroppedCount());
+		assertTrue(shutdownAndGetLines().contains("[ERROR] error"));
+	}
+
+	@Test
+	void callerRunsTest() {
+		TaskLogger logger = setUp(OverflowPolicy.CALLER_RUNS, Level.INFO);
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		assertEquals(LOG_NUM - CAPACITY, lt.getOverflowCount(OverflowPolicy.CALLER_RUNS));
+		assertEquals(0, lt.getDroppedCount());
+		List<String> lines = shutdownAndGetLines();
+		assertEquals(LOG_NUM, lines.size());
+		IntStream.range(0, LOG_NUM).forEach(i -> assertTrue(lines.contains("[INFO] " + i)));
+	}
+
+	@Test
+	void callerRunsTaskTest() throws InterruptedException {
+		TaskLogger logger = setUp(OverflowPolicy.CALLER_RUNS, Level.INFO);
+		IntStream.range(0, CAPACITY).forEach(i -> logger.info(String.valueOf(i)));
+		CountDownLatch begun = new CountDownLatch(1);
+		CountDownLatch written = new CountDownLatch(1);
+		/* another producer writes while a log task run in the caller is half done */
+		Thread other = new Thread(() -> {
+			try {
+				begun.await();
+			} catch (InterruptedException e) {}
+			lt.queueLogTask(Level.INFO, logTo -> logTo.println("other"));
+			written.countDown();
+		});
+		other.start();
+		lt.queueLogTask(Level.INFO, logTo -> {
+			logTo.print("first half, ");
+			begun.countDown();
+			try {
+				written.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {}
+			logTo.println("second half");
+		});
+		other.join();
+		List<String> lines = shutdownAndGetLines();
+		assertTrue(lines.contains("first half, second half"), lines::toString);
+		assertTrue(lines.contains("other"), lines::toString);
+	}
+
+	@Test
+	void blockTest() {
+		TaskLogger logger = setUp(OverflowPolicy.BLOCK, Level.INFO);
+		startLater();
+		IntStream.range(0, LOG_NUM).forEach(i -> logger.info(String.valueOf(i)));
+		assertEquals(0, lt.getDroppedCount());
+		assertEquals(IntStream.range(0, LOG_NUM).mapToObj(i -> "[INFO] " + i).toList(), shutdownAndGetLines());
+	}
+}
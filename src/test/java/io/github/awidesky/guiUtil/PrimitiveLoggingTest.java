@@ -0,0 +1,159 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.MessageTemplate;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+
+class PrimitiveLoggingTest {
+
+	private static final int LOG_NUM = 100_000;
+
+	private StringWriter sw;
+	private SimpleLogger logger;
+
+	@BeforeEach
+	void setUp() {
+		sw = new StringWriter();
+		logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("%m"));
+		logger.setLogLevel(Level.INFO);
+	}
+
+	private List<String> lines() {
+		return sw.toString().lines().toList();
+	}
+
+	@Test
+	void formatTest() {
+		logger.info("int %d", -1);
+		logger.info("int %x", -1);
+		logger.info("int [%5s]", -1);
+		logger.info("long %d", Long.MIN_VALUE);
+		logger.info("long %x", -1L);
+		logger.info("queue=%d size=%08X", 12, 255L);
+		logger.info("double %.3f {}", Math.PI);
+		logger.info("double %s", 0.1);
+		logger.info("boolean [%-6s]", true);
+		logger.info("char %s", 'c');
+		logger.info("{} and {}", 1L, 2L);
+		logger.info("only {} and {}", 1);
+		logger.info("{} {} {} {}", "a", 'b', 3, 4.0);
+		logger.info("%s %s %s", "a", null, new Exception("not a trace"));
+		logger.info("placeholder with trace {}", "a", new Exception("trace"));
+		List<String> lines = lines();
+		assertEquals(List.of(
+				"int -1",
+				"int ffffffff",
+				"int [   -1]",
+				"long " + Long.MIN_VALUE,
+				"long ffffffffffffffff",
+				"queue=12 size=000000FF",
+				"double 3.142 {}",
+				"double 0.1",
+				"boolean [true  ]",
+				"char c",
+				"1 and 2",
+				"only 1 and {}",
+				"a b 3 4.0",
+				"a null java.lang.Exception: not a trace",
+				"placeholder with trace ajava.lang.Exception: trace"), lines.subList(0, 15));
+		assertTrue(lines.get(15).contains("formatTest"), lines.get(15));
+	}
+
+	@Test
+	void sameAsStringFormatTest() {
+		byte b = -1;
+		short sh = -1;
+		float f = 1.1f;
+		logger.info("%x %x", -1, -1);
+		logger.info("%x %X", -1, -1L);
+		logger.info("%c%c", 'o', 'k');
+		logger.info("%s%s", 'o', 'k');
+		logger.info("%c", 65);
+		logger.info("%x", b);
+		logger.info("%x", sh);
+		logger.info("%d %x", b, b);
+		logger.info("%s", f);
+		logger.info("%.10f", f);
+		logger.info("%s %s", 1, 'c');
+		logger.info("%x %x %x", b, sh, -1);
+		logger.info("%s %s", 'a', 'b');
+		logger.info("%s ms, %s", 12, 0.25);
+		logger.info("%s %s", f, f);
+		logger.info("%d %d", Integer.valueOf(4), 5);
+		assertEquals(List.of(
+				String.format("%x %x", -1, -1),
+				String.format("%x %X", -1, -1L),
+				String.format("%c%c", 'o', 'k'),
+				String.format("%s%s", 'o', 'k'),
+				String.format("%c", 65),
+				String.format("%x", b),
+				String.format("%x", sh),
+				String.format("%d %x", b, b),
+				String.format("%s", f),
+				String.format("%.10f", f),
+				String.format("%s %s", 1, 'c'),
+				String.format("%x %x %x", b, sh, -1),
+				String.format("%s %s", 'a', 'b'),
+				String.format("%s ms, %s", 12, 0.25),
+				String.format("%s %s", f, f),
+				String.format("%d %d", 4, 5)), lines());
+	}
+
+	@Test
+	void fallbackTest() {
+		StringBuilder sb = new StringBuilder("kept ");
+		MessageTemplate.compile("%,d").appendTo(sb, 1234567L);
+		MessageTemplate.compile(" %c").appendTo(sb, 'x');
+		MessageTemplate.compile(" %e").appendTo(sb, 1.5);
+		MessageTemplate.compile(" %b").appendTo(sb, false);
+		assertEquals(String.format("kept %,d %c %e %b", 1234567L, 'x', 1.5, false), sb.toString());
+	}
+
+	@Test
+	void disabledAllocationTest() throws ReflectiveOperationException {
+		Method allocated;
+		Object bean = ManagementFactory.getThreadMXBean();
+		try {
+			allocated = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessError e) {
+			allocated = null;
+		}
+		assumeTrue(allocated != null && allocated.getDeclaringClass().isInstance(bean), "allocated bytes of a thread cannot be measured");
+
+		Object name = "queue";
+		long depth = 123_456_789L, bytes = 987_654_321L;
+		for (int round = 0; round < 3; round++) { /* the last round is measured, after the code is compiled */
+			long overhead = (long) allocated.invoke(bean);
+			overhead = (long) allocated.invoke(bean) - overhead;
+			long before = (long) allocated.invoke(bean);
+			for (int i = 0; i < LOG_NUM; i++) {
+				logger.debug("size=%d", bytes);
+				logger.debug("queue=%d", depth + i);
+				logger.trace("ratio %.2f", depth / (double) bytes);
+				logger.debug("full %s", i % 2 == 0);
+				logger.debug("{} depth={}", name, name);
+				logger.trace("{} {} {} {}", name, name, name, name);
+			}
+			long perCall = ((long) allocated.invoke(bean) - before - overhead) / LOG_NUM;
+			if (round == 2) {
+				System.out.println("Disabled primitive logs allocated " + perCall + " bytes per iteration");
+				assertEquals(0, perCall);
+			}
+		}
+		assertEquals("", sw.toString());
+	}
+}
@@ -0,0 +1,144 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.level.Level;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.ShutdownReport;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class PriorityLaneTest {
+
+	private static final int BACKLOG = 1000;
+
+	private LoggerThread lt;
+	private SlowWriter out;
+
+	/**
+	 * A destination that takes a millisecond for each debug log, and counts down when an error is written.
+	 * If {@code hold} is set, the first debug log waits until it's counted down.
+	 */
+	private static class SlowWriter extends Writer {
+		final StringWriter sw = new StringWriter();
+		final CountDownLatch errorWritten = new CountDownLatch(1);
+		CountDownLatch hold = null;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			String str = new String(cbuf, off, len);
+			if (str.contains("[DEBUG]")) {
+				try {
+					if (hold != null) hold.await(5, TimeUnit.SECONDS);
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			synchronized (sw) {
+				sw.write(str);
+			}
+			if (str.contains("[ERROR]")) errorWritten.countDown();
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+
+		List<String> lines() {
+			synchronized (sw) {
+				return sw.toString().lines().filter(s -> !s.startsWith("LoggerThread started at ")).toList();
+			}
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		lt = new LoggerThread();
+		lt.setLogLevel(Level.TRACE);
+		lt.setLogFormatter(new SimpleLogFormatter("[%l] %m"));
+		out = new SlowWriter();
+		lt.setLogDestination(out, true);
+	}
+
+	@Test
+	void latencyTest() throws InterruptedException {
+		lt.setPriorityLane(Level.ERROR, false);
+		/* keep the backlog in the queue until the error is queued */
+		CountDownLatch hold = new CountDownLatch(1);
+		out.hold = hold;
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < BACKLOG; i++) logger.debug("debug " + i);
+		long start = System.nanoTime();
+		logger.error("error");
+		hold.countDown();
+		assertTrue(out.errorWritten.await(5, TimeUnit.SECONDS));
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		ShutdownReport report = lt.shutdown(0);
+
+		System.out.println("Error written in " + millis + "ms behind " + BACKLOG + " debug logs(~1ms each)");
+		/* the lane is checked before each event, so the error is written before the second debug log at the latest */
+		List<String> lines = out.lines();
+		assertTrue(lines.indexOf("[ERROR] error") <= 1, () -> String.join("\n", lines.subList(0, 3)));
+		assertEquals(IntStream.range(0, BACKLOG).mapToObj(i -> "[DEBUG] debug " + i).toList(),
+				lines.stream().filter(s -> s.startsWith("[DEBUG]")).toList());
+		assertEquals(BACKLOG + 1, report.getWrittenCount());
+	}
+
+	@Test
+	void orderedTest() {
+		lt.setPriorityLane(Level.WARNING, true);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		List<String> expected = IntStream.range(0, 100).mapToObj(i -> switch (i % 4) {
+			case 0 -> "[TRACE] " + i;
+			case 1 -> "[WARNING] " + i;
+			case 2 -> "[INFO] " + i;
+			default -> "[FATAL] " + i;
+		}).toList();
+		for (int i = 0; i < 100; i++) {
+			switch (i % 4) {
+			case 0 -> logger.trace(String.valueOf(i));
+			case 1 -> logger.warning(String.valueOf(i));
+			case 2 -> logger.info(String.valueOf(i));
+			default -> logger.fatal(String.valueOf(i));
+			}
+		}
+		assertThrows(IllegalStateException.class, () -> {
+			lt.start();
+			lt.setPriorityLane(Level.ERROR, false);
+		});
+		lt.shutdown(0);
+		assertEquals(expected, out.lines());
+	}
+
+	@Test
+	void shutdownTest() {
+		lt.setPriorityLane(Level.ERROR, true);
+		lt.setBatchSize(16);
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < BACKLOG; i++) logger.debug("debug " + i);
+		logger.error("error");
+		lt.start();
+		ShutdownReport report = lt.shutdown(100);
+
+		/* the error is queued after the debug logs, but written even if the deadline has passed */
+		assertTrue(report.getPendingCount() > 0, report::toString);
+		assertEquals(BACKLOG + 1, report.getWrittenCount() + report.getPendingCount(), report::toString);
+		assertTrue(out.lines().contains("[ERROR] error"));
+	}
+}
@@ -0,0 +1,144 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.NullLogFormatter;
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LogEvent;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.RingBufferLogQueue;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+/**
+ * Runs every test of {@link TaskLoggerTest} with a small {@link RingBufferLogQueue},
+ * so that the buffer wraps around and producers wait for free slots.
+ */
+class RingBufferTaskLoggerTest extends TaskLoggerTest {
+
+	@Override
+	protected LoggerThread createLoggerThread() {
+		return new LoggerThread(new RingBufferLogQueue(16));
+	}
+
+	@Test
+	void capacityTest() {
+		assertEquals(1, new RingBufferLogQueue(1).capacity());
+		assertEquals(16, new RingBufferLogQueue(16).capacity());
+		assertEquals(32, new RingBufferLogQueue(17).capacity());
+	}
+
+	@Test
+	void multiProducerOrderTest() throws InterruptedException {
+		final int producers = 64;
+		final int logsPerProducer = 2000;
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread(new RingBufferLogQueue(64));
+		lt.setLogDestination(sw, false);
+		lt.start();
+		try {
+			List<Thread> threads = IntStream.range(0, producers).mapToObj(p -> new Thread(() -> {
+				TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(NullLogFormatter.instance()).getLogger();
+				for (int i = 0; i < logsPerProducer; i++) logger.log(p + ":" + i);
+			})).toList();
+			threads.forEach(Thread::start);
+			for (Thread t : threads) t.join();
+		} finally {
+			lt.shutdown(10000);
+		}
+
+		int[] next = new int[producers];
+		sw.toString().lines().skip(1).forEach(line -> {
+			String[] s = line.split(":");
+			int p = Integer.parseInt(s[0]);
+			assertEquals(next[p]++, Integer.parseInt(s[1]), "logs from producer " + p + " are out of order");
+		});
+		IntStream.of(next).forEach(n -> assertEquals(logsPerProducer, n));
+	}
+
+	@Test
+	void eventReuseTest() throws InterruptedException {
+		RingBufferLogQueue queue = new RingBufferLogQueue(4);
+		LogEvent[] first = new LogEvent[4];
+		for (int i = 0; i < 4; i++) queue.publish(first[i] = queue.claim());
+		assertNull(queue.tryClaim());
+
+		List<LogEvent> handled = new ArrayList<>();
+		assertTrue(queue.await(1, TimeUnit.SECONDS));
+		assertEquals(4, queue.drain(handled::add, Integer.MAX_VALUE));
+		assertEquals(List.of(first), handled);
+		assertTrue(queue.isEmpty());
+		assertFalse(queue.await(10, TimeUnit.MILLISECONDS));
+
+		for (int lap = 0; lap < 3; lap++) {
+			for (int i = 0; i < 4; i++) {
+				LogEvent e = queue.claim();
+				assertSame(first[i], e, "slot " + i + " is not reused");
+				queue.publish(e);
+			}
+			assertTrue(queue.evict(e -> {}));
+			assertEquals(3, queue.drain(e -> {}, Integer.MAX_VALUE));
+		}
+	}
+
+	@Test
+	void allocationFreeTest() throws InterruptedException {
+		LongSupplier allocatedBytes = allocatedBytesCounter();
+		assumeTrue(allocatedBytes != null, "per-thread allocation counter is not available");
+
+		LoggerThread lt = new LoggerThread(new RingBufferLogQueue(1024));
+		lt.setLogDestination(Writer.nullWriter(), true);
+		lt.start();
+		final int n = 100_000;
+		long allocated;
+		try {
+			TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] [%t] %m")).getLogger();
+			StringBuilder msg = new StringBuilder("allocation free log message");
+
+			for (int i = 0; i < n; i++) logger.info(msg); // warm up
+			long before = allocatedBytes.getAsLong();
+			for (int i = 0; i < n; i++) logger.info(msg);
+			allocated = allocatedBytes.getAsLong() - before;
+		} finally {
+			lt.shutdown(10000);
+		}
+
+		assertTrue(allocated < n, allocated + " bytes allocated for " + n + " logs");
+	}
+
+	/**
+	 * {@code com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()} via reflection,
+	 * since the module does not read {@code jdk.management}.
+	 */
+	private static LongSupplier allocatedBytesCounter() {
+		try {
+			Object bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+			Method m = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+			if ((long) m.invoke(bean) < 0) return null;
+			return () -> {
+				try {
+					return (long) m.invoke(bean);
+				} catch (ReflectiveOperationException e) {
+					throw new RuntimeException(e);
+				}
+			};
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			return null;
+		}
+	}
+}
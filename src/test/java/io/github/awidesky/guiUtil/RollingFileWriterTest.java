@@ -0,0 +1,233 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.io.RollingFileWriter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class RollingFileWriterTest {
+
+	@TempDir
+	Path dir;
+
+	private List<String> fileNames() throws IOException {
+		try (Stream<Path> s = Files.list(dir)) {
+			return s.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static String readGzip(Path p) throws IOException {
+		try (InputStream is = new GZIPInputStream(Files.newInputStream(p))) {
+			return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void retentionTest() throws IOException {
+		Path file = dir.resolve("app.log");
+		LoggerThread lt = new LoggerThread();
+		lt.setLogDestination(new RollingFileWriter(file, StandardCharsets.UTF_8, 1000, 3), true);
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("[%l] %m")).getLogger();
+		for (int i = 0; i < 200; i++) logger.info("log message " + i);
+		lt.shutdown(0); // closing the writer waits for compression
+
+		/* about 4.4KB of logs are written, so it's rolled over 4 times */
+		assertEquals(List.of("app.2.log.gz", "app.3.log.gz", "app.4.log.gz", "app.log"), fileNames());
+		List<String> lines = new ArrayList<>();
+		for (int i = 2; i <= 4; i++) {
+			Path archive = dir.resolve("app." + i + ".log.gz");
+			String content = readGzip(archive);
+			assertTrue(content.length() < 1000 + 30, archive + " is too large : " + content.length());
+			content.lines().forEach(lines::add);
+		}
+		Files.readString(file).lines().forEach(lines::add);
+
+		/* retained logs are the last logs, without any loss or split line */
+		int first = 200 - lines.size();
+		for (int i = 0; i < lines.size(); i++) assertEquals("[INFO] log message " + (first + i), lines.get(i));
+	}
+
+	@Test
+	void existingArchivesTest() throws IOException {
+		Path file = dir.resolve("app.log");
+		Files.writeString(dir.resolve("app.5.log.gz"), "old");
+		Files.writeString(dir.resolve("app.x.log"), "not an archive");
+		try (RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 10, null, 1, false, null)) {
+			w.write("0123456789\n");
+		}
+		assertEquals(List.of("app.6.log", "app.log", "app.x.log"), fileNames());
+		assertEquals("0123456789\n", Files.readString(dir.resolve("app.6.log")));
+	}
+
+	@Test
+	void timeRollingTest() throws IOException, InterruptedException {
+		Path file = dir.resolve("time.log");
+		try (RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 0, ChronoUnit.SECONDS, 10, false, null)) {
+			w.write("first\n");
+			Thread.sleep(1100);
+			w.write("second\n");
+		}
+		assertEquals("first\n", Files.readString(dir.resolve("time.1.log")));
+		assertEquals("second\n", Files.readString(file));
+	}
+
+	@Test
+	void rolloverLatencyTest() throws IOException, InterruptedException {
+		Path file = dir.resolve("latency.log");
+		ExecutorService compressor = Executors.newSingleThreadExecutor();
+		CountDownLatch blocked = new CountDownLatch(1);
+		/* block the compressor until every write is done. */
+		compressor.execute(() -> {
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {}
+		});
+
+		String line = "rollover latency test log message ".repeat(30) + "\n";
+		int maxSize = 1024 * 1024, writes = 20_000;
+		int linesPerFile = (maxSize + line.length() - 1) / line.length();
+		int rolls = writes / linesPerFile;
+		long maxWrite = 0, maxRoll = 0;
+		try (RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, maxSize, null, 100, true, compressor)) {
+			for (int i = 0; i < writes; i++) {
+				long t = System.nanoTime();
+				w.write(line);
+				t = System.nanoTime() - t;
+				if ((i + 1) % linesPerFile == 0) maxRoll = Math.max(maxRoll, t);
+				else maxWrite = Math.max(maxWrite, t);
+			}
+			/* every rolled file is waiting for compression, but the writer was not blocked */
+			List<String> names = fileNames();
+			assertEquals(rolls + 1, names.size(), names::toString);
+			assertFalse(names.stream().anyMatch(s -> s.endsWith(".gz")), names::toString);
+		}
+		blocked.countDown();
+		compressor.shutdown();
+		assertTrue(compressor.awaitTermination(60, TimeUnit.SECONDS));
+		List<String> names = fileNames();
+		assertEquals(rolls + 1, names.size(), names::toString);
+		assertEquals(rolls, names.stream().filter(s -> s.endsWith(".gz")).count(), names::toString);
+		System.out.printf("max write without rollover : %.3fms, max write with rollover : %.3fms%n", maxWrite / 1e6, maxRoll / 1e6);
+	}
+
+	@Test
+	void splitLineTest() throws IOException {
+		Path file = dir.resolve("split.log");
+		try (RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 5, null, 10, false, null)) {
+			/* as PrintWriter.println does, the text and the line separator are written separately */
+			w.write("0123456789");
+			w.write("\n");
+			w.write("abc");
+			w.write("defgh\n");
+		}
+		assertEquals("0123456789\n", Files.readString(dir.resolve("split.1.log")));
+		assertEquals("abcdefgh\n", Files.readString(dir.resolve("split.2.log")));
+		assertEquals("", Files.readString(file));
+	}
+
+	@Test
+	void archiveFailureTest() throws IOException {
+		Path file = dir.resolve("fail.log");
+		/* compressing fails, since the temporary file cannot be created */
+		Files.createDirectory(dir.resolve("fail.1.log.gz.tmp"));
+		RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 5, null, 10, true, Runnable::run);
+		IOException e = assertThrows(IOException.class, () -> w.write("0123456789\n"));
+		assertTrue(e.getCause() instanceof IOException, e::toString);
+		/* the failure is thrown once, and the log is not lost */
+		w.write("next\n");
+		w.close();
+		assertEquals("0123456789\n", Files.readString(dir.resolve("fail.1.log")));
+		assertEquals("next\n", readGzip(dir.resolve("fail.2.log.gz")));
+	}
+
+	@Test
+	void renameFailureTest() throws IOException {
+		Path file = dir.resolve("exists.log");
+		RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 5, null, 10, false, Runnable::run);
+		/* created after the writer has looked for existing archives */
+		Files.writeString(dir.resolve("exists.1.log"), "not mine");
+		IOException e = assertThrows(IOException.class, () -> w.write("0123456789\n"));
+		assertTrue(e.getCause() instanceof FileAlreadyExistsException, e::toString);
+		/* the active file is still writable, and the next rollover uses the next index */
+		w.write("next\n");
+		w.close();
+		assertEquals("not mine", Files.readString(dir.resolve("exists.1.log")));
+		assertEquals("0123456789\nnext\n", Files.readString(dir.resolve("exists.2.log")));
+		assertEquals("", Files.readString(file));
+	}
+
+	@Test
+	void loggerThreadFailureTest() throws IOException {
+		Path file = dir.resolve("thread.log");
+		RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 5, null, 10, false, Runnable::run);
+		Files.writeString(dir.resolve("thread.1.log"), "not mine");
+		PrintStream stderr = System.err;
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		LoggerThread lt = new LoggerThread();
+		try {
+			System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+			lt.setLogDestination(w, true);
+			lt.start();
+			TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(new SimpleLogFormatter("%m")).getLogger();
+			logger.info("0123456789");
+			logger.info("next");
+			lt.shutdown(0);
+		} finally {
+			System.setErr(stderr);
+		}
+		/* PrintWriter of the LoggerThread swallows the IOException, but the LoggerThread reports it */
+		String report = err.toString(StandardCharsets.UTF_8);
+		assertTrue(report.contains("LoggerThread " + lt.getName() + " failed to write logs : "), report);
+		assertTrue(report.contains(FileAlreadyExistsException.class.getName()), report);
+		/* no log is lost, and the file that is not an archive of the writer is untouched */
+		assertEquals("not mine", Files.readString(dir.resolve("thread.1.log")));
+		List<String> lines = new ArrayList<>();
+		for (int i = 2; i <= 3; i++) Files.readString(dir.resolve("thread." + i + ".log")).lines().forEach(lines::add);
+		assertEquals(List.of("0123456789", "next"), lines.stream().filter(s -> !s.startsWith("LoggerThread started at ")).toList());
+	}
+
+	@Test
+	void closeFailureTest() throws IOException {
+		Path file = dir.resolve("close.log");
+		Files.createDirectory(dir.resolve("close.1.log.gz.tmp"));
+		/* compressed by the writer's own thread, which fails while close() waits for it */
+		RollingFileWriter w = new RollingFileWriter(file, StandardCharsets.UTF_8, 5, null, 10, true, null);
+		try {
+			w.write("0123456789\n");
+		} catch (IOException e) {
+			/* the failure may be recorded before the write returns */
+			w.close();
+			return;
+		}
+		assertThrows(IOException.class, w::close);
+		assertEquals("0123456789\n", Files.readString(dir.resolve("close.1.log")));
+	}
+}
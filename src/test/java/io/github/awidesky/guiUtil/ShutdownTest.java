@@ -0,0 +1,130 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LinkedLogQueue;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.LoggerThread.RunState;
+import io.github.awidesky.guiUtil.thread.ShutdownReport;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+class ShutdownTest {
+
+	private static final int LOG_NUM = 10000;
+
+	private static LoggerThread newLoggerThread(LoggerThread lt, StringWriter sw) {
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		lt.setLogDestination(sw, true);
+		return lt;
+	}
+
+	/** A {@code Writer} that takes 100ms to write a log containing "slow". */
+	private static class SlowWriter extends StringWriter {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			if (new String(cbuf, off, len).contains("slow")) {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {}
+			}
+			super.write(cbuf, off, len);
+		}
+	}
+
+	@Test
+	void reportTest() {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = newLoggerThread(new LoggerThread(), sw);
+		assertEquals(RunState.NEW, lt.getRunState());
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		for (int i = 0; i < LOG_NUM; i++) logger.info(String.valueOf(i));
+
+		ShutdownReport report = lt.shutdown(0);
+		assertEquals(RunState.TERMINATED, lt.getRunState());
+		assertTrue(report.isComplete(), report::toString);
+		assertEquals(LOG_NUM, report.getWrittenCount());
+		assertEquals(0, report.getDroppedCount());
+		assertEquals(0, report.getPendingCount());
+		assertEquals(LOG_NUM + 1, sw.toString().lines().count());
+		assertSame(report, lt.shutdown(0));
+		assertSame(report, lt.getShutdownReport());
+	}
+
+	@Test
+	void idleShutdownTest() {
+		LoggerThread lt = newLoggerThread(new LoggerThread(), new StringWriter());
+		lt.start();
+		ShutdownReport report = lt.shutdown(10_000);
+		/* the consumer waiting on an empty queue does not wedge the shutdown */
+		assertTrue(report.isComplete(), report::toString);
+		assertTrue(report.getElapsedMillis() < 1000, report::toString);
+	}
+
+	@Test
+	void deadlineTest() throws InterruptedException {
+		StringWriter sw = new SlowWriter();
+		LoggerThread lt = newLoggerThread(new LoggerThread(new LinkedLogQueue(4)), sw);
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+
+		/* a producer blocked by the full queue should not be left blocked after the shutdown */
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 20; i++) logger.info("slow " + i);
+		});
+		producer.start();
+		Thread.sleep(150);
+
+		ShutdownReport report = lt.shutdown(300);
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+
+		assertTrue(report.isTerminated(), report::toString);
+		assertTrue(report.getPendingCount() > 0, report::toString);
+		assertTrue(report.getElapsedMillis() < 1000, report::toString);
+		/* every task is written, pending, or dropped after the termination */
+		assertEquals(20, report.getWrittenCount() + report.getPendingCount() + lt.getDroppedCount(), report::toString);
+		assertTrue(sw.toString().contains(report.getPendingCount() + " events discarded because the LoggerThread shutdown deadline has passed"));
+	}
+
+	@Test
+	void logAfterShutdownTest() {
+		LoggerThread lt = newLoggerThread(new LoggerThread(new LinkedLogQueue(1)), new StringWriter());
+		lt.start();
+		TaskLogger logger = lt.getLoggerBuilder().getLogger();
+		lt.shutdown(1000);
+		/* would block forever with a full queue, if not dropped */
+		for (int i = 0; i < 10; i++) logger.info("after shutdown");
+		assertEquals(10, lt.getDroppedCount());
+	}
+
+	@Test
+	void notStartedTest() {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = newLoggerThread(new LoggerThread(), sw);
+		lt.getLoggerBuilder().getLogger().info("never written");
+		ShutdownReport report = lt.shutdown(1000);
+		assertEquals(RunState.TERMINATED, lt.getRunState());
+		assertEquals(1, report.getPendingCount());
+		assertEquals(0, report.getWrittenCount());
+	}
+
+	@Test
+	void shutdownHookTest() {
+		LoggerThread lt = newLoggerThread(new LoggerThread(), new StringWriter());
+		lt.registerShutdownHook(1000);
+		assertThrows(IllegalStateException.class, () -> lt.registerShutdownHook(1000));
+		lt.start();
+		/* explicit shutdown removes the hook */
+		assertTrue(lt.shutdown(1000).isComplete());
+	}
+}
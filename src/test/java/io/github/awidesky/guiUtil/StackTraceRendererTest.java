@@ -0,0 +1,149 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.formatter.StackTraceRenderer;
+import io.github.awidesky.guiUtil.simple.SimpleLogger;
+
+class StackTraceRendererTest {
+
+	private static final int LOG_NUM = 2000;
+
+	private static String printStackTrace(Throwable t) {
+		StringWriter sw = new StringWriter();
+		t.printStackTrace(new PrintWriter(sw));
+		return sw.toString();
+	}
+
+	private static Exception recurse(int depth, Exception cause) {
+		return depth == 0 ? new IllegalStateException("depth reached", cause) : recurse(depth - 1, cause);
+	}
+
+	/**
+	 * @return an exception with causes, suppressed exceptions and frames in common with the enclosing trace.
+	 */
+	private static Exception nested() {
+		Exception root = new RuntimeException("root");
+		Exception inner = recurse(5, root);
+		inner.addSuppressed(new IllegalArgumentException("suppressed"));
+		inner.getSuppressed()[0].addSuppressed(recurse(3, null));
+		Exception outer = new Exception("outer", inner);
+		outer.addSuppressed(new UnsupportedOperationException());
+		return outer;
+	}
+
+	@Test
+	void sameAsPrintStackTraceTest() {
+		StackTraceRenderer renderer = new StackTraceRenderer();
+		Exception e = nested();
+		assertEquals(printStackTrace(e), renderer.render(e));
+
+		Exception a = new Exception("a");
+		Exception b = new Exception("b", a);
+		a.initCause(b);
+		b.addSuppressed(a);
+		String circular = renderer.render(a);
+		assertEquals(printStackTrace(a), circular);
+		assertTrue(circular.contains("[CIRCULAR REFERENCE: java.lang.Exception: a]"), circular);
+
+		StringBuilder sb = new StringBuilder("message ");
+		renderer.render(e, sb);
+		assertEquals("message " + printStackTrace(e), sb.toString());
+	}
+
+	@Test
+	void maxDepthTest() {
+		Exception e = recurse(20, null);
+		List<String> lines = new StackTraceRenderer().setMaxDepth(3).render(e).lines().toList();
+		int total = e.getStackTrace().length;
+		assertEquals(5, lines.size(), lines::toString);
+		assertEquals(e.toString(), lines.get(0));
+		assertTrue(lines.get(1).startsWith("\tat "));
+		assertEquals("\t... " + (total - 3) + " more", lines.get(4));
+
+		assertTrue(new StackTraceRenderer().setMaxDepth(0).render(nested()).lines().noneMatch(s -> s.contains("\tat ")));
+		assertThrows(IllegalArgumentException.class, () -> new StackTraceRenderer().setMaxDepth(-1));
+	}
+
+	public static void fail() {
+		throw new IllegalStateException("invoked");
+	}
+
+	@Test
+	void filterTest() throws ReflectiveOperationException {
+		InvocationTargetException e = assertThrows(InvocationTargetException.class, () -> getClass().getMethod("fail").invoke(null));
+		StackTraceRenderer renderer = new StackTraceRenderer().setFilteredPackages("java.lang.reflect", "jdk.internal.reflect");
+		assertEquals(List.of("java.lang.reflect", "jdk.internal.reflect"), renderer.getFilteredPackages());
+		String str = renderer.render(e);
+		assertFalse(str.contains("\tat java.lang.reflect."), str);
+		assertFalse(str.contains("\tat jdk.internal.reflect."), str);
+		assertTrue(str.lines().anyMatch(s -> s.matches("\t\\.\\.\\. \\d+ filtered")), str);
+		assertTrue(str.contains("Caused by: java.lang.IllegalStateException: invoked"), str);
+	}
+
+	@Test
+	void loggerTest() {
+		StringWriter sw = new StringWriter();
+		SimpleLogger logger = new SimpleLogger(sw, true);
+		logger.setLogFormatter(new SimpleLogFormatter("%m"));
+		logger.setStackTraceRenderer(new StackTraceRenderer().setMaxDepth(1));
+		Exception e = recurse(3, null);
+		logger.error("failed : ", e);
+		logger.withMorePrefix("", false).error(e);
+		List<String> lines = sw.toString().lines().toList();
+		assertEquals(List.of("failed : " + e, "\tat " + e.getStackTrace()[0], "\t... " + (e.getStackTrace().length - 1) + " more"), lines.subList(0, 3));
+		/* a stack trace ends with a line separator, as printStackTrace does */
+		assertEquals(List.of("", e.toString()), lines.subList(3, 5));
+		assertEquals(8, lines.size(), lines::toString);
+	}
+
+	@Test
+	void allocationTest() throws ReflectiveOperationException {
+		Method allocated;
+		Object bean = ManagementFactory.getThreadMXBean();
+		try {
+			allocated = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessError e) {
+			allocated = null;
+		}
+		assumeTrue(allocated != null && allocated.getDeclaringClass().isInstance(bean), "allocated bytes of a thread cannot be measured");
+
+		Exception e = nested();
+		StackTraceRenderer renderer = new StackTraceRenderer();
+		StringBuilder sb = new StringBuilder();
+		long printed = 0, rendered = 0;
+		for (int round = 0; round < 3; round++) { /* the last round is measured, after the code is compiled */
+			long before = (long) allocated.invoke(bean);
+			for (int i = 0; i < LOG_NUM; i++) {
+				sb.setLength(0);
+				sb.append("message" + printStackTrace(e));
+			}
+			printed = (long) allocated.invoke(bean) - before;
+			before = (long) allocated.invoke(bean);
+			for (int i = 0; i < LOG_NUM; i++) {
+				sb.setLength(0);
+				sb.append("message");
+				renderer.render(e, sb);
+			}
+			rendered = (long) allocated.invoke(bean) - before;
+		}
+		System.out.println("Stack trace of " + e.getStackTrace().length + " frames : printStackTrace allocated " + printed / LOG_NUM
+				+ " bytes, StackTraceRenderer allocated " + rendered / LOG_NUM + " bytes per log");
+		String msg = "printStackTrace : " + printed + ", StackTraceRenderer : " + rendered;
+		assertTrue(printed > rendered * 5, msg);
+	}
+}
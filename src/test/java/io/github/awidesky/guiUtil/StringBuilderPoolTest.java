@@ -0,0 +1,73 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.formatter.StringBuilderPool;
+import io.github.awidesky.guiUtil.level.Level;
+
+class StringBuilderPoolTest {
+
+	@Test
+	void reuseTest() {
+		StringBuilderPool pool = new StringBuilderPool(4, 1024);
+		StringBuilder sb = pool.acquire();
+		sb.append("content");
+		pool.release(sb);
+		assertEquals(1, pool.pooledCount());
+		StringBuilder sb2 = pool.acquire();
+		assertSame(sb, sb2);
+		assertEquals(0, sb2.length());
+	}
+
+	@Test
+	void hugeBuilderTrimTest() {
+		StringBuilderPool pool = new StringBuilderPool(4, 1024);
+		StringBuilder sb = pool.acquire();
+		sb.append("a".repeat(1_000_000));
+		pool.release(sb);
+		assertEquals(0, pool.pooledCount());
+		assertNotSame(sb, pool.acquire());
+	}
+
+	@Test
+	void boundedFootprintTest() throws InterruptedException {
+		final int threads = 10_000;
+		SimpleLogFormatter formatter = new SimpleLogFormatter("[%l] [%t] %m");
+		StringBuilderPool pool = SimpleLogFormatter.builderPool();
+		String huge = "a".repeat(100_000);
+		List<Thread> list = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			String msg = i % 100 == 0 ? huge : "message " + i;
+			Thread t = new Thread(() -> formatter.format(Level.INFO, null, msg));
+			t.start();
+			list.add(t);
+		}
+		for (Thread t : list) t.join();
+
+		assertTrue(pool.pooledCount() <= pool.slots(), pool.toString());
+		assertTrue(pool.retainedCapacity() <= (long) pool.slots() * pool.maxRetainedCapacity(), pool.retainedCapacity() + " chars retained");
+		System.out.println("Formatted logs from " + threads + " threads, " + pool + ", retained " + pool.retainedCapacity() + " chars");
+	}
+
+	@Test
+	void threadNameTest() {
+		SimpleLogFormatter formatter = new SimpleLogFormatter("%t");
+		String name = Thread.currentThread().getName();
+		try {
+			assertEquals(name, formatter.format(Level.INFO, null, ""));
+			Thread.currentThread().setName("renamed");
+			assertEquals("renamed", formatter.format(Level.INFO, null, ""));
+		} finally {
+			Thread.currentThread().setName(name);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.NullLogFormatter;
+import io.github.awidesky.guiUtil.thread.LogEvent;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.StripedLogQueue;
+import io.github.awidesky.guiUtil.thread.TaskLogger;
+
+/**
+ * Runs every test of {@link TaskLoggerTest} with a {@link StripedLogQueue} of small lanes.
+ */
+class StripedTaskLoggerTest extends TaskLoggerTest {
+
+	@Override
+	protected LoggerThread createLoggerThread() {
+		return new LoggerThread(new StripedLogQueue(16, false));
+	}
+
+	private static int[] runProducers(StripedLogQueue queue, int producers, int logsPerProducer) throws InterruptedException {
+		StringWriter sw = new StringWriter();
+		LoggerThread lt = new LoggerThread(queue);
+		lt.setLogDestination(sw, false);
+		lt.start();
+		try {
+			List<Thread> threads = IntStream.range(0, producers).mapToObj(p -> new Thread(() -> {
+				TaskLogger logger = lt.getLoggerBuilder().setLogFormatter(NullLogFormatter.instance()).getLogger();
+				for (int i = 0; i < logsPerProducer; i++) logger.log(p + ":" + i);
+			})).toList();
+			threads.forEach(Thread::start);
+			for (Thread t : threads) t.join();
+		} finally {
+			lt.shutdown(10000);
+		}
+
+		int[] next = new int[producers];
+		sw.toString().lines().skip(1).forEach(line -> {
+			String[] s = line.split(":");
+			int p = Integer.parseInt(s[0]);
+			assertEquals(next[p]++, Integer.parseInt(s[1]), "logs from producer " + p + " are out of order");
+		});
+		return next;
+	}
+
+	@Test
+	void multiProducerOrderTest() throws InterruptedException {
+		IntStream.of(runProducers(new StripedLogQueue(64, false), 32, 2000)).forEach(n -> assertEquals(2000, n));
+		IntStream.of(runProducers(new StripedLogQueue(64, true), 32, 2000)).forEach(n -> assertEquals(2000, n));
+	}
+
+	@Test
+	void orderedMergeTest() throws InterruptedException {
+		StripedLogQueue queue = new StripedLogQueue(16, true);
+		List<LogEvent> claimed = new ArrayList<>();
+		/* claim from a new thread each time, so that every event is in a different lane. */
+		for (int i = 0; i < 9; i++) {
+			Thread t = new Thread(() -> {
+				try {
+					LogEvent e = queue.claim();
+					claimed.add(e);
+					queue.publish(e);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			t.start();
+			t.join();
+		}
+		assertEquals(9, queue.size());
+
+		List<LogEvent> handled = new ArrayList<>();
+		assertTrue(queue.await(1, TimeUnit.SECONDS));
+		assertEquals(9, queue.drain(handled::add, Integer.MAX_VALUE));
+		assertEquals(claimed, handled);
+		assertTrue(queue.isEmpty());
+
+		/* every producer thread is terminated, so its empty lane is removed when the consumer waits. */
+		queue.await(1, TimeUnit.MILLISECONDS);
+		assertEquals(0, queue.laneCount());
+	}
+
+	@Test
+	void laneLifecycleTest() throws InterruptedException {
+		StripedLogQueue queue = new StripedLogQueue(16, false);
+		/* waking the consumer up from a thread that never logged does not create a lane */
+		Thread hook = new Thread(queue::wakeUp);
+		hook.start();
+		hook.join();
+		assertEquals(0, queue.laneCount());
+		assertTrue(queue.await(0, TimeUnit.MILLISECONDS));
+		assertEquals(0, queue.drain(e -> {}, Integer.MAX_VALUE));
+
+		Thread producer = new Thread(() -> {
+			try {
+				queue.publish(queue.claim());
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		producer.start();
+		producer.join();
+		assertEquals(1, queue.laneCount());
+		/* the consumer never parks while the current thread keeps logging, but dead lanes are still removed */
+		for (int i = 0; i < 1000; i++) {
+			queue.publish(queue.claim());
+			queue.drain(e -> {}, Integer.MAX_VALUE);
+		}
+		assertEquals(1, queue.laneCount());
+	}
+}
@@ -0,0 +1,92 @@
+package io.github.awidesky.guiUtil;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.awidesky.guiUtil.formatter.SimpleLogFormatter;
+import io.github.awidesky.guiUtil.thread.LoggerThread;
+import io.github.awidesky.guiUtil.thread.TaskBufferedLogger;
+
+class TaskBufferedLoggerTest {
+
+	private LoggerThread lt;
+	private StringWriter sw;
+
+	@BeforeEach
+	void setUp() {
+		lt = new LoggerThread();
+		lt.setLogFormatter(new SimpleLogFormatter("%m"));
+		sw = new StringWriter();
+		lt.setLogDestination(sw, true);
+	}
+
+	private List<String> lines() {
+		return sw.toString().lines().filter(s -> !s.startsWith("LoggerThread started at ")).toList();
+	}
+
+	@Test
+	void largeBufferTest() {
+		TaskBufferedLogger logger = lt.getLoggerBuilder().getBufferedLogger();
+		logger.setFlushThreshold(0);
+		List<String> expected = IntStream.range(0, 10_000).mapToObj(i -> "log " + i).toList();
+		expected.forEach(logger::info);
+		assertTrue(logger.bufferedLength() > 64 * 1024);
+		assertEquals(0, lt.getMetrics().getEnqueuedCount());
+
+		logger.flush();
+		assertEquals(0, logger.bufferedLength());
+		assertEquals(1, lt.getMetrics().getEnqueuedCount());
+		lt.start();
+		lt.shutdown(1000);
+		assertEquals(expected, lines());
+	}
+
+	@Test
+	void thresholdTest() {
+		TaskBufferedLogger logger = lt.getLoggerBuilder().getBufferedLogger();
+		assertEquals(TaskBufferedLogger.DEFAULT_FLUSH_THRESHOLD, logger.getFlushThreshold());
+		assertThrows(IllegalArgumentException.class, () -> logger.setFlushThreshold(-1));
+		logger.setFlushThreshold(1000);
+		String line = "x".repeat(99);
+		for (int i = 0; i < 25; i++) logger.info(line);
+
+		/* flushed after each 10 logs(1000 chars), never in the middle of a log */
+		int sep = System.lineSeparator().length();
+		assertEquals(2, lt.getMetrics().getEnqueuedCount());
+		assertEquals(5 * (line.length() + sep), logger.bufferedLength());
+		logger.close();
+		lt.start();
+		lt.shutdown(1000);
+		assertEquals(25, lines().stream().filter(line::equals).count());
+	}
+
+	@Test
+	void flushOnErrorTest() {
+		TaskBufferedLogger logger = lt.getLoggerBuilder().getBufferedLogger();
+		assertFalse(logger.isFlushOnError());
+		logger.info("before error");
+		logger.error("error");
+		assertEquals(0, lt.getMetrics().getEnqueuedCount());
+
+		logger.setFlushOnError(true);
+		logger.warning("warning");
+		assertEquals(0, lt.getMetrics().getEnqueuedCount());
+		logger.error("error");
+		assertEquals(1, lt.getMetrics().getEnqueuedCount());
+		assertEquals(0, logger.bufferedLength());
+		logger.info("after error");
+		lt.start();
+		lt.shutdown(1000);
+		assertEquals(List.of("before error", "error", "warning", "error", "after error"), lines(), () -> lines().stream().collect(Collectors.joining("\n")));
+	}
+}
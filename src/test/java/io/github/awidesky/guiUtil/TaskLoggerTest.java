@@ -10,6 +10,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -29,15 +30,31 @@ class TaskLoggerTest {
 	private final static List<String> strList = IntStream.range(0, STRING_NUM).mapToObj(String::valueOf).toList();
 	
 
+	/**
+	 * Creates the {@code LoggerThread} to test.
+	 * Subclasses can override this to test with other {@code LogQueue} implementations.
+	 */
+	protected LoggerThread createLoggerThread() {
+		return new LoggerThread();
+	}
+
 	@BeforeEach
 	void setUpBeforeTest() {
-		lt = new LoggerThread();
+		lt = createLoggerThread();
 		lt.setLogFormatter(new SimpleLogFormatter("[Thread %p] %m"));
 		sw = new StringWriter();
 		lt.setLogDestination(sw, true);
 		lt.start();
 	}
 
+	/**
+	 * Shuts down the {@code LoggerThread} if the test did not, e.g. tests of subclasses that use their own queue.
+	 */
+	@AfterEach
+	void tearDownAfterTest() {
+		if (lt.getShutdownReport() == null) lt.shutdown(1000);
+	}
+
 	@Test
 	void TaskLoggertest() {
 		System.out.println("\n==========================TaskLoggerTest==========================");